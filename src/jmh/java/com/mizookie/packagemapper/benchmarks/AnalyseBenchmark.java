@@ -0,0 +1,78 @@
+package com.mizookie.packagemapper.benchmarks;
+
+import com.mizookie.packagemapper.services.AnalyserService;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A full analysis of a repository, from listing its files to storing its graph. The resolution cache is off unless
+ * {@code cache} is set, otherwise every analysis after the first would only read the cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+public class AnalyseBenchmark {
+    @Param({"naive", "inverted-index"})
+    public String resolver;
+    @Param({"1", "4", "16"})
+    public int threads;
+    @Param({"1000"})
+    public int files;
+    @Param({"100"})
+    public int lines;
+    @Param({"5"})
+    public int references;
+    // Comma separated, see SyntheticRepository.LANGUAGES
+    @Param({"java,python,typescript,text"})
+    public String languages;
+    @Param({"true"})
+    public boolean checkout;
+    @Param({"false"})
+    public boolean cache;
+
+    private BenchmarkContext context;
+    private AnalyserService analyserService;
+    private String repositoryPath;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, GitAPIException {
+        context = new BenchmarkContext(Map.of(
+                "resolver.type", resolver,
+                "analysis.concurrency.files", String.valueOf(threads),
+                "analysis.checkout", String.valueOf(checkout),
+                "cache.resolution.enabled", String.valueOf(cache)));
+        analyserService = context.getBean(AnalyserService.class);
+        repositoryPath = new SyntheticRepository(files, lines, references, Arrays.asList(languages.split(",")))
+                .generate(context.getRepositoryPath("synthetic")).toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void analyse() throws IOException, GitAPIException, InterruptedException {
+        analyserService.analyse(repositoryPath, null);
+    }
+}
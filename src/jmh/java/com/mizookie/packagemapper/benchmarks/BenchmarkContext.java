@@ -0,0 +1,57 @@
+package com.mizookie.packagemapper.benchmarks;
+
+import com.mizookie.packagemapper.PackagemapperApplication;
+import com.mizookie.packagemapper.utils.FileService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The application without its web server, working in a temporary directory: repositories go to {@code repositories}
+ * and graphs to {@code analysis}. Closing it deletes the directory.
+ */
+public class BenchmarkContext implements AutoCloseable {
+    private final Path directory;
+    private final ConfigurableApplicationContext context;
+
+    /**
+     * @param properties application properties, on top of the directories. They take precedence over {@code .env}
+     */
+    public BenchmarkContext(Map<String, String> properties) throws IOException {
+        directory = Files.createTempDirectory("packagemapper-benchmark");
+        List<String> args = new ArrayList<>(List.of(
+                "--repository.directory=" + Files.createDirectories(directory.resolve("repositories")),
+                "--analysis.directory=" + Files.createDirectories(directory.resolve("analysis")),
+                "--logs.directory=" + Files.createDirectories(directory.resolve("logs")),
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=warn"));
+        properties.forEach((name, value) -> args.add("--" + name + "=" + value));
+        context = new SpringApplicationBuilder(PackagemapperApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(String[]::new));
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * Where a repository named {@code name} has to be for the application to find it
+     */
+    public Path getRepositoryPath(String name) {
+        return directory.resolve("repositories").resolve(name);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        FileService.removeRecursively(directory.toFile());
+    }
+}
@@ -0,0 +1,67 @@
+package com.mizookie.packagemapper.benchmarks;
+
+import com.mizookie.packagemapper.utils.FileService;
+import com.mizookie.packagemapper.visitors.SourceFileFilter;
+import com.mizookie.packagemapper.visitors.VisibleFileVisitor;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listing the files of a repository: {@link FileService#getFiles} with the default exclude patterns and size limit,
+ * against a sequential walk that only skips hidden files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FileWalkBenchmark {
+    @Param({"1000", "10000"})
+    public int files;
+
+    private Path directory;
+    private SourceFileFilter filter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, GitAPIException {
+        directory = new SyntheticRepository(files, 20, 2, SyntheticRepository.LANGUAGES).generate(Files.createTempDirectory("packagemapper-benchmark"));
+        filter = new SourceFileFilter(List.of("node_modules/", "bower_components/", "vendor/", "build/", "dist/", "target/"), Set.of(), 1 << 20);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        FileService.removeRecursively(directory.toFile());
+    }
+
+    @Benchmark
+    public List<String> getFiles() {
+        return FileService.getFiles(directory.toString(), filter);
+    }
+
+    @Benchmark
+    public List<Path> walkVisibleFiles() throws IOException {
+        VisibleFileVisitor visitor = new VisibleFileVisitor();
+        Files.walkFileTree(directory, visitor);
+        return visitor.getFiles();
+    }
+}
@@ -0,0 +1,89 @@
+package com.mizookie.packagemapper.benchmarks;
+
+import com.mizookie.packagemapper.graph.CsrGraph;
+import com.mizookie.packagemapper.services.GraphService;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Storing and loading a graph through {@link GraphService}. With a {@code cacheSize} of {@code 0B} every import reads
+ * the graph file, otherwise imports are served from memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GraphStorageBenchmark {
+    @Param({"10000", "100000"})
+    public int vertices;
+    @Param({"5"})
+    public int edgesPerVertex;
+    @Param({"0B", "512MB"})
+    public String cacheSize;
+    @Param({"false"})
+    public boolean exportDot;
+
+    private BenchmarkContext context;
+    private GraphService graphService;
+    private Graph<String, DefaultEdge> graph;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = new BenchmarkContext(Map.of("graph.cache.max-size", cacheSize, "graph.export.dot", String.valueOf(exportDot)));
+        graphService = context.getBean(GraphService.class);
+        graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+        Random random = new Random(vertices);
+        for (int vertex = 0; vertex < vertices; ++vertex) {
+            graph.addVertex(String.format("synthetic/src/m%d/File%d.java", vertex / 50, vertex));
+        }
+        String[] paths = graph.vertexSet().toArray(String[]::new);
+        for (int edge = 0; edge < vertices * edgesPerVertex; ++edge) {
+            String source = paths[random.nextInt(vertices)], target = paths[random.nextInt(vertices)];
+            if (!source.equals(target)) {
+                graph.addEdge(source, target);
+            }
+        }
+        graphService.serializeGraph(graph, "synthetic", "stored");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void serializeGraph() throws IOException {
+        graphService.serializeGraph(graph, "synthetic", "serialized");
+    }
+
+    @Benchmark
+    public Graph<String, DefaultEdge> importGraph() throws IOException {
+        return graphService.importGraph("synthetic_stored");
+    }
+
+    @Benchmark
+    public CsrGraph getCsrGraph() throws IOException {
+        return graphService.getCsrGraph("synthetic_stored");
+    }
+}
@@ -0,0 +1,89 @@
+package com.mizookie.packagemapper.benchmarks;
+
+import com.mizookie.packagemapper.resolver.AhoCorasickResolver;
+import com.mizookie.packagemapper.resolver.InvertedIndexResolver;
+import com.mizookie.packagemapper.resolver.MappedResolver;
+import com.mizookie.packagemapper.resolver.NaiveResolver;
+import com.mizookie.packagemapper.resolver.Resolver;
+import com.mizookie.packagemapper.utils.FileService;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolving one file of a repository by name, the files it is checked against being already indexed. {@code threads}
+ * is the size of the pool the {@code naive} resolver splits a file over; run with {@code -t} to resolve several files
+ * at once, like an analysis does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ResolverBenchmark {
+    @Param({"naive", "aho-corasick", "inverted-index", "mapped"})
+    public String resolver;
+    @Param({"1000"})
+    public int files;
+    @Param({"200"})
+    public int lines;
+    @Param({"5"})
+    public int references;
+    @Param({"4"})
+    public int threads;
+
+    private Path directory;
+    private ForkJoinPool pool;
+    private Resolver instance;
+    private List<String> filePaths;
+
+    // Which file each benchmark thread resolves next
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, GitAPIException {
+        directory = new SyntheticRepository(files, lines, references, List.of("text")).generate(Files.createTempDirectory("packagemapper-benchmark"));
+        filePaths = FileService.getFiles(directory.toString());
+        pool = new ForkJoinPool(threads);
+        instance = switch (resolver) {
+            case "naive" -> new NaiveResolver(pool);
+            case "aho-corasick" -> new AhoCorasickResolver();
+            case "inverted-index" -> new InvertedIndexResolver(pool);
+            case "mapped" -> new MappedResolver();
+            default -> throw new IllegalArgumentException("Unknown resolver type: " + resolver);
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+        FileService.removeRecursively(directory.toFile());
+    }
+
+    @Benchmark
+    public List<String> solve(Cursor cursor) throws IOException {
+        return instance.solve(filePaths, filePaths.get(cursor.next++ % filePaths.size()));
+    }
+}
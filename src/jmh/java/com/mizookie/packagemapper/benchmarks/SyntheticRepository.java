@@ -0,0 +1,126 @@
+package com.mizookie.packagemapper.benchmarks;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates a git repository of made-up sources, so that benchmarks don't depend on a repository being cloned. The
+ * same arguments always give the same repository.
+ * <p>
+ * Files are spread over directories of {@value #FILES_PER_DIRECTORY} files and their language goes round
+ * {@code languages}. Each file refers to {@code references} other files: Java, Python and TypeScript files import
+ * files of their language, and text files mention the name of any file. The rest of each file is made of lines of
+ * common identifiers, which is what resolvers spend most of their time on.
+ */
+public class SyntheticRepository {
+    public static final List<String> LANGUAGES = List.of("java", "python", "typescript", "text");
+    private static final int FILES_PER_DIRECTORY = 50;
+    private static final String[] WORDS = {"value", "count", "result", "index", "items", "buffer", "state", "config",
+            "handler", "request", "response", "total", "offset", "length", "cache", "entry", "node", "parent"};
+
+    private final int files;
+    private final int lines;
+    private final int references;
+    private final List<String> languages;
+
+    /**
+     * @param files      number of files
+     * @param lines      lines of each file, references included
+     * @param references files each file refers to
+     * @param languages  some of {@link #LANGUAGES}
+     */
+    public SyntheticRepository(int files, int lines, int references, List<String> languages) {
+        if (!LANGUAGES.containsAll(languages) || languages.isEmpty()) {
+            throw new IllegalArgumentException("Languages must be some of " + LANGUAGES + ": " + languages);
+        }
+        this.files = files;
+        this.lines = lines;
+        this.references = references;
+        this.languages = languages;
+    }
+
+    private String languageOf(int file) {
+        return languages.get(file % languages.size());
+    }
+
+    private static String directoryOf(int file) {
+        return "m" + file / FILES_PER_DIRECTORY;
+    }
+
+    // Path of a file relative to the root of the repository
+    private String pathOf(int file) {
+        String directory = "src/" + directoryOf(file) + "/";
+        return switch (languageOf(file)) {
+            case "java" -> directory + "Type" + file + ".java";
+            case "python" -> directory + "module" + file + ".py";
+            case "typescript" -> directory + "component" + file + ".ts";
+            default -> directory + "notes" + file + ".txt";
+        };
+    }
+
+    private String referenceTo(int from, int to) {
+        return switch (languageOf(from)) {
+            case "java" -> "import " + directoryOf(to) + ".Type" + to + ";";
+            case "python" -> "from " + directoryOf(to) + ".module" + to + " import value";
+            case "typescript" -> "import { value } from '../" + directoryOf(to) + "/component" + to + "';";
+            default -> "See " + pathOf(to).substring(pathOf(to).lastIndexOf('/') + 1, pathOf(to).lastIndexOf('.')) + " for details";
+        };
+    }
+
+    /**
+     * Write the repository into {@code directory}, which is created, and commit every file
+     *
+     * @return {@code directory}
+     */
+    public Path generate(Path directory) throws IOException, GitAPIException {
+        Random random = new Random(files * 31L + lines * 17L + references);
+        List<List<Integer>> filesByLanguage = new ArrayList<>();
+        for (String language : languages) {
+            List<Integer> sameLanguage = new ArrayList<>();
+            for (int file = 0; file < files; ++file) {
+                if (languageOf(file).equals(language)) {
+                    sameLanguage.add(file);
+                }
+            }
+            filesByLanguage.add(sameLanguage);
+        }
+
+        for (int file = 0; file < files; ++file) {
+            Path path = directory.resolve(pathOf(file));
+            Files.createDirectories(path.getParent());
+            // Text files can mention anything, the others only import files of their language
+            List<Integer> targets = languageOf(file).equals("text") ? null : filesByLanguage.get(file % languages.size());
+            try (Writer writer = Files.newBufferedWriter(path)) {
+                if (languageOf(file).equals("java")) {
+                    writer.write("package " + directoryOf(file) + ";\n");
+                }
+                for (int i = 0; i < references; ++i) {
+                    int target = targets == null ? random.nextInt(files) : targets.get(random.nextInt(targets.size()));
+                    writer.write(referenceTo(file, target) + "\n");
+                }
+                for (int i = references; i < lines; ++i) {
+                    StringBuilder line = new StringBuilder("    ");
+                    for (int word = 0; word < 8; ++word) {
+                        line.append(WORDS[random.nextInt(WORDS.length)]).append(word % 2 == 0 ? " = " : "; ");
+                    }
+                    writer.write(line.append('\n').toString());
+                }
+            }
+        }
+
+        try (Git git = Git.init().setDirectory(directory.toFile()).call()) {
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("Synthetic repository").setAuthor("benchmarks", "benchmarks@example.com")
+                    .setCommitter("benchmarks", "benchmarks@example.com").setSign(false).call();
+        }
+        return directory;
+    }
+}
@@ -1,21 +1,47 @@
 package com.mizookie.packagemapper.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mizookie.packagemapper.dto.user.AnalysisReport;
+import com.mizookie.packagemapper.dto.user.BatchAnalysisRequest;
 import com.mizookie.packagemapper.dto.user.DependencyGraphResponse;
+import com.mizookie.packagemapper.dto.user.NeighbourResponse;
+import com.mizookie.packagemapper.graph.CsrGraph;
+import com.mizookie.packagemapper.graph.GraphDiff;
+import com.mizookie.packagemapper.graph.GraphRollup;
+import com.mizookie.packagemapper.graph.Neighbourhood;
+import com.mizookie.packagemapper.graph.SvgRenderer;
+import com.mizookie.packagemapper.jobs.AnalysisJob;
 import com.mizookie.packagemapper.services.AnalyserService;
+import com.mizookie.packagemapper.services.AnalysisJobService;
+import com.mizookie.packagemapper.services.GithubRepositoryService;
+import com.mizookie.packagemapper.services.GraphAnalyticsService;
 import com.mizookie.packagemapper.services.GraphService;
+import com.mizookie.packagemapper.services.ResolutionCacheService;
+import com.mizookie.packagemapper.utils.FileService;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.jgrapht.Graph;
 import org.jgrapht.graph.DefaultEdge;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.FileNotFoundException;
-import java.io.IOException;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.function.IntFunction;
 
 @Slf4j
 @RestController
@@ -23,39 +49,120 @@ import java.util.Map;
 @RequestMapping("/analyse")
 public class AnalyserController {
     private final AnalyserService analyserService;
+    private final AnalysisJobService analysisJobService;
+    private final GithubRepositoryService githubRepositoryService;
     private final GraphService graphService;
+    private final GraphAnalyticsService analyticsService;
+    private final ResolutionCacheService resolutionCacheService;
+    private final ObjectMapper objectMapper;
     @Value("${repository.directory}")
     private String localRepositoryDirectory;
 
     @Autowired
-    public AnalyserController(AnalyserService analyserService, GraphService graphService) {
+    public AnalyserController(AnalyserService analyserService, AnalysisJobService analysisJobService, GithubRepositoryService githubRepositoryService,
+                              GraphService graphService, GraphAnalyticsService analyticsService, ResolutionCacheService resolutionCacheService,
+                              ObjectMapper objectMapper) {
         this.analyserService = analyserService;
+        this.analysisJobService = analysisJobService;
+        this.githubRepositoryService = githubRepositoryService;
         this.graphService = graphService;
+        this.analyticsService = analyticsService;
+        this.resolutionCacheService = resolutionCacheService;
+        this.objectMapper = objectMapper;
     }
 
     /**
-     * This method receives a repository path and triggers the analysis of the code in the repository.
+     * This method receives a repository path and starts the analysis of the code in the repository in the background.
+     * If that commit is already being analysed, the job doing it is returned instead.
      *
      * @param requestBody The request body containing the repository path.
+     * @return the job, to follow with {@code /analyse/jobs/{id}}
      */
     @PostMapping("/custom")
-    public void analyse(@RequestBody Map<String, String> requestBody) throws IOException, GitAPIException, InterruptedException {
+    public ResponseEntity<AnalysisJob> analyse(@RequestBody Map<String, String> requestBody) throws IOException {
         String repositoryPath = requestBody.get("repositoryPath");
         String version = requestBody.get("version");
         log.info("Repository path received: {}", repositoryPath);
-        analyserService.analyse(repositoryPath, version);
+        return ResponseEntity.accepted().body(analysisJobService.submit(repositoryPath, version));
     }
 
     /**
-     * This method triggers the analysis of the code in all repositories.
+     * This method analyses a version of a repository by patching the graph of an already analysed version with
+     * the changes made since then.
+     *
+     * Like {@code /analyse/custom}, this runs in the background.
+     *
+     * @param requestBody The request body containing the repository path, the analysed base version and the version to analyse.
+     * @return the job, to follow with {@code /analyse/jobs/{id}}
+     */
+    @PostMapping("/incremental")
+    public ResponseEntity<AnalysisJob> analyseIncremental(@RequestBody Map<String, String> requestBody) throws IOException {
+        String repositoryPath = requestBody.get("repositoryPath");
+        String baseVersion = requestBody.get("baseVersion");
+        String version = requestBody.get("version");
+        log.info("Repository path received: {}, patching {} to {}", repositoryPath, baseVersion, version);
+        return ResponseEntity.accepted().body(analysisJobService.submit(repositoryPath, baseVersion, version));
+    }
+
+    /**
+     * This method lists the analyses running in the background, and the ones that finished recently.
+     */
+    @GetMapping("/jobs")
+    public Collection<AnalysisJob> getJobs() {
+        return analysisJobService.getJobs();
+    }
+
+    /**
+     * This method reports the state of an analysis and how many of its files have been resolved so far.
+     */
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<AnalysisJob> getJob(@PathVariable String id) {
+        AnalysisJob job = analysisJobService.getJob(id);
+        return job == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(job);
+    }
+
+    /**
+     * This method cancels an analysis. Jobs that already finished are left as they are.
+     */
+    @DeleteMapping("/jobs/{id}")
+    public ResponseEntity<AnalysisJob> cancelJob(@PathVariable String id) {
+        AnalysisJob job = analysisJobService.getJob(id);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        analysisJobService.cancel(id);
+        return ResponseEntity.accepted().body(job);
+    }
+
+    /**
+     * This method analyses several versions of a repository in the background, reading each distinct file once for
+     * all of them. It is meant to backfill the graphs of many tags or of a range of commits.
+     *
+     * @param request The repository path and either the versions to analyse, or a range of commits.
+     * @return the job, to follow with {@code /analyse/jobs/{id}}
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<AnalysisJob> analyseBatch(@RequestBody BatchAnalysisRequest request) throws IOException {
+        List<String> versions = request.getVersions();
+        if (versions == null) {
+            versions = githubRepositoryService.getCommits(FileService.getFileNameOnly(request.getRepositoryPath()), request.getFrom(), request.getTo());
+        }
+        log.info("Repository path received: {}, analysing {} versions", request.getRepositoryPath(), versions.size());
+        return ResponseEntity.accepted().body(analysisJobService.submit(request.getRepositoryPath(), versions));
+    }
+
+    /**
+     * This method triggers the analysis of the code in all repositories and reports how it went.
      */
     @PostMapping("/all")
-    public void analyseAll() {
+    public AnalysisReport analyseAll() {
         log.info("Analyzing all repositories...");
         try {
-            analyserService.analyse();
-        } catch (IOException | GitAPIException | InterruptedException e) {
+            return analyserService.analyse();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             log.error("Failed to analyze all repositories: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while analysing all repositories");
         }
     }
 
@@ -68,20 +175,289 @@ public class AnalyserController {
         analyserService.visualizeDemo();
     }
 
+    /**
+     * This method reports how well the resolution cache is doing.
+     *
+     * @return number of entries, hits, misses and hit ratio of the cache
+     */
+    @GetMapping("/cache")
+    public Map<String, Object> getCacheStats() {
+        return resolutionCacheService.getStats();
+    }
+
+    /**
+     * This method reports how well the cache of graphs is doing.
+     *
+     * @return number of graphs in memory, their estimated size, hits, misses and evictions
+     */
+    @GetMapping("/graph/cache")
+    public Map<String, Object> getGraphCacheStats() {
+        return graphService.getCacheStats();
+    }
+
+    /**
+     * This method returns the edges of a graph. With a {@code level}, files are collapsed into their directory that
+     * many directories deep, and each edge between directories has the number of file edges it stands for as weight.
+     *
+     * @param level how deep the directories files are collapsed into are, 0 to keep files
+     */
     @GetMapping("/graph")
-    public List<DependencyGraphResponse> generateGraph(@RequestParam String repo, @RequestParam String version) throws GitAPIException, IOException, InterruptedException {
-        ArrayList<DependencyGraphResponse> responses = new ArrayList<>();
-        Graph<String, DefaultEdge> graph;
+    public List<DependencyGraphResponse> generateGraph(@RequestParam String repo, @RequestParam String version,
+                                                       @RequestParam(defaultValue = "0") int level) throws GitAPIException, IOException, InterruptedException {
+        Edges edges = getEdges(repo, version, level);
+        ArrayList<DependencyGraphResponse> responses = new ArrayList<>(edges.count());
+        for (int e = 0; e < edges.count(); ++e) {
+            responses.add(edges.get().apply(e));
+        }
+        return responses;
+    }
+
+    /**
+     * This method streams the edges of a graph as newline delimited JSON, one {@link DependencyGraphResponse} per
+     * line, without building the whole response in memory. Edges always come in the same order, so a client can load
+     * a big graph page by page with {@code offset} and {@code limit}. The total number of edges is in the
+     * {@code X-Total-Count} header.
+     *
+     * @param level  how deep the directories files are collapsed into are, 0 to keep files. See {@code /graph}
+     * @param offset number of edges to skip
+     * @param limit  maximum number of edges to send, all of them if not given
+     */
+    @GetMapping(value = "/graph/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamGraph(@RequestParam String repo, @RequestParam String version,
+                                                             @RequestParam(defaultValue = "0") int level,
+                                                             @RequestParam(defaultValue = "0") long offset,
+                                                             @RequestParam(required = false) Long limit) throws GitAPIException, IOException, InterruptedException {
+        Edges edges = getEdges(repo, version, level);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null); // Lines are separated by hand
+                long end = limit == null ? edges.count() : Math.min(edges.count(), offset + limit);
+                for (long e = Math.max(offset, 0); e < end; ++e) {
+                    generator.writeObject(edges.get().apply((int) e));
+                    generator.writeRaw('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header("X-Total-Count", String.valueOf(edges.count()))
+                .body(body);
+    }
+
+    /**
+     * This method finds the files a file depends on, or the files depending on it, up to {@code depth} edges away.
+     * Only the part of the graph around the file is visited, so this is fast whatever the size of the graph. Files
+     * come by distance then path, so a client can page through them with {@code offset} and {@code limit}. The total
+     * number of files found is in the {@code X-Total-Count} header.
+     *
+     * @param path      file to start from, as in the edges of {@code /graph}
+     * @param direction {@code dependencies} for the files it uses, {@code dependents} for the files using it
+     * @param depth     most edges between the file and the files found
+     * @param prefix    only return the files starting with it, all of them are still followed
+     * @param offset    number of files to skip
+     * @param limit     maximum number of files to send, all of them if not given
+     */
+    @GetMapping("/graph/neighbours")
+    public ResponseEntity<List<NeighbourResponse>> getNeighbours(@RequestParam String repo, @RequestParam String version, @RequestParam String path,
+                                                                 @RequestParam(defaultValue = "dependencies") String direction,
+                                                                 @RequestParam(defaultValue = "1") int depth,
+                                                                 @RequestParam(defaultValue = "") String prefix,
+                                                                 @RequestParam(defaultValue = "0") long offset,
+                                                                 @RequestParam(required = false) Long limit) throws GitAPIException, IOException, InterruptedException {
+        if (!direction.equals("dependencies") && !direction.equals("dependents")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "direction has to be dependencies or dependents");
+        }
+        if (depth < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "depth has to be positive");
+        }
+        CsrGraph graph = getGraph(repo, version);
+        int vertex = graph.getDictionary().indexOf(path);
+        if (vertex < 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, String.format("%s isn't in the graph of %s %s", path, repo, version));
+        }
+        // Edges go from the file used to the file using it
+        Neighbourhood neighbourhood = Neighbourhood.of(graph, vertex, depth, direction.equals("dependencies"));
+        List<NeighbourResponse> responses = new ArrayList<>();
+        long total = 0, end = limit == null ? Long.MAX_VALUE : offset + limit;
+        for (int i = 0; i < neighbourhood.size(); ++i) {
+            String neighbour = graph.getPath(neighbourhood.getVertex(i));
+            if (neighbour.startsWith(prefix) && total++ >= offset && total <= end) {
+                responses.add(new NeighbourResponse(neighbour, neighbourhood.getDistance(i)));
+            }
+        }
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(total))
+                .body(responses);
+    }
+
+    /**
+     * This method streams the vertices and edges added and removed from one version of a repository to another, as
+     * JSON. Either version is analysed first if it has no graph yet.
+     *
+     * @param from version compared against
+     * @param to   version compared
+     */
+    @GetMapping("/diff")
+    public ResponseEntity<StreamingResponseBody> diffGraphs(@RequestParam String repo, @RequestParam String from, @RequestParam String to) throws IOException, InterruptedException {
+        GraphLoader<String> stored = fileName -> {
+            graphService.getCsrGraph(fileName);
+            return fileName;
+        };
+        GraphDiff diff = graphService.getDiff(getGraph(repo, from, stored), getGraph(repo, to, stored));
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.writeStartObject();
+                generator.writeStringField("from", from);
+                generator.writeStringField("to", to);
+                writeChanges(generator, "added", diff.getAdded());
+                writeChanges(generator, "removed", diff.getRemoved());
+                generator.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    private static void writeChanges(JsonGenerator generator, String name, GraphDiff.Changes changes) throws IOException {
+        generator.writeObjectFieldStart(name);
+        generator.writeArrayFieldStart("vertices");
+        for (int i = 0; i < changes.getVertexCount(); ++i) {
+            generator.writeString(changes.getVertex(i));
+        }
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("edges");
+        for (int i = 0; i < changes.getEdgeCount(); ++i) {
+            generator.writeObject(new DependencyGraphResponse(changes.getEdgeSource(i), changes.getEdgeTarget(i)));
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    /**
+     * This method returns the cycles, strongly connected components, layers and fan-in/fan-out of each file of a
+     * version, as stored after its analysis. The version is analysed first if it has no graph yet, and analytics are
+     * worked out again if they are missing or older than the graph.
+     */
+    @GetMapping(value = "/analytics", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getAnalytics(@RequestParam String repo, @RequestParam String version) throws IOException, InterruptedException {
+        Path file = getGraph(repo, version, analyticsService::getAnalyticsFile);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(outputStream -> Files.copy(file, outputStream));
+    }
+
+    /**
+     * This method exports a graph in the DOT format, e.g. to render it with graphviz.
+     */
+    @GetMapping(value = "/graph/dot", produces = "text/vnd.graphviz")
+    public ResponseEntity<StreamingResponseBody> exportGraph(@RequestParam String repo, @RequestParam String version) throws GitAPIException, IOException, InterruptedException {
+        Graph<String, DefaultEdge> graph = getGraph(repo, version).toGraph();
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            graphService.exportDot(graph, writer);
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("text/vnd.graphviz"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, String.format("attachment; filename=\"%s_%s.gv\"", repo, version))
+                .body(body);
+    }
+
+    /**
+     * This method draws a graph as SVG, written to the response as it is drawn. Graphs with too many vertices or
+     * edges are rolled up into directories, unless a {@code level} is given. The picture can be drawn one tile at a
+     * time, and the number of tiles is in the {@code X-Tile-Columns} and {@code X-Tile-Rows} headers.
+     *
+     * @param prefix   only draw the paths starting with it
+     * @param level    roll files up into directories this deep, 0 to draw files
+     * @param tile     {@code column,row} of the tile to draw, from 0
+     * @param tileSize width and height of a tile, in pixels
+     */
+    @GetMapping(value = "/graph/svg", produces = "image/svg+xml")
+    public ResponseEntity<StreamingResponseBody> renderGraph(@RequestParam String repo, @RequestParam String version,
+                                                             @RequestParam(defaultValue = "") String prefix,
+                                                             @RequestParam(required = false) Integer level,
+                                                             @RequestParam(required = false) String tile,
+                                                             @RequestParam(defaultValue = "2048") int tileSize) throws GitAPIException, IOException, InterruptedException {
+        if ((level != null && level < 0) || tileSize <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "level can't be negative and tileSize has to be positive");
+        }
+        SvgRenderer.Tile drawn = tile == null ? null : parseTile(tile, tileSize);
+        SvgRenderer renderer;
+        try {
+            renderer = getGraph(repo, version, fileName -> graphService.getRenderer(fileName, prefix, level, drawn));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            renderer.write(writer);
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("image/svg+xml"))
+                .header("X-Graph-Level", String.valueOf(renderer.getLevel()))
+                .header("X-Tile-Columns", String.valueOf((renderer.getWidth() + tileSize - 1) / tileSize))
+                .header("X-Tile-Rows", String.valueOf((renderer.getHeight() + tileSize - 1) / tileSize))
+                .body(body);
+    }
+
+    private static SvgRenderer.Tile parseTile(String tile, int tileSize) {
+        String[] position = tile.split(",");
+        try {
+            SvgRenderer.Tile parsed = new SvgRenderer.Tile(Integer.parseInt(position[0].trim()), Integer.parseInt(position[1].trim()), tileSize);
+            if (parsed.column() >= 0 && parsed.row() >= 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            // Refused below
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "tile has to be column,row, counted from 0");
+    }
+
+    // Edges of a graph, weighted if files are rolled up
+    private record Edges(int count, IntFunction<DependencyGraphResponse> get) {
+    }
+
+    private Edges getEdges(String repo, String version, int level) throws IOException, InterruptedException {
+        if (level < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "level can't be negative");
+        }
+        if (level == GraphRollup.FILES) {
+            CsrGraph graph = getGraph(repo, version);
+            return new Edges(graph.getEdgeCount(), e -> new DependencyGraphResponse(graph.getPath(graph.getEdgeSource(e)), graph.getPath(graph.getEdgeTarget(e))));
+        }
+        GraphRollup rollup = getGraph(repo, version, fileName -> graphService.getRollup(fileName, level));
+        return new Edges(rollup.getEdgeCount(), e -> new DependencyGraphResponse(rollup.getPath(rollup.getEdgeSource(e)),
+                rollup.getPath(rollup.getEdgeTarget(e)), rollup.getEdgeWeight(e)));
+    }
+
+    // Reads a stored graph, or something made from it, given the name it is stored under
+    private interface GraphLoader<T> {
+        T load(String fileName) throws IOException;
+    }
+
+    private CsrGraph getGraph(String repo, String version) throws IOException, InterruptedException {
+        return getGraph(repo, version, graphService::getCsrGraph);
+    }
+
+    // Analyse the version first if it has no graph yet, or wait for the job already analysing it. Graphs are stored by
+    // commit, so branches and tags are resolved first to find the graph of the commit they point to
+    private <T> T getGraph(String repo, String version, GraphLoader<T> loader) throws IOException, InterruptedException {
+        String fileName = String.format("%s_%s", repo, githubRepositoryService.resolveCommit(repo, version));
         try {
-            graph = graphService.importGraph(String.format("%s_%s", repo, version));
+            return loader.load(fileName);
         } catch (FileNotFoundException e) {
-            analyserService.analyse(String.format("%s/%s", localRepositoryDirectory, repo), version);
-            graph = graphService.importGraph(String.format("%s_%s", repo, version));
+            AnalysisJob job = analysisJobService.submit(String.format("%s/%s", localRepositoryDirectory, repo), version);
+            job.await();
+            if (job.getState() != AnalysisJob.State.SUCCEEDED) {
+                String reason = String.format("Analysis job %s %s", job.getId(), job.getState());
+                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, job.getError() == null ? reason : reason + ": " + job.getError());
+            }
+            return loader.load(fileName);
         }
-        Graph<String, DefaultEdge> finalGraph = graph;
-        finalGraph.edgeSet().forEach(e -> {
-            responses.add(new DependencyGraphResponse(finalGraph.getEdgeSource(e), finalGraph.getEdgeTarget(e)));
-        });
-        return responses;
     }
 }
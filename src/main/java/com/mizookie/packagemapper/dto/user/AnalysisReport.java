@@ -0,0 +1,44 @@
+package com.mizookie.packagemapper.dto.user;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of analysing every local repository: how long each one took and which ones failed, in the order they were
+ * started.
+ */
+@Data
+@NoArgsConstructor
+public class AnalysisReport {
+    long durationMs;
+    int succeeded;
+    int failed;
+    List<RepositoryReport> repositories;
+
+    public AnalysisReport(List<RepositoryReport> repositories, long durationMs) {
+        this.repositories = repositories;
+        this.durationMs = durationMs;
+        this.succeeded = (int) repositories.stream().filter(RepositoryReport::isSucceeded).count();
+        this.failed = repositories.size() - succeeded;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class RepositoryReport {
+        String repository;
+        // Size of the files analysed, which decides the order and how much of the memory budget it takes
+        long bytes;
+        long durationMs;
+        boolean succeeded;
+        String error;
+
+        public RepositoryReport(String repository, long bytes) {
+            this.repository = repository;
+            this.bytes = bytes;
+        }
+    }
+}
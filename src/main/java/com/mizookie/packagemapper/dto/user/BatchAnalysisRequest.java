@@ -0,0 +1,21 @@
+package com.mizookie.packagemapper.dto.user;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Versions of a repository to analyse together: either {@code versions}, or the commits from {@code from}
+ * (excluded) to {@code to} like {@code git log from..to}.
+ */
+@Data
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BatchAnalysisRequest {
+    String repositoryPath;
+    List<String> versions;
+    String from;
+    String to;
+}
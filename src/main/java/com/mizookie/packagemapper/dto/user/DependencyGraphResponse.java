@@ -1,5 +1,6 @@
 package com.mizookie.packagemapper.dto.user;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -9,10 +10,18 @@ public class DependencyGraphResponse {
     String source;
     String target;
     String type;
+    // Number of file edges a rolled up edge stands for, left out for file edges
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    Integer weight;
 
     public DependencyGraphResponse(String s, String t) {
         this.source = s;
         this.target = t;
         this.type = "import";
     }
+
+    public DependencyGraphResponse(String s, String t, int weight) {
+        this(s, t);
+        this.weight = weight;
+    }
 }
@@ -0,0 +1,49 @@
+package com.mizookie.packagemapper.dto.user;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Structure of the graph of a version: which files depend on each other in cycles, how deep each file is in the
+ * dependencies and how many files each one uses and is used by. Worked out once after the graph is stored.
+ */
+@Data
+@NoArgsConstructor
+public class GraphAnalyticsReport {
+    int vertexCount;
+    int edgeCount;
+    // Number of layers, a file only depending on files of lower layers or of its own component
+    int layerCount;
+    // Strongly connected components of more than one file, largest first
+    List<List<String>> components;
+    // Shortest cycles in the direction of the edges: each file is used by the next one, and the last one by the first
+    List<List<String>> cycles;
+    // Whether there may be more cycles than listed
+    boolean cyclesTruncated;
+    List<NodeReport> nodes;
+
+    @Data
+    @NoArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class NodeReport {
+        String path;
+        // Number of files using it
+        int fanIn;
+        // Number of files it uses
+        int fanOut;
+        int layer;
+        // Index in components, if it is in a cycle
+        Integer component;
+
+        public NodeReport(String path, int fanIn, int fanOut, int layer, Integer component) {
+            this.path = path;
+            this.fanIn = fanIn;
+            this.fanOut = fanOut;
+            this.layer = layer;
+            this.component = component;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.mizookie.packagemapper.dto.user;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A file found from another one by following its dependencies or dependents, {@code distance} edges away
+ */
+@Data
+@NoArgsConstructor
+public class NeighbourResponse {
+    String path;
+    int distance;
+
+    public NeighbourResponse(String path, int distance) {
+        this.path = path;
+        this.distance = distance;
+    }
+}
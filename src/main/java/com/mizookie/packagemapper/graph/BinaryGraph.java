@@ -0,0 +1,215 @@
+package com.mizookie.packagemapper.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A dependency graph stored in the compact binary format, memory-mapped so that it can be read without parsing
+ * the whole file. The layout is, with every int big-endian:
+ * <pre>
+ * magic, format version, vertex count, edge count, restart interval, string table size
+ * restart offsets   int[ceil(vertex count / restart interval)]
+ * edge sources      int[edge count]
+ * edge targets      int[edge count]
+ * string table      per vertex: varint shared prefix length, varint suffix length, suffix bytes (UTF-8)
+ * </pre>
+ * Vertices are sorted by path and each one only stores what differs from the previous one. Every
+ * {@code restart interval} vertices the full path is stored again, so a single vertex is decoded from the closest
+ * restart point instead of from the start. Edges refer to vertices by their index and are sorted by source then
+ * target.
+ */
+public class BinaryGraph {
+    public static final String EXTENSION = ".pmg";
+    private static final int MAGIC = 0x504d4752; // PMGR
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 6 * Integer.BYTES;
+    private static final int RESTART_INTERVAL = 16;
+
+    private final ByteBuffer buffer;
+    private final int vertexCount;
+    private final int edgeCount;
+    private final int restartInterval;
+    private final int sourcesOffset;
+    private final int targetsOffset;
+    private final int stringsOffset;
+
+    private BinaryGraph(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a binary graph");
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Unsupported binary graph version: " + buffer.getInt(4));
+        }
+        vertexCount = buffer.getInt(8);
+        edgeCount = buffer.getInt(12);
+        restartInterval = buffer.getInt(16);
+        if (restartInterval <= 0) {
+            throw new IOException("Invalid binary graph restart interval: " + restartInterval);
+        }
+        int restartCount = (vertexCount + restartInterval - 1) / restartInterval;
+        sourcesOffset = HEADER_SIZE + restartCount * Integer.BYTES;
+        targetsOffset = sourcesOffset + edgeCount * Integer.BYTES;
+        stringsOffset = targetsOffset + edgeCount * Integer.BYTES;
+        if (stringsOffset + buffer.getInt(20) != buffer.limit()) {
+            throw new IOException("Truncated binary graph");
+        }
+    }
+
+    /**
+     * Map the binary graph stored at {@code path}
+     */
+    public static BinaryGraph open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new BinaryGraph(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Store {@code graph} at {@code path}. See {@link #write(CsrGraph, Path)}
+     */
+    public static void write(Graph<String, DefaultEdge> graph, Path path) throws IOException {
+        write(CsrGraph.of(graph), path);
+    }
+
+    /**
+     * Store {@code graph} at {@code path}. The file is written next to it first and then swapped in, so readers never
+     * see half a graph.
+     */
+    public static void write(CsrGraph graph, Path path) throws IOException {
+        PathDictionary vertices = graph.getDictionary();
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        List<Integer> restarts = new ArrayList<>();
+        byte[] previous = new byte[0];
+        for (int i = 0; i < vertices.size(); ++i) {
+            byte[] current = vertices.get(i).getBytes(StandardCharsets.UTF_8);
+            int shared = 0;
+            if (i % RESTART_INTERVAL == 0) {
+                restarts.add(strings.size());
+            } else {
+                shared = Arrays.mismatch(previous, current);
+                shared = shared == -1 ? current.length : shared;
+            }
+            writeVarint(strings, shared);
+            writeVarint(strings, current.length - shared);
+            strings.write(current, shared, current.length - shared);
+            previous = current;
+        }
+
+        // Each writer has its own temporary file, so concurrent writers of the same graph each publish a whole file
+        Path temporaryFile = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(vertices.size());
+                out.writeInt(graph.getEdgeCount());
+                out.writeInt(RESTART_INTERVAL);
+                out.writeInt(strings.size());
+                for (int restart : restarts) {
+                    out.writeInt(restart);
+                }
+                for (int i = 0; i < graph.getEdgeCount(); ++i) {
+                    out.writeInt(graph.getEdgeSource(i));
+                }
+                for (int i = 0; i < graph.getEdgeCount(); ++i) {
+                    out.writeInt(graph.getEdgeTarget(i));
+                }
+                strings.writeTo(out);
+            }
+            Files.move(temporaryFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(ByteBuffer cursor) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = cursor.get();
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    // Decode the next vertex of the string table, given the previous one
+    private static byte[] nextVertex(ByteBuffer cursor, byte[] previous) {
+        int shared = readVarint(cursor);
+        byte[] current = new byte[shared + readVarint(cursor)];
+        System.arraycopy(previous, 0, current, 0, shared);
+        cursor.get(current, shared, current.length - shared);
+        return current;
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Get the path of vertex {@code id}, decoding at most one restart interval of the string table
+     */
+    public String getVertex(int id) {
+        int restart = id / restartInterval;
+        ByteBuffer cursor = buffer.duplicate().position(stringsOffset + buffer.getInt(HEADER_SIZE + restart * Integer.BYTES));
+        byte[] vertex = new byte[0];
+        for (int i = restart * restartInterval; i <= id; ++i) {
+            vertex = nextVertex(cursor, vertex);
+        }
+        return new String(vertex, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the path of every vertex, in id order
+     */
+    public String[] getVertices() {
+        String[] vertices = new String[vertexCount];
+        ByteBuffer cursor = buffer.duplicate().position(stringsOffset);
+        byte[] vertex = new byte[0];
+        for (int i = 0; i < vertexCount; ++i) {
+            vertex = nextVertex(cursor, vertex);
+            vertices[i] = new String(vertex, StandardCharsets.UTF_8);
+        }
+        return vertices;
+    }
+
+    public int getEdgeSource(int edge) {
+        return buffer.getInt(sourcesOffset + edge * Integer.BYTES);
+    }
+
+    public int getEdgeTarget(int edge) {
+        return buffer.getInt(targetsOffset + edge * Integer.BYTES);
+    }
+
+    /**
+     * Load the whole graph into a JGraphT graph
+     */
+    public Graph<String, DefaultEdge> toGraph() {
+        return CsrGraph.of(this).toGraph();
+    }
+}
@@ -0,0 +1,168 @@
+package com.mizookie.packagemapper.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+
+import java.util.Arrays;
+
+/**
+ * Immutable dependency graph held in primitive arrays instead of objects. Vertices are the ids of a
+ * {@link PathDictionary} and edges are stored in compressed sparse row form, both ways:
+ * <ul>
+ *     <li>edge {@code e} goes from {@code sources[e]} to {@code targets[e]}, edges being sorted by source then
+ *     target, so the edges leaving {@code v} are {@code forwardOffsets[v]} to {@code forwardOffsets[v + 1]}</li>
+ *     <li>the ids of the edges entering {@code v} are {@code reverseEdges[reverseOffsets[v]]} to
+ *     {@code reverseEdges[reverseOffsets[v + 1] - 1]}, sorted by source</li>
+ * </ul>
+ * Use {@link #asGraph()} to run JGraphT algorithms on it.
+ */
+public class CsrGraph {
+    private final PathDictionary dictionary;
+    private final int[] sources;
+    private final int[] targets;
+    private final int[] forwardOffsets;
+    private final int[] reverseOffsets;
+    private final int[] reverseEdges;
+
+    /**
+     * @param sources source of each edge, sorted
+     * @param targets target of each edge, sorted for each source. Edges are distinct
+     */
+    CsrGraph(PathDictionary dictionary, int[] sources, int[] targets) {
+        this.dictionary = dictionary;
+        this.sources = sources;
+        this.targets = targets;
+        int vertexCount = dictionary.size();
+        forwardOffsets = new int[vertexCount + 1];
+        reverseOffsets = new int[vertexCount + 1];
+        for (int e = 0; e < sources.length; ++e) {
+            ++forwardOffsets[sources[e] + 1];
+            ++reverseOffsets[targets[e] + 1];
+        }
+        for (int v = 0; v < vertexCount; ++v) {
+            forwardOffsets[v + 1] += forwardOffsets[v];
+            reverseOffsets[v + 1] += reverseOffsets[v];
+        }
+        // Edges are visited by source, so the edges entering each vertex end up sorted by source too
+        reverseEdges = new int[targets.length];
+        int[] next = Arrays.copyOf(reverseOffsets, vertexCount);
+        for (int e = 0; e < targets.length; ++e) {
+            reverseEdges[next[targets[e]]++] = e;
+        }
+    }
+
+    /**
+     * Convert {@code graph}. Vertices without edges are kept
+     */
+    public static CsrGraph of(Graph<String, DefaultEdge> graph) {
+        PathDictionary dictionary = PathDictionary.of(graph.vertexSet());
+        long[] edges = new long[graph.edgeSet().size()];
+        int i = 0;
+        for (DefaultEdge edge : graph.edgeSet()) {
+            edges[i++] = (long) dictionary.indexOf(graph.getEdgeSource(edge)) << 32 | dictionary.indexOf(graph.getEdgeTarget(edge));
+        }
+        Arrays.sort(edges);
+        int[] sources = new int[edges.length], targets = new int[edges.length];
+        for (int e = 0; e < edges.length; ++e) {
+            sources[e] = (int) (edges[e] >>> 32);
+            targets[e] = (int) edges[e];
+        }
+        return new CsrGraph(dictionary, sources, targets);
+    }
+
+    /**
+     * Read {@code binaryGraph}, whose vertices and edges are already in the right order
+     */
+    public static CsrGraph of(BinaryGraph binaryGraph) {
+        int edgeCount = binaryGraph.getEdgeCount();
+        int[] sources = new int[edgeCount], targets = new int[edgeCount];
+        for (int e = 0; e < edgeCount; ++e) {
+            sources[e] = binaryGraph.getEdgeSource(e);
+            targets[e] = binaryGraph.getEdgeTarget(e);
+        }
+        return new CsrGraph(new PathDictionary(binaryGraph.getVertices()), sources, targets);
+    }
+
+    public PathDictionary getDictionary() {
+        return dictionary;
+    }
+
+    public int getVertexCount() {
+        return dictionary.size();
+    }
+
+    public int getEdgeCount() {
+        return targets.length;
+    }
+
+    public String getPath(int vertex) {
+        return dictionary.get(vertex);
+    }
+
+    public int getEdgeSource(int edge) {
+        return sources[edge];
+    }
+
+    public int getEdgeTarget(int edge) {
+        return targets[edge];
+    }
+
+    /**
+     * Get the id of the edge from {@code source} to {@code target}, or -1
+     */
+    public int getEdge(int source, int target) {
+        int e = Arrays.binarySearch(targets, forwardOffsets[source], forwardOffsets[source + 1], target);
+        return e < 0 ? -1 : e;
+    }
+
+    public int getOutDegree(int vertex) {
+        return forwardOffsets[vertex + 1] - forwardOffsets[vertex];
+    }
+
+    public int getInDegree(int vertex) {
+        return reverseOffsets[vertex + 1] - reverseOffsets[vertex];
+    }
+
+    /**
+     * Get the id of the first edge leaving {@code vertex}. The others follow, up to {@link #getOutDegree}
+     */
+    public int getFirstOutgoingEdge(int vertex) {
+        return forwardOffsets[vertex];
+    }
+
+    /**
+     * Get the id of the {@code i}th edge entering {@code vertex}, {@code i} being below {@link #getInDegree}
+     */
+    public int getIncomingEdge(int vertex, int i) {
+        return reverseEdges[reverseOffsets[vertex] + i];
+    }
+
+    /**
+     * Get a read-only JGraphT view of this graph, with vertex and edge ids as vertices and edges
+     */
+    public Graph<Integer, Integer> asGraph() {
+        return new CsrGraphAdapter(this);
+    }
+
+    /**
+     * Copy this graph into a new, modifiable JGraphT graph of paths
+     */
+    public Graph<String, DefaultEdge> toGraph() {
+        Graph<String, DefaultEdge> graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+        for (int v = 0; v < dictionary.size(); ++v) {
+            graph.addVertex(dictionary.get(v));
+        }
+        for (int e = 0; e < targets.length; ++e) {
+            graph.addEdge(dictionary.get(sources[e]), dictionary.get(targets[e]));
+        }
+        return graph;
+    }
+
+    /**
+     * Estimate how much heap this graph takes
+     */
+    public long estimateBytes() {
+        return dictionary.estimateBytes() + 4L * (3L * targets.length + 2L * (dictionary.size() + 1));
+    }
+}
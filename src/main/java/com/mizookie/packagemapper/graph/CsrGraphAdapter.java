@@ -0,0 +1,243 @@
+package com.mizookie.packagemapper.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.GraphType;
+import org.jgrapht.graph.AbstractGraph;
+import org.jgrapht.graph.DefaultGraphType;
+
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Read-only JGraphT view of a {@link CsrGraph}, so that JGraphT algorithms can run on it without copying it. Vertices
+ * are the ids of the paths and edges the ids of the edges. Every method that modifies the graph throws
+ * {@link UnsupportedOperationException}.
+ */
+public class CsrGraphAdapter extends AbstractGraph<Integer, Integer> {
+    private static final GraphType TYPE = new DefaultGraphType.Builder()
+            .directed().allowSelfLoops(false).allowMultipleEdges(false).weighted(false).modifiable(false).build();
+
+    private final CsrGraph csrGraph;
+
+    public CsrGraphAdapter(CsrGraph csrGraph) {
+        this.csrGraph = csrGraph;
+    }
+
+    // Ids from start to end - 1, or whatever they map to, as an immutable set
+    private static class IdSet extends AbstractSet<Integer> {
+        private final int start, end;
+        private final IntUnaryOperator mapping;
+
+        IdSet(int start, int end, IntUnaryOperator mapping) {
+            this.start = start;
+            this.end = end;
+            this.mapping = mapping;
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            return new Iterator<>() {
+                private int next = start;
+
+                @Override
+                public boolean hasNext() {
+                    return next < end;
+                }
+
+                @Override
+                public Integer next() {
+                    if (next >= end) {
+                        throw new NoSuchElementException();
+                    }
+                    return mapping.applyAsInt(next++);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return end - start;
+        }
+    }
+
+    private boolean isVertex(Object vertex) {
+        return vertex instanceof Integer id && id >= 0 && id < csrGraph.getVertexCount();
+    }
+
+    private boolean isEdge(Object edge) {
+        return edge instanceof Integer id && id >= 0 && id < csrGraph.getEdgeCount();
+    }
+
+    @Override
+    public Set<Integer> getAllEdges(Integer sourceVertex, Integer targetVertex) {
+        if (!isVertex(sourceVertex) || !isVertex(targetVertex)) {
+            return null;
+        }
+        Integer edge = getEdge(sourceVertex, targetVertex);
+        return edge == null ? Collections.emptySet() : Collections.singleton(edge);
+    }
+
+    @Override
+    public Integer getEdge(Integer sourceVertex, Integer targetVertex) {
+        if (!isVertex(sourceVertex) || !isVertex(targetVertex)) {
+            return null;
+        }
+        int edge = csrGraph.getEdge(sourceVertex, targetVertex);
+        return edge < 0 ? null : edge;
+    }
+
+    @Override
+    public Supplier<Integer> getVertexSupplier() {
+        return null;
+    }
+
+    @Override
+    public Supplier<Integer> getEdgeSupplier() {
+        return null;
+    }
+
+    @Override
+    public Integer addEdge(Integer sourceVertex, Integer targetVertex) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean addEdge(Integer sourceVertex, Integer targetVertex, Integer edge) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Integer addVertex() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean addVertex(Integer vertex) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean containsEdge(Integer edge) {
+        return isEdge(edge);
+    }
+
+    @Override
+    public boolean containsVertex(Integer vertex) {
+        return isVertex(vertex);
+    }
+
+    @Override
+    public Set<Integer> edgeSet() {
+        return new IdSet(0, csrGraph.getEdgeCount(), id -> id) {
+            @Override
+            public boolean contains(Object o) {
+                return isEdge(o);
+            }
+        };
+    }
+
+    @Override
+    public int degreeOf(Integer vertex) {
+        return inDegreeOf(vertex) + outDegreeOf(vertex);
+    }
+
+    @Override
+    public Set<Integer> edgesOf(Integer vertex) {
+        Set<Integer> edges = new LinkedHashSet<>(outgoingEdgesOf(vertex));
+        edges.addAll(incomingEdgesOf(vertex));
+        return Collections.unmodifiableSet(edges);
+    }
+
+    @Override
+    public int inDegreeOf(Integer vertex) {
+        assertVertexExist(vertex);
+        return csrGraph.getInDegree(vertex);
+    }
+
+    @Override
+    public Set<Integer> incomingEdgesOf(Integer vertex) {
+        assertVertexExist(vertex);
+        int v = vertex;
+        return new IdSet(0, csrGraph.getInDegree(v), i -> csrGraph.getIncomingEdge(v, i)) {
+            @Override
+            public boolean contains(Object o) {
+                return isEdge(o) && csrGraph.getEdgeTarget((Integer) o) == v;
+            }
+        };
+    }
+
+    @Override
+    public int outDegreeOf(Integer vertex) {
+        assertVertexExist(vertex);
+        return csrGraph.getOutDegree(vertex);
+    }
+
+    @Override
+    public Set<Integer> outgoingEdgesOf(Integer vertex) {
+        assertVertexExist(vertex);
+        int v = vertex;
+        int first = csrGraph.getFirstOutgoingEdge(v);
+        return new IdSet(first, first + csrGraph.getOutDegree(v), id -> id) {
+            @Override
+            public boolean contains(Object o) {
+                return isEdge(o) && csrGraph.getEdgeSource((Integer) o) == v;
+            }
+        };
+    }
+
+    @Override
+    public Integer removeEdge(Integer sourceVertex, Integer targetVertex) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeEdge(Integer edge) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeVertex(Integer vertex) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Set<Integer> vertexSet() {
+        return new IdSet(0, csrGraph.getVertexCount(), id -> id) {
+            @Override
+            public boolean contains(Object o) {
+                return isVertex(o);
+            }
+        };
+    }
+
+    @Override
+    public Integer getEdgeSource(Integer edge) {
+        return csrGraph.getEdgeSource(edge);
+    }
+
+    @Override
+    public Integer getEdgeTarget(Integer edge) {
+        return csrGraph.getEdgeTarget(edge);
+    }
+
+    @Override
+    public GraphType getType() {
+        return TYPE;
+    }
+
+    @Override
+    public double getEdgeWeight(Integer edge) {
+        return Graph.DEFAULT_EDGE_WEIGHT;
+    }
+
+    @Override
+    public void setEdgeWeight(Integer edge, double weight) {
+        throw new UnsupportedOperationException();
+    }
+}
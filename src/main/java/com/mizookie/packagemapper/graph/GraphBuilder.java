@@ -0,0 +1,59 @@
+package com.mizookie.packagemapper.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.AsUnmodifiableGraph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Collects the edges of one analysis from many threads at once, then builds the graph in one go. Edges are appended
+ * to lock-free queues, one per stripe, and a thread always uses the stripe of its id, so threads rarely compete for
+ * the same queue. Nothing is shared between builders, so analyses running at the same time can't see each other's
+ * edges.
+ */
+public class GraphBuilder {
+    private final ConcurrentLinkedQueue<String[]>[] stripes;
+
+    @SuppressWarnings("unchecked")
+    public GraphBuilder(int stripeCount) {
+        stripes = new ConcurrentLinkedQueue[stripeCount];
+        for (int i = 0; i < stripeCount; ++i) {
+            stripes[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    public GraphBuilder() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Add an edge from {@code source} to {@code target}, adding the vertices as well. This method is thread-safe
+     */
+    public void addEdge(String source, String target) {
+        stripes[(int) (Thread.currentThread().threadId() % stripes.length)].add(new String[]{source, target});
+    }
+
+    /**
+     * Add the collected edges to {@code graph}. Edges already in it are skipped. Call once every edge has been added
+     */
+    public void addTo(Graph<String, DefaultEdge> graph) {
+        for (ConcurrentLinkedQueue<String[]> stripe : stripes) {
+            for (String[] edge : stripe) {
+                graph.addVertex(edge[0]);
+                graph.addVertex(edge[1]);
+                graph.addEdge(edge[0], edge[1]);
+            }
+        }
+    }
+
+    /**
+     * Build an immutable graph of the collected edges. Call once every edge has been added
+     */
+    public Graph<String, DefaultEdge> build() {
+        Graph<String, DefaultEdge> graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+        addTo(graph);
+        return new AsUnmodifiableGraph<>(graph);
+    }
+}
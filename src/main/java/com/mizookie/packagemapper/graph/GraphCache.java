@@ -0,0 +1,151 @@
+package com.mizookie.packagemapper.graph;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Least recently used cache of graphs, bounded by the estimated memory they take rather than by their number.
+ * Graphs are keyed by repository and commit, which never change once analysed, so entries only need replacing
+ * when a version is analysed again. Cached graphs are shared and must not be modified.
+ *
+ * @param <G> type of the cached graphs
+ */
+public class GraphCache<G> {
+    private final long maxBytes;
+    private final ToLongFunction<G> weigher;
+    private final LinkedHashMap<String, Entry<G>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Guards entries, bytes and generation, so that evictions and removals see a consistent size
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicLong hits = new AtomicLong(), misses = new AtomicLong(), evictions = new AtomicLong();
+    private long bytes = 0;
+    // Number of removals, so that graphs made before one aren't cached after it
+    private long generation = 0;
+
+    private record Entry<G>(G graph, long bytes) {
+    }
+
+    /**
+     * @param maxBytes memory budget of the cache. Graphs bigger than this are never cached
+     * @param weigher  estimate of the memory a graph takes, in bytes
+     */
+    public GraphCache(long maxBytes, ToLongFunction<G> weigher) {
+        this.maxBytes = maxBytes;
+        this.weigher = weigher;
+    }
+
+    /**
+     * Get the graph cached under {@code key}, or {@code null}
+     */
+    public G get(String key) {
+        Entry<G> entry;
+        lock.lock();
+        try {
+            entry = entries.get(key);
+        } finally {
+            lock.unlock();
+        }
+        (entry == null ? misses : hits).incrementAndGet();
+        return entry == null ? null : entry.graph();
+    }
+
+    /**
+     * Cache {@code graph} under {@code key}, replacing what was there, then evict the least recently used graphs
+     * until the cache fits its budget again.
+     */
+    public void put(String key, G graph) {
+        long weight = weigher.applyAsLong(graph);
+        lock.lock();
+        try {
+            Entry<G> previous = entries.remove(key);
+            if (previous != null) {
+                bytes -= previous.bytes();
+            }
+            if (weight > maxBytes) {
+                return;
+            }
+            entries.put(key, new Entry<>(graph, weight));
+            bytes += weight;
+            Iterator<Entry<G>> eldest = entries.values().iterator();
+            while (bytes > maxBytes && eldest.hasNext()) {
+                bytes -= eldest.next().bytes();
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Same as {@link #put(String, Object)}, unless graphs were removed since {@code generation} was taken with
+     * {@link #getGeneration()}: {@code graph} may then have been made from something that was replaced since.
+     */
+    public void put(String key, G graph, long generation) {
+        lock.lock();
+        try {
+            if (generation != this.generation) {
+                return;
+            }
+            put(key, graph);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get a stamp to pass to {@link #put(String, Object, long)}, taken before reading what the graph is made from
+     */
+    public long getGeneration() {
+        lock.lock();
+        try {
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove the graphs whose key matches {@code filter}, e.g. those derived from a graph that was replaced
+     */
+    public void removeIf(Predicate<String> filter) {
+        lock.lock();
+        try {
+            // Even if nothing matches: a matching graph may be being made
+            ++generation;
+            Iterator<Map.Entry<String, Entry<G>>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Entry<G>> entry = iterator.next();
+                if (filter.test(entry.getKey())) {
+                    bytes -= entry.getValue().bytes();
+                    iterator.remove();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the number of graphs, their estimated size, hits, misses and evictions since start up
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            stats.put("entries", entries.size());
+            stats.put("bytes", bytes);
+        } finally {
+            lock.unlock();
+        }
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+}
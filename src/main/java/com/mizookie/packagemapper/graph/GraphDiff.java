@@ -0,0 +1,133 @@
+package com.mizookie.packagemapper.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Vertices and edges added and removed between two graphs, e.g. two versions of a repository. Only the changes are
+ * kept, as paths, so a diff doesn't hold on to the graphs it was made from.
+ * <p>
+ * Both graphs have their paths sorted and edges sorted by source then target, so they are compared in one pass over
+ * each, without hashing any path or edge. Changes come in the same order.
+ */
+public class GraphDiff {
+    private final Changes added;
+    private final Changes removed;
+
+    /**
+     * Paths and edges only found on one side of a diff
+     */
+    public static class Changes {
+        private final List<String> vertices = new ArrayList<>();
+        private final List<String> sources = new ArrayList<>();
+        private final List<String> targets = new ArrayList<>();
+
+        public int getVertexCount() {
+            return vertices.size();
+        }
+
+        public String getVertex(int i) {
+            return vertices.get(i);
+        }
+
+        public int getEdgeCount() {
+            return targets.size();
+        }
+
+        public String getEdgeSource(int i) {
+            return sources.get(i);
+        }
+
+        public String getEdgeTarget(int i) {
+            return targets.get(i);
+        }
+
+        private void addEdge(String source, String target) {
+            sources.add(source);
+            targets.add(target);
+        }
+
+        // Paths may be shared with the graphs, but not once these are dropped
+        private long estimateBytes() {
+            long bytes = 3 * 24L;
+            for (List<String> paths : List.of(vertices, sources, targets)) {
+                for (String path : paths) {
+                    bytes += 8 + 40 + path.length();
+                }
+            }
+            return bytes;
+        }
+    }
+
+    private GraphDiff(Changes added, Changes removed) {
+        this.added = added;
+        this.removed = removed;
+    }
+
+    public static GraphDiff of(CsrGraph from, CsrGraph to) {
+        Changes added = new Changes(), removed = new Changes();
+
+        // Id in `to` of each vertex of `from`, -1 for the ones removed
+        int[] toIds = new int[from.getVertexCount()];
+        int i = 0, j = 0;
+        while (i < from.getVertexCount() || j < to.getVertexCount()) {
+            int comparison = i == from.getVertexCount() ? 1 : j == to.getVertexCount() ? -1 : from.getPath(i).compareTo(to.getPath(j));
+            if (comparison < 0) {
+                removed.vertices.add(from.getPath(i));
+                toIds[i++] = -1;
+            } else if (comparison > 0) {
+                added.vertices.add(to.getPath(j++));
+            } else {
+                toIds[i++] = j++;
+            }
+        }
+
+        // Ids in both graphs follow the order of the paths, so edges of `from` keep their order once given ids of `to`
+        int e = 0, f = 0;
+        while (e < from.getEdgeCount() || f < to.getEdgeCount()) {
+            long fromEdge = Long.MAX_VALUE;
+            if (e < from.getEdgeCount()) {
+                int source = toIds[from.getEdgeSource(e)], target = toIds[from.getEdgeTarget(e)];
+                if (source < 0 || target < 0) {
+                    removed.addEdge(from.getPath(from.getEdgeSource(e)), from.getPath(from.getEdgeTarget(e)));
+                    ++e;
+                    continue;
+                }
+                fromEdge = (long) source << 32 | target;
+            }
+            long toEdge = f < to.getEdgeCount() ? (long) to.getEdgeSource(f) << 32 | to.getEdgeTarget(f) : Long.MAX_VALUE;
+            if (fromEdge < toEdge) {
+                removed.addEdge(from.getPath(from.getEdgeSource(e)), from.getPath(from.getEdgeTarget(e)));
+                ++e;
+            } else if (fromEdge > toEdge) {
+                added.addEdge(to.getPath(to.getEdgeSource(f)), to.getPath(to.getEdgeTarget(f)));
+                ++f;
+            } else {
+                ++e;
+                ++f;
+            }
+        }
+        return new GraphDiff(added, removed);
+    }
+
+    /**
+     * Get what is only in the graph diffed to
+     */
+    public Changes getAdded() {
+        return added;
+    }
+
+    /**
+     * Get what is only in the graph diffed from
+     */
+    public Changes getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Estimate how much heap this diff takes
+     */
+    public long estimateBytes() {
+        return 16 + added.estimateBytes() + removed.estimateBytes();
+    }
+}
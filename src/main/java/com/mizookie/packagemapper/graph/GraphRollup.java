@@ -0,0 +1,185 @@
+package com.mizookie.packagemapper.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A {@link CsrGraph} with its files collapsed into directories. At level {@code n}, each file becomes the directory
+ * {@code n} levels deep it is in, e.g. {@code src/main/} at level 2 for {@code src/main/java/App.java}. Files less deep
+ * than that stay as they are, and at level {@link #FILES} nothing is collapsed.
+ * <p>
+ * Vertices are sorted by path like in {@link PathDictionary}. Edges between two files of the same directory are dropped,
+ * the others become one edge between their directories, weighted by the number of file edges it stands for. Edges are
+ * sorted by source then target.
+ */
+public class GraphRollup {
+    public static final int FILES = 0;
+
+    private final int level;
+    private final PathDictionary paths;
+    private final int[] sizes;
+    private final int[] sources;
+    private final int[] targets;
+    private final int[] weights;
+
+    private GraphRollup(int level, PathDictionary paths, int[] sizes, int[] sources, int[] targets, int[] weights) {
+        this.level = level;
+        this.paths = paths;
+        this.sizes = sizes;
+        this.sources = sources;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    public static GraphRollup of(CsrGraph graph, int level) {
+        return of(graph, level, 0, graph.getVertexCount());
+    }
+
+    /**
+     * Roll up the vertices {@code from} (inclusive) to {@code to} (exclusive) of {@code graph}, e.g. the range of
+     * {@link PathDictionary#rangeOf}, and the edges between them
+     */
+    public static GraphRollup of(CsrGraph graph, int level, int from, int to) {
+        // Paths are sorted, so the files of a directory are next to each other
+        int[] groups = new int[to - from];
+        List<String> groupPaths = new ArrayList<>();
+        String previous = null;
+        for (int v = from; v < to; ++v) {
+            String group = groupOf(graph.getPath(v), level);
+            if (!group.equals(previous)) {
+                groupPaths.add(group);
+                previous = group;
+            }
+            groups[v - from] = groupPaths.size() - 1;
+        }
+        int[] sizes = new int[groupPaths.size()];
+        for (int group : groups) {
+            ++sizes[group];
+        }
+
+        long[] edges = new long[graph.getFirstOutgoingEdge(to) - graph.getFirstOutgoingEdge(from)];
+        int edgeCount = 0;
+        for (int v = from; v < to; ++v) {
+            for (int e = graph.getFirstOutgoingEdge(v), end = e + graph.getOutDegree(v); e < end; ++e) {
+                int target = graph.getEdgeTarget(e);
+                if (target >= from && target < to && groups[v - from] != groups[target - from]) {
+                    edges[edgeCount++] = (long) groups[v - from] << 32 | groups[target - from];
+                }
+            }
+        }
+        Arrays.sort(edges, 0, edgeCount);
+        int distinct = 0;
+        for (int e = 0; e < edgeCount; ++e) {
+            if (e == 0 || edges[e] != edges[e - 1]) {
+                ++distinct;
+            }
+        }
+        int[] sources = new int[distinct], targets = new int[distinct], weights = new int[distinct];
+        for (int e = 0, i = -1; e < edgeCount; ++e) {
+            if (e == 0 || edges[e] != edges[e - 1]) {
+                ++i;
+                sources[i] = (int) (edges[e] >>> 32);
+                targets[i] = (int) edges[e];
+            }
+            ++weights[i];
+        }
+        // A directory sorts before its files and after the paths sorting before them, so groups are in order already
+        return new GraphRollup(level, new PathDictionary(groupPaths.toArray(String[]::new)), sizes, sources, targets, weights);
+    }
+
+    /**
+     * Get the directory {@code path} is collapsed into at {@code level}, with a trailing slash, or {@code path} itself
+     */
+    public static String groupOf(String path, int level) {
+        if (level == FILES) {
+            return path;
+        }
+        int end = -1;
+        for (int depth = 0; depth < level; ++depth) {
+            end = path.indexOf('/', end + 1);
+            if (end < 0) {
+                return path;
+            }
+        }
+        return path.substring(0, end + 1);
+    }
+
+    /**
+     * Count the vertices {@link #of(CsrGraph, int, int, int)} would give, without rolling the graph up
+     */
+    public static int countGroups(CsrGraph graph, int level, int from, int to) {
+        int count = 0;
+        String previous = null;
+        for (int v = from; v < to; ++v) {
+            String group = groupOf(graph.getPath(v), level);
+            if (!group.equals(previous)) {
+                ++count;
+                previous = group;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get the deepest level at which the vertices {@code from} to {@code to} still differ from their files, 0 if
+     * they are all at the root
+     */
+    public static int getDepth(CsrGraph graph, int from, int to) {
+        int depth = 0;
+        for (int v = from; v < to; ++v) {
+            String path = graph.getPath(v);
+            int slashes = 0;
+            for (int i = path.indexOf('/'); i >= 0; i = path.indexOf('/', i + 1)) {
+                ++slashes;
+            }
+            depth = Math.max(depth, slashes);
+        }
+        return depth;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getVertexCount() {
+        return paths.size();
+    }
+
+    public String getPath(int vertex) {
+        return paths.get(vertex);
+    }
+
+    /**
+     * Get the number of files {@code vertex} stands for
+     */
+    public int getSize(int vertex) {
+        return sizes[vertex];
+    }
+
+    public int getEdgeCount() {
+        return targets.length;
+    }
+
+    public int getEdgeSource(int edge) {
+        return sources[edge];
+    }
+
+    public int getEdgeTarget(int edge) {
+        return targets[edge];
+    }
+
+    /**
+     * Get the number of file edges {@code edge} stands for
+     */
+    public int getEdgeWeight(int edge) {
+        return weights[edge];
+    }
+
+    /**
+     * Estimate how much heap this rollup takes
+     */
+    public long estimateBytes() {
+        return paths.estimateBytes() + 4L * (3L * targets.length + paths.size());
+    }
+}
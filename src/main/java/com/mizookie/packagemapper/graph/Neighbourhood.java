@@ -0,0 +1,72 @@
+package com.mizookie.packagemapper.graph;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The vertices of a {@link CsrGraph} up to a number of edges away from one of them, found by following edges from
+ * sources to targets or the other way round. Only the vertices reached are visited, so this takes as long as the
+ * neighbourhood is big, whatever the size of the graph.
+ * <p>
+ * Vertices are sorted by distance, then by path. The vertex the search started from isn't included.
+ */
+public class Neighbourhood {
+    private final int[] vertices;
+    private final int[] distances;
+
+    private Neighbourhood(int[] vertices, int[] distances) {
+        this.vertices = vertices;
+        this.distances = distances;
+    }
+
+    /**
+     * @param depth   most edges followed from {@code vertex}
+     * @param reverse whether to follow edges from their target to their source
+     */
+    public static Neighbourhood of(CsrGraph graph, int vertex, int depth, boolean reverse) {
+        BitSet visited = new BitSet(graph.getVertexCount());
+        visited.set(vertex);
+        // Breadth first, one distance after the other. The vertex itself is at 0 and dropped at the end
+        int[] queue = {vertex}, distances = {0};
+        int size = 1;
+        for (int distance = 1, start = 0; distance <= depth && start < size; ++distance) {
+            int end = size;
+            for (int i = start; i < end; ++i) {
+                int current = queue[i];
+                int degree = reverse ? graph.getInDegree(current) : graph.getOutDegree(current);
+                for (int j = 0; j < degree; ++j) {
+                    int next = reverse ? graph.getEdgeSource(graph.getIncomingEdge(current, j))
+                            : graph.getEdgeTarget(graph.getFirstOutgoingEdge(current) + j);
+                    if (!visited.get(next)) {
+                        visited.set(next);
+                        if (size == queue.length) {
+                            queue = Arrays.copyOf(queue, size * 2);
+                            distances = Arrays.copyOf(distances, size * 2);
+                        }
+                        queue[size] = next;
+                        distances[size++] = distance;
+                    }
+                }
+            }
+            // Ids follow the order of the paths
+            Arrays.sort(queue, end, size);
+            start = end;
+        }
+        return new Neighbourhood(Arrays.copyOfRange(queue, 1, size), Arrays.copyOfRange(distances, 1, size));
+    }
+
+    public int size() {
+        return vertices.length;
+    }
+
+    public int getVertex(int i) {
+        return vertices[i];
+    }
+
+    /**
+     * Get the number of edges between the {@code i}th vertex and the one the search started from
+     */
+    public int getDistance(int i) {
+        return distances[i];
+    }
+}
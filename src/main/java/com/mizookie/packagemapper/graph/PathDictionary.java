@@ -0,0 +1,62 @@
+package com.mizookie.packagemapper.graph;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Maps the paths of a graph to consecutive ints and back. Paths are kept once each, sorted, so an id is found by
+ * binary search and ids follow the order of the paths.
+ */
+public class PathDictionary {
+    private final String[] paths;
+
+    /**
+     * @param sortedPaths distinct paths in {@link String#compareTo} order. The array is kept, not copied
+     */
+    PathDictionary(String[] sortedPaths) {
+        this.paths = sortedPaths;
+    }
+
+    public static PathDictionary of(Collection<String> paths) {
+        String[] sortedPaths = paths.stream().distinct().toArray(String[]::new);
+        Arrays.sort(sortedPaths);
+        return new PathDictionary(sortedPaths);
+    }
+
+    public int size() {
+        return paths.length;
+    }
+
+    public String get(int id) {
+        return paths[id];
+    }
+
+    /**
+     * Get the id of {@code path}, or -1 if it isn't in the dictionary
+     */
+    public int indexOf(String path) {
+        int id = Arrays.binarySearch(paths, path);
+        return id < 0 ? -1 : id;
+    }
+
+    /**
+     * Get the ids of the paths starting with {@code prefix}: they go from {@code range[0]} (inclusive) to
+     * {@code range[1]} (exclusive)
+     */
+    public int[] rangeOf(String prefix) {
+        return new int[]{insertionPoint(prefix), insertionPoint(prefix + Character.MAX_VALUE)};
+    }
+
+    private int insertionPoint(String path) {
+        int id = Arrays.binarySearch(paths, path);
+        return id < 0 ? -id - 1 : id;
+    }
+
+    long estimateBytes() {
+        long bytes = 16L + 8L * paths.length;
+        for (String path : paths) {
+            bytes += 40 + path.length();
+        }
+        return bytes;
+    }
+}
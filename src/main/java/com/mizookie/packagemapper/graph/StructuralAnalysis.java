@@ -0,0 +1,248 @@
+package com.mizookie.packagemapper.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Structure of a {@link CsrGraph}: its strongly connected components, the layer of each vertex and some of its cycles.
+ * <ul>
+ *     <li>Components are numbered in topological order: an edge between two components goes to the one with the
+ *     higher number. Files in a component of more than one file depend on each other in a cycle</li>
+ *     <li>A vertex is in layer 0 if no edge enters its component, otherwise one layer above the highest component
+ *     with an edge to its component. Edges go from the file used to the file using it, so files only depend on
+ *     files of lower layers, and of their own component</li>
+ *     <li>Cycles are the shortest cycle through each of the first vertices of each component, without repeats</li>
+ * </ul>
+ * Components and layers take one pass over the graph. Cycles take a breadth first search per vertex tried, so they are
+ * searched for in parallel and at most {@code maxCycles} vertices are tried per component.
+ */
+public class StructuralAnalysis {
+    private final int[] components;
+    private final int[] componentSizes;
+    private final int[] layers;
+    private final List<int[]> cycles;
+    private final boolean cyclesTruncated;
+
+    private StructuralAnalysis(int[] components, int[] componentSizes, int[] layers, List<int[]> cycles, boolean cyclesTruncated) {
+        this.components = components;
+        this.componentSizes = componentSizes;
+        this.layers = layers;
+        this.cycles = cycles;
+        this.cyclesTruncated = cyclesTruncated;
+    }
+
+    public static StructuralAnalysis of(CsrGraph graph, int maxCycles) {
+        int vertexCount = graph.getVertexCount();
+        int[] components = findComponents(graph);
+        int componentCount = Arrays.stream(components).max().orElse(-1) + 1;
+
+        // Vertices of component c are members[offsets[c]] to members[offsets[c + 1] - 1], in id order
+        int[] offsets = new int[componentCount + 1];
+        for (int component : components) {
+            ++offsets[component + 1];
+        }
+        for (int c = 0; c < componentCount; ++c) {
+            offsets[c + 1] += offsets[c];
+        }
+        int[] members = new int[vertexCount];
+        int[] next = Arrays.copyOf(offsets, componentCount);
+        for (int v = 0; v < vertexCount; ++v) {
+            members[next[components[v]]++] = v;
+        }
+        int[] componentSizes = new int[componentCount];
+        for (int c = 0; c < componentCount; ++c) {
+            componentSizes[c] = offsets[c + 1] - offsets[c];
+        }
+
+        // Components come in topological order, so all the components with an edge to one are done before it
+        int[] componentLayers = new int[componentCount];
+        for (int c = 0; c < componentCount; ++c) {
+            for (int i = offsets[c]; i < offsets[c + 1]; ++i) {
+                int v = members[i];
+                for (int e = graph.getFirstOutgoingEdge(v), end = e + graph.getOutDegree(v); e < end; ++e) {
+                    int target = components[graph.getEdgeTarget(e)];
+                    if (target != c) {
+                        componentLayers[target] = Math.max(componentLayers[target], componentLayers[c] + 1);
+                    }
+                }
+            }
+        }
+        int[] layers = new int[vertexCount];
+        for (int v = 0; v < vertexCount; ++v) {
+            layers[v] = componentLayers[components[v]];
+        }
+
+        // One search per component and vertex tried, each on its own
+        List<int[]> starts = new ArrayList<>();
+        boolean truncated = false;
+        for (int c = 0; c < componentCount; ++c) {
+            if (componentSizes[c] > 1) {
+                for (int i = offsets[c]; i < Math.min(offsets[c + 1], offsets[c] + maxCycles); ++i) {
+                    starts.add(new int[]{c, members[i]});
+                }
+                truncated |= componentSizes[c] > maxCycles;
+            }
+        }
+        Set<List<Integer>> distinct = new LinkedHashSet<>();
+        starts.parallelStream()
+                .map(start -> findShortestCycle(graph, components, Arrays.copyOfRange(members, offsets[start[0]], offsets[start[0] + 1]), start[1]))
+                .map(StructuralAnalysis::rotate)
+                .toList()
+                .forEach(cycle -> distinct.add(Arrays.stream(cycle).boxed().toList()));
+        List<int[]> cycles = new ArrayList<>(distinct.stream().map(cycle -> cycle.stream().mapToInt(Integer::intValue).toArray())
+                .sorted(Comparator.<int[]>comparingInt(cycle -> cycle.length).thenComparing(Arrays::compare))
+                .toList());
+        if (cycles.size() > maxCycles) {
+            cycles = new ArrayList<>(cycles.subList(0, maxCycles));
+            truncated = true;
+        }
+        return new StructuralAnalysis(components, componentSizes, layers, cycles, truncated);
+    }
+
+    // Tarjan's algorithm without recursion, which deep graphs would overflow the stack with
+    private static int[] findComponents(CsrGraph graph) {
+        int vertexCount = graph.getVertexCount();
+        int[] index = new int[vertexCount], low = new int[vertexCount], components = new int[vertexCount];
+        Arrays.fill(index, -1);
+        BitSet onStack = new BitSet(vertexCount);
+        int[] stack = new int[vertexCount], calls = new int[vertexCount], nextEdges = new int[vertexCount];
+        int stackSize = 0, callCount = 0, counter = 0, componentCount = 0;
+        for (int root = 0; root < vertexCount; ++root) {
+            if (index[root] >= 0) {
+                continue;
+            }
+            index[root] = low[root] = counter++;
+            stack[stackSize++] = root;
+            onStack.set(root);
+            calls[callCount] = root;
+            nextEdges[callCount++] = graph.getFirstOutgoingEdge(root);
+            while (callCount > 0) {
+                int v = calls[callCount - 1];
+                int e = nextEdges[callCount - 1];
+                if (e < graph.getFirstOutgoingEdge(v) + graph.getOutDegree(v)) {
+                    ++nextEdges[callCount - 1];
+                    int w = graph.getEdgeTarget(e);
+                    if (index[w] < 0) {
+                        index[w] = low[w] = counter++;
+                        stack[stackSize++] = w;
+                        onStack.set(w);
+                        calls[callCount] = w;
+                        nextEdges[callCount++] = graph.getFirstOutgoingEdge(w);
+                    } else if (onStack.get(w)) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                    continue;
+                }
+                if (low[v] == index[v]) {
+                    int w;
+                    do {
+                        w = stack[--stackSize];
+                        onStack.clear(w);
+                        components[w] = componentCount;
+                    } while (w != v);
+                    ++componentCount;
+                }
+                if (--callCount > 0) {
+                    int caller = calls[callCount - 1];
+                    low[caller] = Math.min(low[caller], low[v]);
+                }
+            }
+        }
+        // Tarjan finds a component after the components its edges go to, so the order is reversed
+        for (int v = 0; v < vertexCount; ++v) {
+            components[v] = componentCount - 1 - components[v];
+        }
+        return components;
+    }
+
+    // Breadth first from start, within its component, until an edge goes back to start. There is one since the
+    // component has more than one vertex
+    private static int[] findShortestCycle(CsrGraph graph, int[] components, int[] members, int start) {
+        int[] parents = new int[members.length];
+        Arrays.fill(parents, -1);
+        int[] queue = new int[members.length];
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+        parents[Arrays.binarySearch(members, start)] = start;
+        while (head < tail) {
+            int v = queue[head++];
+            for (int e = graph.getFirstOutgoingEdge(v), end = e + graph.getOutDegree(v); e < end; ++e) {
+                int w = graph.getEdgeTarget(e);
+                if (w == start) {
+                    List<Integer> path = new ArrayList<>();
+                    for (int u = v; u != start; u = parents[Arrays.binarySearch(members, u)]) {
+                        path.add(u);
+                    }
+                    path.add(start);
+                    return IntStream.range(0, path.size()).map(i -> path.get(path.size() - 1 - i)).toArray();
+                }
+                if (components[w] == components[start]) {
+                    int local = Arrays.binarySearch(members, w);
+                    if (parents[local] < 0) {
+                        parents[local] = v;
+                        queue[tail++] = w;
+                    }
+                }
+            }
+        }
+        throw new IllegalStateException("No cycle through a vertex of a strongly connected component");
+    }
+
+    // Same cycle whatever vertex it was found from: starting with its lowest id
+    private static int[] rotate(int[] cycle) {
+        int first = 0;
+        for (int i = 1; i < cycle.length; ++i) {
+            if (cycle[i] < cycle[first]) {
+                first = i;
+            }
+        }
+        int[] rotated = new int[cycle.length];
+        for (int i = 0; i < cycle.length; ++i) {
+            rotated[i] = cycle[(first + i) % cycle.length];
+        }
+        return rotated;
+    }
+
+    public int getComponentCount() {
+        return componentSizes.length;
+    }
+
+    /**
+     * Get the component of {@code vertex}, see {@link StructuralAnalysis}
+     */
+    public int getComponent(int vertex) {
+        return components[vertex];
+    }
+
+    public int getComponentSize(int component) {
+        return componentSizes[component];
+    }
+
+    public int getLayer(int vertex) {
+        return layers[vertex];
+    }
+
+    public int getLayerCount() {
+        return Arrays.stream(layers).max().orElse(-1) + 1;
+    }
+
+    /**
+     * Get the cycles found, as vertices in the order of their edges, shortest first
+     */
+    public List<int[]> getCycles() {
+        return cycles;
+    }
+
+    /**
+     * Whether there may be more cycles than those found
+     */
+    public boolean isCyclesTruncated() {
+        return cyclesTruncated;
+    }
+}
@@ -0,0 +1,230 @@
+package com.mizookie.packagemapper.graph;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Draws a {@link GraphRollup} as SVG. Vertices are laid out on a grid in path order, so the files of a directory end up
+ * next to each other, and edges are arcs from source to target, thicker the more file edges they stand for.
+ * <p>
+ * Nothing is laid out in advance: positions are worked out from the vertex ids while writing, so the only memory used
+ * is the graph itself, however large the picture. A {@link Tile} of the picture can be drawn instead of the whole of it,
+ * with only the vertices and edges crossing the tile written.
+ */
+public class SvgRenderer {
+    private static final int CELL_WIDTH = 180;
+    private static final int CELL_HEIGHT = 60;
+    private static final int MAX_LABEL_LENGTH = 28;
+
+    /**
+     * Square {@code size} pixels wide, the {@code column}th from the left and {@code row}th from the top
+     */
+    public record Tile(int column, int row, int size) {
+    }
+
+    private final GraphRollup graph;
+    private final int columns;
+    private final int rows;
+    // What is drawn, the whole picture unless a tile is given
+    private final int left;
+    private final int top;
+    private final int width;
+    private final int height;
+    private final int drawnVertexCount;
+    private final int drawnEdgeCount;
+
+    /**
+     * @param tile part of the picture to draw, or null for the whole of it
+     */
+    public SvgRenderer(GraphRollup graph, Tile tile) {
+        this.graph = graph;
+        int vertexCount = Math.max(graph.getVertexCount(), 1);
+        // Roughly as many pixels across as down
+        columns = Math.min(vertexCount, Math.max(1, (int) Math.round(Math.sqrt((double) vertexCount * CELL_HEIGHT / CELL_WIDTH))));
+        rows = (vertexCount + columns - 1) / columns;
+        if (tile == null) {
+            left = 0;
+            top = 0;
+            width = getWidth();
+            height = getHeight();
+        } else {
+            left = tile.column() * tile.size();
+            top = tile.row() * tile.size();
+            width = tile.size();
+            height = tile.size();
+        }
+        int vertices = 0;
+        for (int v = 0; v < graph.getVertexCount(); ++v) {
+            if (isDrawn(v)) {
+                ++vertices;
+            }
+        }
+        drawnVertexCount = vertices;
+        int edges = 0;
+        for (int e = 0; e < graph.getEdgeCount(); ++e) {
+            if (isDrawn(new Arc(graph.getEdgeSource(e), graph.getEdgeTarget(e)))) {
+                ++edges;
+            }
+        }
+        drawnEdgeCount = edges;
+    }
+
+    /**
+     * Get the level the graph was rolled up to, {@link GraphRollup#FILES} if it wasn't
+     */
+    public int getLevel() {
+        return graph.getLevel();
+    }
+
+    /**
+     * Get the width of the whole picture
+     */
+    public int getWidth() {
+        return columns * CELL_WIDTH;
+    }
+
+    /**
+     * Get the height of the whole picture
+     */
+    public int getHeight() {
+        return rows * CELL_HEIGHT;
+    }
+
+    /**
+     * Get the number of vertices that are written, those of the tile if there is one
+     */
+    public int getDrawnVertexCount() {
+        return drawnVertexCount;
+    }
+
+    /**
+     * Get the number of edges that are written, those of the tile if there is one
+     */
+    public int getDrawnEdgeCount() {
+        return drawnEdgeCount;
+    }
+
+    public void write(Writer writer) throws IOException {
+        writer.write(String.format("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"%d\" height=\"%d\" viewBox=\"%d %d %d %d\" font-family=\"sans-serif\" font-size=\"11\">%n",
+                width, height, left, top, width, height));
+        writer.write("<defs><marker id=\"arrow\" viewBox=\"0 0 10 10\" refX=\"10\" refY=\"5\" markerWidth=\"6\" markerHeight=\"6\" orient=\"auto\">"
+                + "<path d=\"M0,0L10,5L0,10z\" fill=\"#999\"/></marker></defs>\n");
+        writer.write(String.format("<rect x=\"%d\" y=\"%d\" width=\"%d\" height=\"%d\" fill=\"white\"/>%n", left, top, width, height));
+
+        // Edges first so that vertices are drawn over them
+        writer.write("<g fill=\"none\" stroke=\"#999\" stroke-opacity=\"0.6\" marker-end=\"url(#arrow)\">\n");
+        for (int e = 0; e < graph.getEdgeCount(); ++e) {
+            int source = graph.getEdgeSource(e), target = graph.getEdgeTarget(e), weight = graph.getEdgeWeight(e);
+            Arc arc = new Arc(source, target);
+            if (!isDrawn(arc)) {
+                continue;
+            }
+            writer.write(String.format("<path d=\"M%d,%dQ%d,%d %d,%d\" stroke-width=\"%d\"><title>",
+                    arc.x1, arc.y1, arc.controlX, arc.controlY, arc.x2, arc.y2, 1 + log2(weight)));
+            escape(writer, graph.getPath(source));
+            writer.write(" → ");
+            escape(writer, graph.getPath(target));
+            if (weight > 1) {
+                writer.write(" (" + weight + " edges)");
+            }
+            writer.write("</title></path>\n");
+        }
+        writer.write("</g>\n");
+
+        writer.write("<g text-anchor=\"middle\">\n");
+        for (int v = 0; v < graph.getVertexCount(); ++v) {
+            if (!isDrawn(v)) {
+                continue;
+            }
+            int x = getX(v), y = getY(v);
+            String path = graph.getPath(v);
+            writer.write(String.format("<g><circle cx=\"%d\" cy=\"%d\" r=\"%d\" fill=\"hsl(%d,60%%,50%%)\"/><text x=\"%d\" y=\"%d\">",
+                    x, y, getRadius(v), (getParent(path).hashCode() & Integer.MAX_VALUE) % 360, x, y + CELL_HEIGHT / 2));
+            escape(writer, getLabel(path));
+            writer.write("</text><title>");
+            escape(writer, path);
+            if (graph.getSize(v) > 1 || path.endsWith("/")) {
+                writer.write(" (" + graph.getSize(v) + " files)");
+            }
+            writer.write("</title></g>\n");
+        }
+        writer.write("</g>\n</svg>\n");
+    }
+
+    // Curved a little to the side, so that edges between vertices of the same row don't go through the others
+    private class Arc {
+        final int x1, y1, x2, y2, controlX, controlY;
+
+        Arc(int source, int target) {
+            int sourceX = getX(source), sourceY = getY(source), targetX = getX(target), targetY = getY(target);
+            double dx = targetX - sourceX, dy = targetY - sourceY;
+            controlX = (int) ((sourceX + targetX) / 2.0 - dy * 0.2);
+            controlY = (int) ((sourceY + targetY) / 2.0 + dx * 0.2);
+            // Start and end on the circles rather than at their centres, so the arrow can be seen
+            double[] start = towards(sourceX, sourceY, controlX, controlY, getRadius(source));
+            double[] end = towards(targetX, targetY, controlX, controlY, getRadius(target));
+            x1 = (int) start[0];
+            y1 = (int) start[1];
+            x2 = (int) end[0];
+            y2 = (int) end[1];
+        }
+
+        private static double[] towards(int x, int y, int otherX, int otherY, int distance) {
+            double length = Math.max(Math.hypot(otherX - x, otherY - y), 1);
+            return new double[]{x + (otherX - x) * distance / length, y + (otherY - y) * distance / length};
+        }
+    }
+
+    // Whether the cell of the vertex, label included, crosses what is drawn
+    private boolean isDrawn(int vertex) {
+        int cellLeft = vertex % columns * CELL_WIDTH, cellTop = vertex / columns * CELL_HEIGHT;
+        return cellLeft + CELL_WIDTH >= left && cellLeft <= left + width && cellTop + CELL_HEIGHT >= top && cellTop <= top + height;
+    }
+
+    // Whether the arc, which stays within the bounds of its end and control points, can cross what is drawn
+    private boolean isDrawn(Arc arc) {
+        return Math.max(Math.max(arc.x1, arc.x2), arc.controlX) >= left && Math.min(Math.min(arc.x1, arc.x2), arc.controlX) <= left + width
+                && Math.max(Math.max(arc.y1, arc.y2), arc.controlY) >= top && Math.min(Math.min(arc.y1, arc.y2), arc.controlY) <= top + height;
+    }
+
+    private int getX(int vertex) {
+        return vertex % columns * CELL_WIDTH + CELL_WIDTH / 2;
+    }
+
+    private int getY(int vertex) {
+        return vertex / columns * CELL_HEIGHT + CELL_HEIGHT / 3;
+    }
+
+    private int getRadius(int vertex) {
+        return Math.min(5 + 2 * log2(graph.getSize(vertex)), CELL_HEIGHT / 3);
+    }
+
+    private static int log2(int n) {
+        return 31 - Integer.numberOfLeadingZeros(Math.max(n, 1));
+    }
+
+    // Directory of a file, or the directory a directory is in, coloured alike
+    private static String getParent(String path) {
+        int end = path.lastIndexOf('/', path.length() - 2);
+        return end < 0 ? "" : path.substring(0, end + 1);
+    }
+
+    // File name, or the whole path of a directory, cut at the start if it doesn't fit
+    private static String getLabel(String path) {
+        String label = path.endsWith("/") ? path : path.substring(path.lastIndexOf('/') + 1);
+        return label.length() <= MAX_LABEL_LENGTH ? label : "…" + label.substring(label.length() - MAX_LABEL_LENGTH + 1);
+    }
+
+    private static void escape(Writer writer, String text) throws IOException {
+        for (int i = 0; i < text.length(); ++i) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<' -> writer.write("&lt;");
+                case '>' -> writer.write("&gt;");
+                case '&' -> writer.write("&amp;");
+                case '"' -> writer.write("&quot;");
+                default -> writer.write(c);
+            }
+        }
+    }
+}
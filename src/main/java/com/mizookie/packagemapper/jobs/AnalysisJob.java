@@ -0,0 +1,199 @@
+package com.mizookie.packagemapper.jobs;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An analysis running in the background, and what it has done so far. Jobs are serialized as is by the
+ * {@code /analyse/jobs} endpoints.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AnalysisJob implements AnalysisProgress {
+    public enum State {
+        QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED, TIMED_OUT;
+
+        public boolean isDone() {
+            return this != QUEUED && this != RUNNING;
+        }
+    }
+
+    private final String id;
+    private final String repository;
+    private final String version;
+    private final String baseVersion;
+    private final List<String> versions;
+    private final Instant submittedAt = Instant.now();
+    private final AtomicInteger filesQueued = new AtomicInteger();
+    private final AtomicInteger filesResolved = new AtomicInteger();
+    private final CountDownLatch done = new CountDownLatch(1);
+    // Guards thread, state and cancelledAs together, so that a job cancelled while starting or finishing ends up in one state
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile State state = State.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    // Set by cancel(), the state the job ends in once its thread has stopped
+    private volatile State cancelledAs;
+    private volatile Thread thread;
+
+    /**
+     * @param version     commit to analyse
+     * @param baseVersion analysed commit to patch, {@code null} for a full analysis
+     */
+    public AnalysisJob(String id, String repository, String version, String baseVersion) {
+        this.id = id;
+        this.repository = repository;
+        this.version = version;
+        this.baseVersion = baseVersion;
+        this.versions = null;
+    }
+
+    /**
+     * @param versions commits analysed together, see {@link com.mizookie.packagemapper.services.AnalyserService}
+     */
+    public AnalysisJob(String id, String repository, List<String> versions) {
+        this.id = id;
+        this.repository = repository;
+        this.version = null;
+        this.baseVersion = null;
+        this.versions = versions;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getRepository() {
+        return repository;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getBaseVersion() {
+        return baseVersion;
+    }
+
+    public List<String> getVersions() {
+        return versions;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public int getFilesQueued() {
+        return filesQueued.get();
+    }
+
+    public int getFilesResolved() {
+        return filesResolved.get();
+    }
+
+    @Override
+    public void filesQueued(int count) {
+        filesQueued.addAndGet(count);
+    }
+
+    @Override
+    public void fileResolved() {
+        filesResolved.incrementAndGet();
+    }
+
+    /**
+     * Mark the job as running on {@code thread}, unless it was cancelled while queued.
+     *
+     * @return whether the job should run
+     */
+    public boolean start(Thread thread) {
+        lock.lock();
+        try {
+            if (cancelledAs != null) {
+                return false;
+            }
+            this.thread = thread;
+            startedAt = Instant.now();
+            state = State.RUNNING;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Mark the job as done. {@code failure} is ignored if the job was cancelled, since that's usually what made it fail
+     *
+     * @param failure what made the analysis fail, {@code null} if it succeeded
+     */
+    public void finish(Throwable failure) {
+        lock.lock();
+        try {
+            thread = null;
+            if (cancelledAs != null) {
+                state = cancelledAs;
+            } else if (failure != null) {
+                state = State.FAILED;
+                error = failure.getMessage() == null ? failure.getClass().getSimpleName() : failure.getMessage();
+            } else {
+                state = State.SUCCEEDED;
+            }
+            finishedAt = Instant.now();
+        } finally {
+            lock.unlock();
+        }
+        done.countDown();
+    }
+
+    /**
+     * Stop the job by interrupting its thread. The job is done once the thread notices.
+     *
+     * @param as {@link State#CANCELLED} or {@link State#TIMED_OUT}
+     * @return whether the job was still running or queued
+     */
+    public boolean cancel(State as) {
+        lock.lock();
+        try {
+            if (state.isDone() || cancelledAs != null) {
+                return false;
+            }
+            cancelledAs = as;
+            if (thread != null) {
+                thread.interrupt();
+            } else {
+                finish(null); // Never started, so nothing else will finish it
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait for the job to be done
+     */
+    public void await() throws InterruptedException {
+        done.await();
+    }
+}
@@ -0,0 +1,30 @@
+package com.mizookie.packagemapper.jobs;
+
+/**
+ * Receives the progress of an analysis. Methods are called from the threads resolving files, so implementations must
+ * be thread-safe.
+ */
+public interface AnalysisProgress {
+    /**
+     * Ignores progress, for analyses nobody is watching
+     */
+    AnalysisProgress NONE = new AnalysisProgress() {
+        @Override
+        public void filesQueued(int count) {
+        }
+
+        @Override
+        public void fileResolved() {
+        }
+    };
+
+    /**
+     * {@code count} more files are going to be resolved. An incremental analysis queues files in several rounds
+     */
+    void filesQueued(int count);
+
+    /**
+     * One of the queued files has been resolved
+     */
+    void fileResolved();
+}
@@ -0,0 +1,130 @@
+package com.mizookie.packagemapper.metrics;
+
+import com.mizookie.packagemapper.resolver.ResolverMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters of the analysis pipeline, exposed at {@code /actuator/prometheus}. Meters of an analysis are tagged with the
+ * repository and the resolver, so that rates like files or lines per second can be broken down by either.
+ */
+@Component
+public class AnalysisMetrics {
+    private final MeterRegistry registry;
+    // Resolver of files that aren't resolved from their imports, see resolver.type
+    private final String resolverType;
+
+    @Autowired
+    public AnalysisMetrics(MeterRegistry registry, @Value("${resolver.type}") String resolverType) {
+        this.registry = registry;
+        this.resolverType = resolverType;
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    /**
+     * Record a whole analysis
+     *
+     * @param mode {@code full}, {@code incremental} or {@code batch}
+     */
+    public void analysisDone(Timer.Sample sample, String repository, String mode, boolean succeeded) {
+        sample.stop(Timer.builder("packagemapper.analysis")
+                .description("Time spent analysing a repository, waiting for a turn excluded")
+                .tags("repository", repository, "resolver", resolverType, "mode", mode, "outcome", succeeded ? "success" : "failure")
+                .register(registry));
+    }
+
+    /**
+     * Record one phase of an analysis
+     *
+     * @param phase {@code checkout}, {@code walk}, {@code resolve}, {@code build} or {@code serialize}
+     */
+    public void phaseDone(Timer.Sample sample, String repository, String phase) {
+        sample.stop(Timer.builder("packagemapper.analysis.phase")
+                .description("Time spent in each phase of an analysis")
+                .tags("repository", repository, "resolver", resolverType, "phase", phase)
+                .register(registry));
+    }
+
+    /**
+     * Record the time spent waiting for a permit
+     *
+     * @param queue {@code analysis} or {@code file}
+     */
+    public void waited(Timer.Sample sample, String repository, String queue) {
+        sample.stop(Timer.builder("packagemapper.analysis.wait")
+                .description("Time spent waiting for an analysis or file permit")
+                .tags("repository", repository, "resolver", resolverType, "queue", queue)
+                .register(registry));
+    }
+
+    /**
+     * Count a file resolved, from the resolution cache or not
+     *
+     * @param resolver resolver of the file, {@code java}, {@code python} or {@code javascript} for files resolved from
+     *                 their imports
+     */
+    public void fileResolved(String repository, String resolver) {
+        Counter.builder("packagemapper.files.resolved").description("Files resolved")
+                .tags("repository", repository, "resolver", resolver).register(registry).increment();
+    }
+
+    /**
+     * Count the edges a file added to a graph, see {@link #fileResolved}
+     */
+    public void edgesFound(String repository, String resolver, int edges) {
+        Counter.builder("packagemapper.edges").description("Edges found between files")
+                .tags("repository", repository, "resolver", resolver).register(registry).increment(edges);
+    }
+
+    /**
+     * Get the metrics of the resolver of an analysis of {@code repository}
+     */
+    public ResolverMetrics forResolver(String repository) {
+        Tags tags = Tags.of("repository", repository, "resolver", resolverType);
+        Timer solve = Timer.builder("packagemapper.resolver.solve").description("Time spent reading and matching a file")
+                .tags(tags).register(registry);
+        Counter lines = Counter.builder("packagemapper.resolver.lines").description("Lines read by the resolver")
+                .tags(tags).register(registry);
+        Counter bytes = Counter.builder("packagemapper.resolver.bytes").description("Bytes read by the resolver").baseUnit("bytes")
+                .tags(tags).register(registry);
+        return (lineCount, byteCount, nanos) -> {
+            solve.record(nanos, TimeUnit.NANOSECONDS);
+            lines.increment(lineCount);
+            bytes.increment(byteCount);
+        };
+    }
+
+    /**
+     * Report how busy {@code executor} is, as the {@code executor.*} meters tagged with {@code name}
+     */
+    public void monitor(ExecutorService executor, String name) {
+        new ExecutorServiceMetrics(executor, name, Tags.empty()).bindTo(registry);
+    }
+
+    /**
+     * Report how many of the {@code max} permits of {@code permits} are taken
+     *
+     * @param queue {@code analysis} or {@code file}
+     */
+    public void monitor(Semaphore permits, int max, String queue) {
+        Gauge.builder("packagemapper.permits.used", permits, semaphore -> max - semaphore.availablePermits())
+                .description("Analyses or files being processed")
+                .tag("queue", queue)
+                .register(registry);
+        Gauge.builder("packagemapper.permits.max", () -> max).tag("queue", queue).register(registry);
+    }
+}
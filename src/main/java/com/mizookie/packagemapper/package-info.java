@@ -0,0 +1,8 @@
+/**
+ * Maps the dependencies between the files of git repositories.
+ * <p>
+ * Files are resolved, and analyses and jobs run, on virtual threads. Shared state is guarded by
+ * {@link java.util.concurrent.locks.ReentrantLock}s rather than {@code synchronized}, since a virtual thread blocked on
+ * a monitor pins its carrier thread.
+ */
+package com.mizookie.packagemapper;
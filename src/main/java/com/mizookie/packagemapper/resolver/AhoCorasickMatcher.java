@@ -0,0 +1,149 @@
+package com.mizookie.packagemapper.resolver;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Multi-pattern matcher (Aho-Corasick automaton) that reports whole-word occurrences of a fixed set of patterns.
+ * A match is only reported when both of its ends lie on a word boundary, which is the same rule as regex {@code \b}
+ * using the ASCII word characters {@code [a-zA-Z0-9_]}.
+ * <p>
+ * Patterns are expected to be distinct. Empty patterns and repeated patterns are never reported.
+ * The automaton is immutable once built, so a single instance can be shared between threads.
+ */
+public class AhoCorasickMatcher {
+    private static final int ROOT = 0;
+
+    private final int[] patternLengths;
+    // Children of node n are childChars/childNodes[childStart[n], childStart[n + 1]), sorted by character
+    private final int[] childStart;
+    private final char[] childChars;
+    private final int[] childNodes;
+    private final int[] fail;
+    // Pattern ending at a node (-1 if none) and the closest node along the fail chain that ends a pattern
+    private final int[] output;
+    private final int[] outputLink;
+
+    public AhoCorasickMatcher(List<String> patterns) {
+        patternLengths = new int[patterns.size()];
+
+        // Build the trie with hash maps first, then compact it into sorted arrays
+        List<Map<Character, Integer>> trie = new ArrayList<>();
+        List<Integer> outputs = new ArrayList<>();
+        trie.add(new HashMap<>());
+        outputs.add(-1);
+        for (int p = 0; p < patterns.size(); ++p) {
+            String pattern = patterns.get(p);
+            patternLengths[p] = pattern.length();
+            int node = ROOT;
+            for (int i = 0; i < pattern.length(); ++i) {
+                Integer next = trie.get(node).get(pattern.charAt(i));
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new HashMap<>());
+                    outputs.add(-1);
+                    trie.get(node).put(pattern.charAt(i), next);
+                }
+                node = next;
+            }
+            if (node != ROOT && outputs.get(node) == -1) {
+                outputs.set(node, p);
+            }
+        }
+
+        int numberOfNodes = trie.size();
+        output = outputs.stream().mapToInt(Integer::intValue).toArray();
+        childStart = new int[numberOfNodes + 1];
+        childChars = new char[numberOfNodes - 1];
+        childNodes = new int[numberOfNodes - 1];
+        int position = 0;
+        for (int n = 0; n < numberOfNodes; ++n) {
+            childStart[n] = position;
+            Character[] keys = trie.get(n).keySet().toArray(new Character[0]);
+            Arrays.sort(keys);
+            for (Character key : keys) {
+                childChars[position] = key;
+                childNodes[position] = trie.get(n).get(key);
+                position += 1;
+            }
+        }
+        childStart[numberOfNodes] = position;
+
+        // Breadth-first pass to compute failure and output links
+        fail = new int[numberOfNodes];
+        outputLink = new int[numberOfNodes];
+        outputLink[ROOT] = -1;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int i = childStart[ROOT]; i < childStart[ROOT + 1]; ++i) {
+            fail[childNodes[i]] = ROOT;
+            outputLink[childNodes[i]] = -1;
+            queue.add(childNodes[i]);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int i = childStart[node]; i < childStart[node + 1]; ++i) {
+                int child = childNodes[i];
+                int state = fail[node];
+                int next;
+                while ((next = transition(state, childChars[i])) == -1 && state != ROOT) {
+                    state = fail[state];
+                }
+                fail[child] = next == -1 ? ROOT : next;
+                outputLink[child] = output[fail[child]] != -1 ? fail[child] : outputLink[fail[child]];
+                queue.add(child);
+            }
+        }
+    }
+
+    public static boolean isWordCharacter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private static boolean isBoundary(CharSequence text, int index) {
+        boolean before = index > 0 && isWordCharacter(text.charAt(index - 1));
+        boolean after = index < text.length() && isWordCharacter(text.charAt(index));
+        return before != after;
+    }
+
+    private int transition(int node, char c) {
+        int low = childStart[node], high = childStart[node + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (childChars[mid] < c) {
+                low = mid + 1;
+            } else if (childChars[mid] > c) {
+                high = mid - 1;
+            } else {
+                return childNodes[mid];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Scan {@code text} once and report the index of every pattern found as a whole word. A pattern may be reported
+     * more than once if it occurs several times.
+     */
+    public void match(CharSequence text, IntConsumer onMatch) {
+        int state = ROOT;
+        for (int i = 0; i < text.length(); ++i) {
+            char c = text.charAt(i);
+            int next;
+            while ((next = transition(state, c)) == -1 && state != ROOT) {
+                state = fail[state];
+            }
+            state = next == -1 ? ROOT : next;
+            for (int node = output[state] != -1 ? state : outputLink[state]; node != -1; node = outputLink[node]) {
+                int pattern = output[node];
+                if (isBoundary(text, i + 1) && isBoundary(text, i + 1 - patternLengths[pattern])) {
+                    onMatch.accept(pattern);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.mizookie.packagemapper.resolver;
+
+import com.mizookie.packagemapper.utils.FileService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Same idea as {@link NaiveResolver}: a file refers to another file if the other file's name (without extension)
+ * shows up as a whole word in it. Instead of testing every line against every file name, all file names are
+ * compiled into one {@link AhoCorasickMatcher} per analysis and every line is scanned only once.
+ * <p>
+ * Unlike the naive resolver, file names are matched literally rather than being interpreted as regular expressions.
+ */
+public class AhoCorasickResolver implements Resolver {
+    // The automaton is rebuilt whenever a different list of files is given
+    private List<String> indexedFilePaths;
+    private Index index;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final SourceReader sourceReader;
+
+    public AhoCorasickResolver() {
+        this(SourceReader.FILE_SYSTEM);
+    }
+
+    public AhoCorasickResolver(SourceReader sourceReader) {
+        this.sourceReader = sourceReader;
+    }
+
+    private Index getIndex(List<String> filePaths) {
+        lock.lock();
+        try {
+            if (filePaths != indexedFilePaths) {
+                index = new Index(filePaths);
+                indexedFilePaths = filePaths;
+            }
+            return index;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<String> solve(List<String> filePaths, String filePath) throws IOException {
+        Index currentIndex = getIndex(filePaths);
+        BitSet found = new BitSet(currentIndex.basenames.size());
+        try (BufferedReader reader = sourceReader.openReader(filePath)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                currentIndex.matcher.match(line, found::set);
+            }
+        }
+
+        ArrayList<String> results = new ArrayList<>();
+        found.stream().forEach(pattern -> {
+            for (String path : currentIndex.basenames.get(pattern).paths) {
+                if (!path.equals(filePath)) {
+                    results.add(path);
+                }
+            }
+        });
+        return results;
+    }
+
+    private record Basename(String name, List<String> paths) {
+    }
+
+    private static class Index {
+        final List<Basename> basenames = new ArrayList<>();
+        final AhoCorasickMatcher matcher;
+
+        Index(List<String> filePaths) {
+            // Files sharing a name are matched by a single pattern
+            Map<String, List<String>> pathsByName = new LinkedHashMap<>();
+            for (String path : filePaths) {
+                pathsByName.computeIfAbsent(FileService.getFileNameWithoutExtension(path), k -> new ArrayList<>()).add(path);
+            }
+            pathsByName.forEach((name, paths) -> basenames.add(new Basename(name, paths)));
+            matcher = new AhoCorasickMatcher(basenames.stream().map(Basename::name).toList());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.mizookie.packagemapper.resolver;
+
+import com.mizookie.packagemapper.visitors.SourceFileFilter;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Least recently used record of whether blobs are binary, by blob id. A blob id names a content, so an entry holds
+ * across commits and repositories, and analyses of many versions don't open every blob of every version.
+ */
+public class BinaryBlobCache {
+    private final Map<ObjectId, Boolean> entries;
+    // Guards entries: a get reorders an access ordered map too
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * @param maxEntries most blobs remembered, 0 to always read them
+     */
+    public BinaryBlobCache(int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ObjectId, Boolean> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Whether the blob is binary, read with {@code reader} unless it is remembered
+     */
+    public boolean isBinary(ObjectReader reader, ObjectId blobId) throws IOException {
+        Boolean binary;
+        lock.lock();
+        try {
+            binary = entries.get(blobId);
+        } finally {
+            lock.unlock();
+        }
+        if (binary == null) {
+            try (InputStream content = reader.open(blobId, Constants.OBJ_BLOB).openStream()) {
+                binary = SourceFileFilter.isBinary(content);
+            }
+            lock.lock();
+            try {
+                entries.put(blobId.copy(), binary);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return binary;
+    }
+}
@@ -0,0 +1,92 @@
+package com.mizookie.packagemapper.resolver;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Open addressing hash table from names to their index in the list it was built from. Names are stored as UTF-8
+ * bytes so that tokens can be looked up straight from a {@link ByteBuffer} without creating any objects.
+ * <p>
+ * The table is immutable once built, so a single instance can be shared between threads.
+ */
+public class ByteNameTable {
+    private final byte[][] keys;
+    private final int[] hashes;
+    private final int[] ids;
+    private final int mask;
+    private final int maxLength;
+
+    public ByteNameTable(List<String> names) {
+        int capacity = Integer.highestOneBit(Math.max(2, names.size()) * 2 - 1) << 1;
+        keys = new byte[capacity][];
+        hashes = new int[capacity];
+        ids = new int[capacity];
+        mask = capacity - 1;
+        int longest = 0;
+        for (int id = 0; id < names.size(); ++id) {
+            byte[] key = names.get(id).getBytes(StandardCharsets.UTF_8);
+            int hash = 0;
+            for (byte b : key) {
+                hash = nextHash(hash, b);
+            }
+            int slot = find(key, hash);
+            if (keys[slot] == null) {
+                keys[slot] = key;
+                hashes[slot] = hash;
+                ids[slot] = id;
+                longest = Math.max(longest, key.length);
+            }
+        }
+        maxLength = longest;
+    }
+
+    /**
+     * Hash of a name is built one byte at a time so that it can be computed while a token is being read.
+     */
+    public static int nextHash(int hash, byte b) {
+        return 31 * hash + b;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private int find(byte[] key, int hash) {
+        int slot = spread(hash) & mask;
+        while (keys[slot] != null && !(hashes[slot] == hash && Arrays.equals(keys[slot], key))) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Look up the token {@code buffer[start, start + length)} whose hash is {@code hash}.
+     *
+     * @return index of the name, or -1 if the token isn't a name
+     */
+    public int get(ByteBuffer buffer, int start, int length, int hash) {
+        if (length > maxLength) {
+            return -1;
+        }
+        for (int slot = spread(hash) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+            if (hashes[slot] == hash && matches(keys[slot], buffer, start, length)) {
+                return ids[slot];
+            }
+        }
+        return -1;
+    }
+
+    private static boolean matches(byte[] key, ByteBuffer buffer, int start, int length) {
+        if (key.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; ++i) {
+            if (key[i] != buffer.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,136 @@
+package com.mizookie.packagemapper.resolver;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * File names that aren't identifiers (e.g. {@code vite.config} or {@code docker-compose}), matched straight from UTF-8
+ * bytes the way {@link NaiveResolver} matches them with the pattern {@code \b(name)\b}: {@code .} stands for any
+ * character but a line break, every other character for itself, and both ends of a match lie on a word boundary.
+ * <p>
+ * A name starting with an identifier character can only start a token, and one starting with another character can
+ * only follow one, so names are only tried at the start and at the end of tokens, among the names starting with the
+ * byte found there.
+ * <p>
+ * Names with other regular expression metacharacters (e.g. {@code [id]} or {@code c++}), or starting with {@code .},
+ * can't be matched this way, see {@link #isMatchable}.
+ * <p>
+ * The table is immutable once built, so a single instance can be shared between threads.
+ */
+public class BytePatternTable {
+    private static final String METACHARACTERS = "\\^$|?*+()[]{}";
+    private final byte[][] patterns;
+    private final int[] ids;
+    // Patterns starting with each byte, as indexes into patterns
+    private final int[][] byFirstByte = new int[256][];
+
+    /**
+     * @param names names of the files
+     * @param ids   indexes in {@code names} of the names to match, each of them {@link #isMatchable}
+     */
+    public BytePatternTable(List<String> names, List<Integer> ids) {
+        this.patterns = new byte[ids.size()][];
+        this.ids = new int[ids.size()];
+        for (int i = 0; i < ids.size(); ++i) {
+            patterns[i] = names.get(ids.get(i)).getBytes(StandardCharsets.UTF_8);
+            this.ids[i] = ids.get(i);
+            int first = patterns[i][0] & 0xFF;
+            int[] candidates = byFirstByte[first];
+            candidates = candidates == null ? new int[1] : Arrays.copyOf(candidates, candidates.length + 1);
+            candidates[candidates.length - 1] = i;
+            byFirstByte[first] = candidates;
+        }
+    }
+
+    /**
+     * Whether {@code name} can be matched from bytes like {@link NaiveResolver} matches it
+     */
+    public static boolean isMatchable(String name) {
+        if (name.isEmpty() || name.charAt(0) == '.') {
+            return false;
+        }
+        for (int i = 0; i < name.length(); ++i) {
+            if (METACHARACTERS.indexOf(name.charAt(i)) != -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isEmpty() {
+        return patterns.length == 0;
+    }
+
+    private static boolean isWordByte(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') || b == '_';
+    }
+
+    /**
+     * Set the index of the names found at {@code start}, which must be the start or the end of a token.
+     */
+    public void matchAt(ByteBuffer buffer, int start, BitSet found) {
+        int[] candidates = byFirstByte[buffer.get(start) & 0xFF];
+        if (candidates == null) {
+            return;
+        }
+        for (int candidate : candidates) {
+            if (matches(patterns[candidate], buffer, start)) {
+                found.set(ids[candidate]);
+            }
+        }
+    }
+
+    private static boolean matches(byte[] pattern, ByteBuffer buffer, int start) {
+        int limit = buffer.limit();
+        int position = start;
+        boolean lastIsWord = false;
+        for (byte p : pattern) {
+            if (position >= limit) {
+                return false;
+            }
+            byte b = buffer.get(position);
+            if (p == '.') {
+                position = skipCharacter(buffer, position);
+                if (position == -1) {
+                    return false;
+                }
+            } else if (b == p) {
+                ++position;
+            } else {
+                return false;
+            }
+            lastIsWord = isWordByte(b);
+        }
+        // The start is a boundary already, since it is the start or the end of a token
+        return lastIsWord != (position < limit && isWordByte(buffer.get(position)));
+    }
+
+    /**
+     * @return position after the UTF-8 character at {@code position}, or -1 if it is a line break, which {@code .}
+     * doesn't match. Malformed bytes count as a character each.
+     */
+    private static int skipCharacter(ByteBuffer buffer, int position) {
+        int b = buffer.get(position) & 0xFF;
+        if (b == '\n' || b == '\r') {
+            return -1;
+        }
+        int length = b < 0xC0 ? 1 : b < 0xE0 ? 2 : b < 0xF0 ? 3 : 4;
+        if (position + length > buffer.limit()) {
+            return position + 1;
+        }
+        for (int i = 1; i < length; ++i) {
+            if ((buffer.get(position + i) & 0xC0) != 0x80) {
+                return position + 1;
+            }
+        }
+        // U+0085, U+2028 and U+2029 end lines too
+        if ((length == 2 && b == 0xC2 && (buffer.get(position + 1) & 0xFF) == 0x85)
+                || (length == 3 && b == 0xE2 && (buffer.get(position + 1) & 0xFF) == 0x80 && (buffer.get(position + 2) & 0xFE) == 0xA8)) {
+            return -1;
+        }
+        return position + length;
+    }
+}
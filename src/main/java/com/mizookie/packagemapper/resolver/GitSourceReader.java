@@ -0,0 +1,111 @@
+package com.mizookie.packagemapper.resolver;
+
+import com.mizookie.packagemapper.visitors.SourceFileFilter;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.treewalk.TreeWalk;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the files of one commit straight from the git object database, so the working tree is never checked out.
+ * Files are named as if the commit was checked out under {@code repositoryPath}, unless the blobs to read are given. Blobs are opened with a new object
+ * reader each time, which keeps this thread-safe.
+ */
+public class GitSourceReader implements SourceReader, AutoCloseable {
+    private final Repository repository;
+    private final Map<String, ObjectId> blobIds = new HashMap<>();
+    private final List<String> filePaths = new ArrayList<>();
+
+    /**
+     * @param repository     closed along with this reader
+     * @param tree           tree of the commit to read
+     * @param repositoryPath where the repository is cloned
+     * @param filter         which files are listed by {@link #getFilePaths()}, the same as on a checkout of the commit
+     * @param binaryBlobs    whether blobs are binary, for the filter
+     */
+    public GitSourceReader(Repository repository, RevTree tree, String repositoryPath, SourceFileFilter filter, BinaryBlobCache binaryBlobs) throws IOException {
+        this.repository = repository;
+        Map<String, ObjectId> paths = new LinkedHashMap<>();
+        try (TreeWalk treeWalk = new TreeWalk(repository)) {
+            treeWalk.addTree(tree);
+            treeWalk.setRecursive(true);
+            while (treeWalk.next()) {
+                if (treeWalk.getFileMode(0).getObjectType() == Constants.OBJ_BLOB) {
+                    paths.put(treeWalk.getPathString(), treeWalk.getObjectId(0));
+                }
+            }
+        }
+        // .gitignore files are read from the commit, so listing every path comes first
+        SourceFileFilter.Tree treeFilter = filter.forTree(path -> {
+            ObjectId blobId = paths.get(path);
+            return blobId == null ? null : repository.open(blobId, Constants.OBJ_BLOB).openStream();
+        });
+        try (ObjectReader reader = repository.newObjectReader()) {
+            for (Map.Entry<String, ObjectId> entry : paths.entrySet()) {
+                String filePath = Paths.get(repositoryPath, entry.getKey()).toString();
+                blobIds.put(filePath, entry.getValue());
+                if (!treeFilter.isExcludedFile(entry.getKey())
+                        && filter.hasAllowedSize(reader.getObjectSize(entry.getValue(), Constants.OBJ_BLOB))
+                        && !binaryBlobs.isBinary(reader, entry.getValue())) {
+                    filePaths.add(filePath);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read the given blobs only, whatever commit they are part of.
+     *
+     * @param repository closed along with this reader
+     * @param blobIds    blob id of each file, keyed by the name the file is opened with
+     */
+    public GitSourceReader(Repository repository, Map<String, String> blobIds) {
+        this.repository = repository;
+        blobIds.forEach((filePath, blobId) -> {
+            this.blobIds.put(filePath, ObjectId.fromString(blobId));
+            filePaths.add(filePath);
+        });
+    }
+
+    /**
+     * Get the files of the commit the filter kept
+     */
+    public List<String> getFilePaths() {
+        return filePaths;
+    }
+
+    /**
+     * Get the blob id of every file of the commit, filtered out ones included
+     */
+    public Map<String, String> getBlobIds() {
+        Map<String, String> names = new HashMap<>();
+        blobIds.forEach((filePath, blobId) -> names.put(filePath, blobId.name()));
+        return names;
+    }
+
+    @Override
+    public InputStream open(String filePath) throws IOException {
+        ObjectId blobId = blobIds.get(filePath);
+        if (blobId == null) {
+            throw new FileNotFoundException(filePath);
+        }
+        return repository.open(blobId, Constants.OBJ_BLOB).openStream();
+    }
+
+    @Override
+    public void close() {
+        repository.close();
+    }
+}
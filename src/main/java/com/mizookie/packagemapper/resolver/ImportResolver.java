@@ -0,0 +1,118 @@
+package com.mizookie.packagemapper.resolver;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Base of the language aware resolvers. Subclasses mostly read the import section at the top of a file and stop as
+ * soon as code begins. Each import is then mapped to files through a {@link ModuleIndex} built once per list of
+ * files.
+ */
+public abstract class ImportResolver implements Resolver {
+    private List<String> indexedFilePaths;
+    private ModuleIndex index;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final SourceReader sourceReader;
+
+    protected ImportResolver(SourceReader sourceReader) {
+        this.sourceReader = sourceReader;
+    }
+
+    private ModuleIndex getIndex(List<String> filePaths) {
+        lock.lock();
+        try {
+            if (filePaths != indexedFilePaths) {
+                index = createIndex(filePaths);
+                indexedFilePaths = filePaths;
+            }
+            return index;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove {@code //} and {@code /* *}{@code /} comments from a line of C-like code.
+     *
+     * @param inBlockComment whether the line starts inside a block comment. Updated for the next line
+     */
+    protected static String stripComments(String line, boolean[] inBlockComment) {
+        StringBuilder code = new StringBuilder();
+        int i = 0;
+        while (i < line.length()) {
+            if (inBlockComment[0]) {
+                int end = line.indexOf("*/", i);
+                if (end == -1) {
+                    break;
+                }
+                inBlockComment[0] = false;
+                i = end + 2;
+            } else if (line.startsWith("/*", i)) {
+                inBlockComment[0] = true;
+                i += 2;
+            } else if (line.startsWith("//", i)) {
+                break;
+            } else {
+                code.append(line.charAt(i));
+                i += 1;
+            }
+        }
+        return code.toString();
+    }
+
+    protected abstract ModuleIndex createIndex(List<String> filePaths);
+
+    /**
+     * Read the imports at the top of a file, stopping once code begins.
+     *
+     * @return one entry per import, each being the modules it could refer to from the most to the least specific
+     */
+    protected abstract List<List<String>> extractImports(BufferedReader reader) throws IOException;
+
+    /**
+     * Find the files that {@code module}, imported by {@code filePath}, refers to.
+     */
+    protected abstract List<String> resolveModule(ModuleIndex index, String filePath, String module);
+
+    @Override
+    public List<String> solve(List<String> filePaths, String filePath) throws IOException {
+        return resolveImports(filePaths, filePath, readImports(filePath));
+    }
+
+    /**
+     * Read the imports of {@code filePath}, to resolve them later with {@link #resolveImports}. Imports only depend
+     * on the content of the file, so they can be resolved against several lists of files, e.g. the files of different
+     * commits.
+     */
+    public List<List<String>> readImports(String filePath) throws IOException {
+        try (BufferedReader reader = sourceReader.openReader(filePath)) {
+            return extractImports(reader);
+        }
+    }
+
+    /**
+     * Find the files within {@code filePaths} that {@code imports}, read by {@link #readImports}, refer to.
+     *
+     * @param filePath the file the imports were read from, which relative imports are resolved against
+     */
+    public List<String> resolveImports(List<String> filePaths, String filePath, List<List<String>> imports) {
+        ModuleIndex currentIndex = getIndex(filePaths);
+        Set<String> results = new LinkedHashSet<>();
+        for (List<String> alternatives : imports) {
+            for (String module : alternatives) {
+                List<String> paths = resolveModule(currentIndex, filePath, module);
+                if (!paths.isEmpty()) {
+                    results.addAll(paths);
+                    break;
+                }
+            }
+        }
+        results.remove(filePath);
+        return new ArrayList<>(results);
+    }
+}
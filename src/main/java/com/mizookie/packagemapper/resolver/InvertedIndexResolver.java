@@ -0,0 +1,150 @@
+package com.mizookie.packagemapper.resolver;
+
+import com.mizookie.packagemapper.utils.FileService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Resolver that reads every file of the repository exactly once. Each file is split into its identifiers
+ * ({@code [a-zA-Z0-9_]+}) and an inverted index from file name to the files mentioning it is built, after which
+ * every {@link #solve} call is just a lookup. Files are read on the given pool, the first call waiting for the whole
+ * index.
+ * <p>
+ * A file name is matched when it is one of the identifiers of a file, which is what {@link NaiveResolver} finds as
+ * well. File names that aren't plain identifiers (e.g. {@code app.test} or {@code my-file}) are never matched.
+ */
+public class InvertedIndexResolver implements Resolver {
+    // The index is rebuilt whenever a different list of files is given
+    private List<String> indexedFilePaths;
+    private Index index;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ForkJoinPool pool;
+    private final SourceReader sourceReader;
+
+    public InvertedIndexResolver(ForkJoinPool pool) {
+        this(pool, SourceReader.FILE_SYSTEM);
+    }
+
+    public InvertedIndexResolver(ForkJoinPool pool, SourceReader sourceReader) {
+        this.pool = pool;
+        this.sourceReader = sourceReader;
+    }
+
+    private Index getIndex(List<String> filePaths) throws IOException {
+        lock.lock();
+        try {
+            if (filePaths != indexedFilePaths) {
+                index = new Index(filePaths, pool, sourceReader);
+                indexedFilePaths = filePaths;
+            }
+            return index;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Read {@code filePath} and collect the identifiers in it that are also keys of {@code names}.
+     */
+    static Set<String> tokenize(SourceReader sourceReader, String filePath, Map<String, ?> names) throws IOException {
+        Set<String> found = new LinkedHashSet<>();
+        StringBuilder token = new StringBuilder();
+        char[] buffer = new char[8192];
+        try (BufferedReader reader = sourceReader.openReader(filePath)) {
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                for (int i = 0; i < read; ++i) {
+                    if (AhoCorasickMatcher.isWordCharacter(buffer[i])) {
+                        token.append(buffer[i]);
+                    } else if (!token.isEmpty()) {
+                        addToken(token, names, found);
+                    }
+                }
+            }
+            if (!token.isEmpty()) {
+                addToken(token, names, found);
+            }
+        }
+        return found;
+    }
+
+    private static void addToken(StringBuilder token, Map<String, ?> names, Set<String> found) {
+        String identifier = token.toString();
+        if (names.containsKey(identifier)) {
+            found.add(identifier);
+        }
+        token.setLength(0);
+    }
+
+    @Override
+    public List<String> solve(List<String> filePaths, String filePath) throws IOException {
+        Index currentIndex = getIndex(filePaths);
+        Set<String> names = currentIndex.namesByFile.get(filePath);
+        if (names == null) {
+            // Not part of the indexed files
+            names = tokenize(sourceReader, filePath, currentIndex.pathsByName);
+        }
+        return currentIndex.resolve(filePath, names);
+    }
+
+    private static class Index {
+        final Map<String, List<String>> pathsByName = new HashMap<>();
+        // File -> file names it mentions
+        final Map<String, Set<String>> namesByFile = new ConcurrentHashMap<>();
+
+        Index(List<String> filePaths, ForkJoinPool pool, SourceReader sourceReader) throws IOException {
+            for (String path : filePaths) {
+                pathsByName.computeIfAbsent(FileService.getFileNameWithoutExtension(path), k -> new ArrayList<>()).add(path);
+            }
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (String path : filePaths) {
+                tasks.add(() -> {
+                    namesByFile.put(path, tokenize(sourceReader, path, pathsByName));
+                    return null;
+                });
+            }
+            try {
+                for (Future<Void> task : pool.invokeAll(tasks)) {
+                    task.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while indexing");
+            } catch (ExecutionException e) {
+                // The pool wraps what a task throws, maybe more than once
+                for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                    if (cause instanceof IOException ioException) {
+                        throw ioException;
+                    }
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        List<String> resolve(String filePath, Set<String> names) {
+            ArrayList<String> results = new ArrayList<>();
+            for (String name : names) {
+                for (String path : pathsByName.get(name)) {
+                    if (!path.equals(filePath)) {
+                        results.add(path);
+                    }
+                }
+            }
+            return results;
+        }
+    }
+}
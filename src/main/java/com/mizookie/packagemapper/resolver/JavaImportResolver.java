@@ -0,0 +1,135 @@
+package com.mizookie.packagemapper.resolver;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Resolve Java files from their {@code import} statements, and from the names the rest of the file uses.
+ * <p>
+ * Classes of the same package, or of a package imported with {@code *}, are used without being imported: each name
+ * that isn't imported is looked up as a class of those packages, the file's own first, like the compiler does. The
+ * file's own package is the directory it is in. Fully qualified names (e.g. {@code com.app.Graph}) are looked up like
+ * imports. Names in comments and string literals are left out.
+ */
+public class JavaImportResolver extends ImportResolver {
+    private static final Set<String> EXTENSIONS = Set.of(".java");
+    // A name and the names it is qualified with, unless it is itself a member of something else
+    private static final Pattern NAME = Pattern.compile("(?<![\\w$.])[A-Za-z_$][\\w$]*(?:\\.[A-Za-z_$][\\w$]*)*");
+    private static final Pattern STRING_LITERAL = Pattern.compile("\"(?:[^\"\\\\]|\\\\.)*\"|'(?:[^'\\\\]|\\\\.)*'");
+
+    public JavaImportResolver() {
+        this(SourceReader.FILE_SYSTEM);
+    }
+
+    public JavaImportResolver(SourceReader sourceReader) {
+        super(sourceReader);
+    }
+
+    @Override
+    protected ModuleIndex createIndex(List<String> filePaths) {
+        return new ModuleIndex(filePaths, EXTENSIONS, null);
+    }
+
+    /**
+     * Read the imports, then the names used by the rest of the file. A name used without being imported comes with
+     * the classes of that name in the packages it may be from, most specific first.
+     */
+    @Override
+    protected List<List<String>> extractImports(BufferedReader reader) throws IOException {
+        List<List<String>> imports = new ArrayList<>();
+        // Packages imported with *, whose classes are used without being imported
+        List<String> packages = new ArrayList<>();
+        Set<String> imported = new HashSet<>();
+        Set<String> names = new LinkedHashSet<>();
+        boolean[] inBlockComment = {false};
+        boolean inBody = false;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String code = stripComments(line, inBlockComment).trim();
+            if (!inBody) {
+                String[] statements = code.split(";");
+                for (int i = 0; i < statements.length && !inBody; ++i) {
+                    String statement = statements[i].trim();
+                    if (statement.startsWith("import ")) {
+                        String name = statement.substring("import ".length()).trim();
+                        if (!name.startsWith("static") && name.replaceAll("\\s", "").endsWith(".*")) {
+                            name = name.replaceAll("\\s", "");
+                            packages.add(name.substring(0, name.length() - 2));
+                        } else {
+                            imports.add(getAlternatives(name));
+                            imported.add(name.substring(name.lastIndexOf('.') + 1));
+                        }
+                    } else if (!statement.isEmpty() && !statement.startsWith("package ")) {
+                        // The type declaration or its annotations, read along with the rest of the line
+                        inBody = true;
+                        code = String.join(";", List.of(statements).subList(i, statements.length));
+                    }
+                }
+            }
+            if (inBody) {
+                Matcher matcher = NAME.matcher(STRING_LITERAL.matcher(code).replaceAll("\"\""));
+                while (matcher.find()) {
+                    names.add(matcher.group());
+                }
+            }
+        }
+
+        Set<String> simpleNames = new LinkedHashSet<>();
+        for (String name : names) {
+            int dot = name.indexOf('.');
+            simpleNames.add(dot == -1 ? name : name.substring(0, dot));
+            if (dot != -1) {
+                imports.add(getAlternatives(name));
+            }
+        }
+        for (String name : simpleNames) {
+            if (!imported.contains(name)) {
+                // A name without a package stands for a class of the file's own, see resolveModule
+                List<String> alternatives = new ArrayList<>(List.of(name));
+                packages.forEach(p -> alternatives.add(p + "." + name));
+                imports.add(alternatives);
+            }
+        }
+        return imports;
+    }
+
+    /**
+     * {@code a.b.C.D} may be the nested class {@code D} of {@code a/b/C.java}, and {@code static a.b.C.m} a member of
+     * {@code C}, so shorter names are tried until a single segment is left.
+     */
+    private static List<String> getAlternatives(String name) {
+        name = name.replaceFirst("^static\\s+", "").replaceAll("\\s", "");
+        List<String> alternatives = new ArrayList<>();
+        if (name.endsWith(".*")) {
+            alternatives.add(name);
+            name = name.substring(0, name.length() - 2);
+        }
+        while (name.contains(".")) {
+            alternatives.add(name);
+            name = name.substring(0, name.lastIndexOf('.'));
+        }
+        return alternatives;
+    }
+
+    @Override
+    protected List<String> resolveModule(ModuleIndex index, String filePath, String module) {
+        if (module.endsWith(".*")) {
+            return index.getPackage(module.substring(0, module.length() - 2));
+        }
+        if (!module.contains(".")) {
+            // Imports always name a package, so this is a class of the same package
+            String directory = new File(filePath).getParent();
+            return index.getModule(module).stream().filter(path -> Objects.equals(new File(path).getParent(), directory)).toList();
+        }
+        return index.getModule(module);
+    }
+}
@@ -0,0 +1,143 @@
+package com.mizookie.packagemapper.resolver;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Resolve JavaScript and TypeScript files from their {@code import}, {@code export ... from} and {@code require}
+ * statements. Reading stops at the first other statement, or at an {@code export { ... }} of the file's own names.
+ * Only relative specifiers are resolved, packages and path aliases are outside the repository or depend on the
+ * bundler configuration.
+ */
+public class JavaScriptImportResolver extends ImportResolver {
+    public static final Set<String> EXTENSIONS = Set.of(".js", ".jsx", ".mjs", ".cjs", ".ts", ".tsx", ".mts", ".cts");
+    private static final List<String> RESOLVED_EXTENSIONS = List.of(".ts", ".tsx", ".d.ts", ".js", ".jsx", ".mjs", ".cjs", ".json");
+    private static final Pattern SPECIFIER = Pattern.compile("(?:\\bfrom|^import|\\brequire\\s*\\()\\s*['\"]([^'\"]+)['\"]");
+    private static final Pattern IMPORT = Pattern.compile("^(?:import\\b|export\\s*(?:\\*|\\{|type\\s*\\{)).*");
+    private static final Pattern DIRECTIVE = Pattern.compile("^['\"]use \\w+['\"];?$");
+
+    public JavaScriptImportResolver() {
+        this(SourceReader.FILE_SYSTEM);
+    }
+
+    public JavaScriptImportResolver(SourceReader sourceReader) {
+        super(sourceReader);
+    }
+
+    @Override
+    protected ModuleIndex createIndex(List<String> filePaths) {
+        // Any file can be imported, e.g. styles, images or JSON, and specifiers are paths so modules aren't needed
+        return new ModuleIndex(filePaths);
+    }
+
+    @Override
+    protected List<List<String>> extractImports(BufferedReader reader) throws IOException {
+        List<List<String>> imports = new ArrayList<>();
+        boolean[] inBlockComment = {false};
+        // Statement split over several lines, and how many of its braces are still open
+        StringBuilder statement = null;
+        int depth = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String code = stripComments(line, inBlockComment).trim();
+            if (statement != null) {
+                statement.append(' ').append(code);
+                depth += countBraces(code);
+                // Semicolons are optional, so a statement ends with its braces or its specifier, not at the next ';'
+                if (depth > 0) {
+                    continue;
+                }
+                boolean found = addImports(imports, statement);
+                if (!found && code.endsWith("from")) {
+                    continue;
+                }
+                if (!found && isBareExport(statement)) {
+                    break;
+                }
+                statement = null;
+                continue;
+            }
+            if (code.isEmpty() || DIRECTIVE.matcher(code).matches()) {
+                continue;
+            }
+            if (IMPORT.matcher(code).matches()) {
+                if (addImports(imports, code)) {
+                    continue;
+                }
+                depth = countBraces(code);
+                if (depth > 0 || code.endsWith("from")) {
+                    // Named imports are often split over several lines
+                    statement = new StringBuilder(code);
+                } else if (isBareExport(code)) {
+                    break;
+                }
+            } else if (!code.contains("require") || !addImports(imports, code)) {
+                break;
+            }
+        }
+        return imports;
+    }
+
+    private static int countBraces(String code) {
+        int depth = 0;
+        for (int i = 0; i < code.length(); ++i) {
+            char c = code.charAt(i);
+            depth += c == '{' ? 1 : c == '}' ? -1 : 0;
+        }
+        return depth;
+    }
+
+    // Exports of what the file declares rather than of another module, usually at its end
+    private static boolean isBareExport(CharSequence statement) {
+        return statement.toString().startsWith("export");
+    }
+
+    private static boolean addImports(List<List<String>> imports, CharSequence statement) {
+        Matcher matcher = SPECIFIER.matcher(statement);
+        boolean found = false;
+        while (matcher.find()) {
+            imports.add(List.of(matcher.group(1)));
+            found = true;
+        }
+        return found;
+    }
+
+    @Override
+    protected List<String> resolveModule(ModuleIndex index, String filePath, String module) {
+        if (!module.startsWith("./") && !module.startsWith("../")) {
+            return List.of();
+        }
+        Path parent = Paths.get(filePath).getParent();
+        if (parent == null) {
+            return List.of();
+        }
+        String base = parent.resolve(module).normalize().toString();
+        List<String> candidates = new ArrayList<>();
+        candidates.add(base);
+        for (String extension : RESOLVED_EXTENSIONS) {
+            candidates.add(base + extension);
+        }
+        for (String extension : RESOLVED_EXTENSIONS) {
+            candidates.add(Paths.get(base, "index" + extension).toString());
+        }
+        // TypeScript sources import each other with the extension of the compiled file
+        String withoutExtension = base.replaceFirst("\\.(m|c)?jsx?$", "");
+        if (!withoutExtension.equals(base)) {
+            candidates.add(withoutExtension + ".ts");
+            candidates.add(withoutExtension + ".tsx");
+        }
+        for (String candidate : candidates) {
+            if (index.contains(candidate)) {
+                return List.of(candidate);
+            }
+        }
+        return List.of();
+    }
+}
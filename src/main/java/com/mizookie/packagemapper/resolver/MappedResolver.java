@@ -0,0 +1,167 @@
+package com.mizookie.packagemapper.resolver;
+
+import com.mizookie.packagemapper.utils.FileService;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Finds the same references as {@link NaiveResolver} without ever decoding the file. Each file is memory-mapped and
+ * its identifiers are read straight from the bytes and looked up in a {@link ByteNameTable}, so nothing is allocated
+ * per line or per token.
+ * <p>
+ * Meant for ASCII and UTF-8 sources: bytes of multi-byte UTF-8 characters are never ASCII, so they can simply be
+ * treated as separators, just like {@code \b} does for non-ASCII characters.
+ * <p>
+ * A file name that isn't a plain identifier (e.g. {@code app.test} or {@code my-file}) can't be one token, so those
+ * names are matched from the same bytes by a {@link BytePatternTable}, at the ends of tokens. Unlike the naive
+ * resolver, names with other regular expression metacharacters (e.g. {@code [id]} or {@code c++}) are never matched.
+ */
+public class MappedResolver implements Resolver {
+    // Files bigger than this are scanned in several mappings
+    private static final long MAX_MAPPING_SIZE = 1L << 30;
+    private List<String> indexedFilePaths;
+    private Index index;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final SourceReader sourceReader;
+
+    public MappedResolver() {
+        this(SourceReader.FILE_SYSTEM);
+    }
+
+    public MappedResolver(SourceReader sourceReader) {
+        this.sourceReader = sourceReader;
+    }
+
+    private Index getIndex(List<String> filePaths) {
+        lock.lock();
+        try {
+            if (filePaths != indexedFilePaths) {
+                index = new Index(filePaths);
+                indexedFilePaths = filePaths;
+            }
+            return index;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static boolean isWordByte(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') || b == '_';
+    }
+
+    /**
+     * Look up every identifier of {@code buffer} in {@code table}, try {@code patterns} at both ends of each, and set
+     * the index of the names found.
+     */
+    static void scan(ByteBuffer buffer, ByteNameTable table, BytePatternTable patterns, BitSet found) {
+        int limit = buffer.limit();
+        int start = -1, hash = 0;
+        boolean matchPatterns = !patterns.isEmpty();
+        for (int i = 0; i < limit; ++i) {
+            byte b = buffer.get(i);
+            if (isWordByte(b)) {
+                if (start == -1) {
+                    start = i;
+                    hash = 0;
+                    if (matchPatterns) {
+                        patterns.matchAt(buffer, i, found);
+                    }
+                }
+                hash = ByteNameTable.nextHash(hash, b);
+            } else if (start != -1) {
+                int id = table.get(buffer, start, i - start, hash);
+                if (id != -1) {
+                    found.set(id);
+                }
+                if (matchPatterns) {
+                    patterns.matchAt(buffer, i, found);
+                }
+                start = -1;
+            }
+        }
+        if (start != -1) {
+            int id = table.get(buffer, start, limit - start, hash);
+            if (id != -1) {
+                found.set(id);
+            }
+        }
+    }
+
+    private static boolean isIdentifier(String name) {
+        if (name.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); ++i) {
+            char c = name.charAt(i);
+            if (c >= 0x80 || !isWordByte((byte) c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public List<String> solve(List<String> filePaths, String filePath) throws IOException {
+        Index currentIndex = getIndex(filePaths);
+        BitSet found = new BitSet(currentIndex.names.size());
+        if (sourceReader == SourceReader.FILE_SYSTEM) {
+            try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+                long size = channel.size();
+                for (long position = 0; position < size; position += MAX_MAPPING_SIZE) {
+                    scan(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAX_MAPPING_SIZE, size - position)),
+                            currentIndex.table, currentIndex.patterns, found);
+                }
+            }
+        } else {
+            // Not a file on disk, e.g. a blob of the git object database
+            scan(sourceReader.readAllBytes(filePath), currentIndex.table, currentIndex.patterns, found);
+        }
+
+        ArrayList<String> results = new ArrayList<>();
+        found.stream().forEach(id -> {
+            for (String path : currentIndex.paths.get(id)) {
+                if (!path.equals(filePath)) {
+                    results.add(path);
+                }
+            }
+        });
+        return results;
+    }
+
+    private static class Index {
+        final List<String> names = new ArrayList<>();
+        final List<List<String>> paths = new ArrayList<>();
+        final ByteNameTable table;
+        // Names that aren't identifiers
+        final BytePatternTable patterns;
+
+        Index(List<String> filePaths) {
+            Map<String, List<String>> pathsByName = new LinkedHashMap<>();
+            for (String path : filePaths) {
+                pathsByName.computeIfAbsent(FileService.getFileNameWithoutExtension(path), k -> new ArrayList<>()).add(path);
+            }
+            pathsByName.forEach((name, namePaths) -> {
+                names.add(name);
+                paths.add(namePaths);
+            });
+            table = new ByteNameTable(names);
+            List<Integer> irregularNames = new ArrayList<>();
+            for (int id = 0; id < names.size(); ++id) {
+                if (!isIdentifier(names.get(id)) && BytePatternTable.isMatchable(names.get(id))) {
+                    irregularNames.add(id);
+                }
+            }
+            patterns = new BytePatternTable(names, irregularNames);
+        }
+    }
+}
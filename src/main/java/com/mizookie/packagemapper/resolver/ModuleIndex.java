@@ -0,0 +1,78 @@
+package com.mizookie.packagemapper.resolver;
+
+import com.mizookie.packagemapper.utils.FileService;
+
+import java.util.*;
+
+/**
+ * Index of the source files of one language, used by {@link ImportResolver}s to map module names to files.
+ * A file {@code src/com/foo/Bar.java} is registered under every dotted suffix of its path ({@code Bar},
+ * {@code foo.Bar}, {@code com.foo.Bar}, ...) since where the source root starts isn't known. The directory it is in
+ * is registered as a package the same way.
+ */
+public class ModuleIndex {
+    private final Set<String> files = new HashSet<>();
+    private final Map<String, List<String>> modules = new HashMap<>();
+    private final Map<String, List<String>> packages = new HashMap<>();
+
+    /**
+     * Index only the paths of the files, for languages which import files by path
+     */
+    public ModuleIndex(List<String> filePaths) {
+        files.addAll(filePaths);
+    }
+
+    /**
+     * @param filePaths      all files of the repository
+     * @param extensions     extensions of the files to index, e.g. {@code .java}
+     * @param packageFileName name of the file that stands for its directory (e.g. {@code __init__.py}), or {@code null}
+     */
+    public ModuleIndex(List<String> filePaths, Set<String> extensions, String packageFileName) {
+        for (String filePath : filePaths) {
+            if (!extensions.contains(FileService.getFileExtension(filePath))) {
+                continue;
+            }
+            files.add(filePath);
+            String[] segments = filePath.split("[/\\\\]");
+            if (segments.length < 2) {
+                continue;
+            }
+            String fileName = segments[segments.length - 1];
+            List<String> directory = new ArrayList<>(Arrays.asList(segments).subList(0, segments.length - 1));
+            directory.removeIf(String::isEmpty);
+            List<String> module = new ArrayList<>(directory);
+            if (!fileName.equals(packageFileName)) {
+                module.add(FileService.getFileNameWithoutExtension(fileName));
+            }
+            addSuffixes(modules, module, filePath);
+            addSuffixes(packages, directory, filePath);
+        }
+    }
+
+    private static void addSuffixes(Map<String, List<String>> map, List<String> segments, String filePath) {
+        StringBuilder key = new StringBuilder();
+        for (int i = segments.size() - 1; i >= 0; --i) {
+            key.insert(0, segments.get(i));
+            map.computeIfAbsent(key.toString(), k -> new ArrayList<>()).add(filePath);
+            key.insert(0, '.');
+        }
+    }
+
+    public boolean contains(String filePath) {
+        return files.contains(filePath);
+    }
+
+    /**
+     * Files whose dotted path ends with {@code name}
+     */
+    public List<String> getModule(String name) {
+        return modules.getOrDefault(name, List.of());
+    }
+
+    /**
+     * Files directly in a directory whose dotted path ends with {@code name}
+     */
+    public List<String> getPackage(String name) {
+        return packages.getOrDefault(name, List.of());
+    }
+}
@@ -3,144 +3,180 @@ package com.mizookie.packagemapper.resolver;
 import com.mizookie.packagemapper.utils.FileService;
 
 import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.Lock;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
 
-public class NaiveResolver {
-    static private int N;
-    private final ArrayList<Task> threads = new ArrayList<>();
+/**
+ * Checks every line of a file against the name of every other file. The candidate files are split between the
+ * threads of a work-stealing pool, halving the range until each task is small enough, so busy threads don't hold up
+ * idle ones. A task left with a single candidate and a long file splits the lines instead.
+ */
+public class NaiveResolver implements Resolver {
+    // Maximum number of (candidate, line) checks done by a task before it splits
+    private static final int THRESHOLD = 4096;
+    private final ForkJoinPool pool;
+    private final SourceReader sourceReader;
+    private final ResolverMetrics metrics;
+    // Patterns are compiled once per list of files
+    private List<String> compiledFilePaths;
+    private Pattern[] patterns;
+    // Guards the patterns, compiled by whichever file of an analysis is resolved first
+    private final ReentrantLock lock = new ReentrantLock();
 
-    public NaiveResolver(int numberOfThreads) {
-        N = numberOfThreads;
-        for (int i = 0; i < N; ++i) {
-            Task t = new Task(i);
-            threads.add(t);
-            t.start();
-        }
+    public NaiveResolver(ForkJoinPool pool) {
+        this(pool, SourceReader.FILE_SYSTEM);
+    }
+
+    public NaiveResolver(ForkJoinPool pool, SourceReader sourceReader) {
+        this(pool, sourceReader, ResolverMetrics.NONE);
     }
 
-    public synchronized List<String> solve(List<String> filePaths, String filePath) throws FileNotFoundException {
-        // setup
-        Task.filePaths = filePaths;
-        Task.results = new ArrayList<>();
-        int numberOfFiles = Task.filePaths.size();
-        int division = (int) Math.ceil(numberOfFiles / (1.0 * N));
-        for (int i = 0; i < N; ++i) {
-            Task t = threads.get(i);
-            t.setStartPoint(i * division);
-            t.setEndPoint((division == 1) ?
-                    Math.min(numberOfFiles + 1, i + 1) % (numberOfFiles + 1) - 1
-                    : Math.min(numberOfFiles, (i + 1) * division) - 1);
+    public NaiveResolver(ForkJoinPool pool, SourceReader sourceReader, ResolverMetrics metrics) {
+        this.pool = pool;
+        this.sourceReader = sourceReader;
+        this.metrics = metrics;
+    }
+
+    private Pattern[] getPatterns(List<String> filePaths) {
+        lock.lock();
+        try {
+            if (filePaths != compiledFilePaths) {
+                patterns = new Pattern[filePaths.size()];
+                for (int i = 0; i < patterns.length; ++i) {
+                    patterns[i] = Pattern.compile(String.format(".*\\b(%s)\\b.*", FileService.getFileNameWithoutExtension(filePaths.get(i))));
+                }
+                compiledFilePaths = filePaths;
+            }
+            return patterns;
+        } finally {
+            lock.unlock();
         }
+    }
 
-        // Producer stuff here
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+    @Override
+    public List<String> solve(List<String> filePaths, String filePath) throws IOException {
+        long start = System.nanoTime();
+        ArrayList<String> lines = new ArrayList<>();
+        CountingInputStream in = new CountingInputStream(sourceReader.open(filePath));
+        // Decoded with the default charset, like SourceReader.openReader
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in))) {
             String line;
             while ((line = reader.readLine()) != null) {
-                Task.producerSemaphore.acquire(N);
-                Task.currentFilePath = filePath;
-                Task.line = line;
-                Task.readerSemaphore.release(N);
+                lines.add(line);
             }
-            Task.producerSemaphore.acquire(N);
-            Task.line = null;
-            Task.currentFilePath = null;
-            Task.readerSemaphore.release(N);
-            return Task.results;
-        } catch (Exception e) {
-            throw new RuntimeException(e);
         }
+        List<String> results = pool.invoke(new CandidateTask(filePaths, getPatterns(filePaths), filePath, lines, 0, filePaths.size()));
+        metrics.fileSolved(lines.size(), in.count, System.nanoTime() - start);
+        return results;
     }
 
-    // Reader - see analyse()
-    public class Task extends Thread {
-        static List<String> results = new ArrayList<>();
-        static List<String> filePaths;
-        static String currentFilePath;
-        static Semaphore readerSemaphore = new Semaphore(0);
-        static Semaphore producerSemaphore = new Semaphore(N);
-        static Semaphore resultLock = new Semaphore(1);
-        static Lock doneProcessingLock = new ReentrantLock();
-        static String line;
-        static int[] doneProcessing = {0, 0};
-        static Condition[] doneProcessingConditions = {doneProcessingLock.newCondition(), doneProcessingLock.newCondition()};
-        ArrayList<Integer> range = new ArrayList<>();
-        private int id;
-        private int startPoint, endPoint, found = 0, round = 1;
-
-        Task(int id) {
-            this.id = id;
+    // Counts the bytes read through it
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
         }
 
-        public void run() {
-            String line, currentFileName = null;
-            while (true) {
-                try {
-                    readerSemaphore.acquire();
-                    // New line available
-                    if (Task.currentFilePath != null && !Task.currentFilePath.equals(currentFileName)) {
-                        initState();
-                    }
-                    currentFileName = Task.currentFilePath; // Copy current file name
-                    line = Task.line; // Copy line
-                    producerSemaphore.release();
-                    if (line != null) {
-                        processLine(line, currentFileName);
-                    }
-
-                    doneProcessingLock.lock();
-                    doneProcessing[round] += 1;
-                    while (doneProcessing[round] < N) {
-                        doneProcessingConditions[round].await();
-                        doneProcessing[round] = N;
-                    }
-                    doneProcessingConditions[round].signalAll();
-                    doneProcessing[round] = 0;
-                    doneProcessingLock.unlock();
-                    round = (round + 1) % 2;
-                } catch (InterruptedException e) {
-                    throw new RuntimeException(e);
-                }
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                ++count;
             }
+            return b;
         }
 
-        private void initState() {
-            found = 0;
-            range = new ArrayList<>();
-            for (int i = startPoint; i <= endPoint; ++i) {
-                range.add(i);
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
             }
+            return n;
         }
+    }
 
-        private void processLine(String line, String currentFilePath) throws InterruptedException {
-            ArrayList<String> temp = new ArrayList<>();
-            for (int i = found; i < range.size(); ++i) {
-                String filePath = filePaths.get(range.get(i));
+    /**
+     * Find the candidates within [start, end) that are mentioned in any of the lines.
+     */
+    private static class CandidateTask extends RecursiveTask<List<String>> {
+        private final List<String> filePaths;
+        private final Pattern[] patterns;
+        private final String currentFilePath;
+        private final List<String> lines;
+        private final int start, end;
+
+        CandidateTask(List<String> filePaths, Pattern[] patterns, String currentFilePath, List<String> lines, int start, int end) {
+            this.filePaths = filePaths;
+            this.patterns = patterns;
+            this.currentFilePath = currentFilePath;
+            this.lines = lines;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected List<String> compute() {
+            if (end - start > 1 && (long) (end - start) * lines.size() > THRESHOLD) {
+                int mid = (start + end) >>> 1;
+                CandidateTask left = new CandidateTask(filePaths, patterns, currentFilePath, lines, start, mid);
+                left.fork();
+                List<String> results = new ArrayList<>(new CandidateTask(filePaths, patterns, currentFilePath, lines, mid, end).compute());
+                results.addAll(left.join());
+                return results;
+            }
+
+            ArrayList<String> results = new ArrayList<>();
+            for (int i = start; i < end; ++i) {
+                String filePath = filePaths.get(i);
                 if (!filePath.equals(currentFilePath)
-                        && line.matches(String.format(".*\\b(%s)\\b.*", FileService.getFileNameWithoutExtension(filePath)))) {
-                    temp.add(filePaths.get(range.get(i)));
-                    Collections.swap(range, found, i);
-                    found += 1;
+                        && new LineTask(patterns[i], lines, 0, lines.size()).compute()) {
+                    results.add(filePath);
                 }
             }
-            resultLock.acquire();
-            results.addAll(temp);
-            resultLock.release();
+            return results;
         }
+    }
+
+    /**
+     * Check whether any line within [start, end) matches the pattern.
+     */
+    private static class LineTask extends RecursiveTask<Boolean> {
+        private final Pattern pattern;
+        private final List<String> lines;
+        private final int start, end;
 
-        public void setStartPoint(int startPoint) {
-            this.startPoint = startPoint;
+        LineTask(Pattern pattern, List<String> lines, int start, int end) {
+            this.pattern = pattern;
+            this.lines = lines;
+            this.start = start;
+            this.end = end;
         }
 
-        public void setEndPoint(int endPoint) {
-            this.endPoint = endPoint;
+        @Override
+        protected Boolean compute() {
+            if (end - start > THRESHOLD) {
+                int mid = (start + end) >>> 1;
+                LineTask left = new LineTask(pattern, lines, start, mid);
+                left.fork();
+                boolean found = new LineTask(pattern, lines, mid, end).compute();
+                return left.join() || found;
+            }
+            for (int i = start; i < end; ++i) {
+                if (pattern.matcher(lines.get(i)).matches()) {
+                    return true;
+                }
+            }
+            return false;
         }
     }
 }
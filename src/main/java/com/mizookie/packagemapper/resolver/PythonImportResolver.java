@@ -0,0 +1,148 @@
+package com.mizookie.packagemapper.resolver;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Resolve Python files from their {@code import} and {@code from ... import} statements, relative ones included.
+ * Docstrings and comments are skipped and reading stops at the first top level {@code def}, {@code class},
+ * decorator or {@code if __name__} block. Imports guarded by {@code try} or {@code if} before that are still found.
+ */
+public class PythonImportResolver extends ImportResolver {
+    private static final Set<String> EXTENSIONS = Set.of(".py", ".pyi");
+    private static final String PACKAGE_FILE_NAME = "__init__.py";
+
+    public PythonImportResolver() {
+        this(SourceReader.FILE_SYSTEM);
+    }
+
+    public PythonImportResolver(SourceReader sourceReader) {
+        super(sourceReader);
+    }
+
+    @Override
+    protected ModuleIndex createIndex(List<String> filePaths) {
+        return new ModuleIndex(filePaths, EXTENSIONS, PACKAGE_FILE_NAME);
+    }
+
+    @Override
+    protected List<List<String>> extractImports(BufferedReader reader) throws IOException {
+        List<List<String>> imports = new ArrayList<>();
+        String docstringDelimiter = null;
+        StringBuilder statement = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (docstringDelimiter != null) {
+                if (line.contains(docstringDelimiter)) {
+                    docstringDelimiter = null;
+                }
+                continue;
+            }
+            String code = stripComment(line).strip();
+            if (statement != null) {
+                statement.append(' ').append(code);
+                if (isComplete(statement)) {
+                    addImports(imports, statement.toString());
+                    statement = null;
+                }
+                continue;
+            }
+            if (code.isEmpty()) {
+                continue;
+            }
+            String delimiter = code.replaceFirst("^[rRuUbB]{0,2}", "");
+            if (delimiter.startsWith("\"\"\"") || delimiter.startsWith("'''")) {
+                delimiter = delimiter.substring(0, 3);
+                if (code.indexOf(delimiter, code.indexOf(delimiter) + 3) == -1) {
+                    docstringDelimiter = delimiter;
+                }
+                continue;
+            }
+            if (!Character.isWhitespace(line.charAt(0)) && (code.startsWith("def ") || code.startsWith("async def ")
+                    || code.startsWith("class ") || code.startsWith("@") || code.startsWith("if __name__"))) {
+                break;
+            }
+            if (code.startsWith("import ") || code.startsWith("from ")) {
+                statement = new StringBuilder(code);
+                if (isComplete(statement)) {
+                    addImports(imports, code);
+                    statement = null;
+                }
+            }
+        }
+        return imports;
+    }
+
+    private static String stripComment(String line) {
+        int comment = line.indexOf('#');
+        return comment == -1 ? line : line.substring(0, comment);
+    }
+
+    private static boolean isComplete(CharSequence statement) {
+        String code = statement.toString();
+        return !code.endsWith("\\") && (code.indexOf('(') == -1 || code.indexOf(')') != -1);
+    }
+
+    private static void addImports(List<List<String>> imports, String statement) {
+        statement = statement.replaceAll("[\\\\()]", " ").strip();
+        if (statement.startsWith("import ")) {
+            for (String name : getNames(statement.substring("import ".length()))) {
+                imports.add(List.of(name));
+            }
+            return;
+        }
+        int keyword = statement.indexOf(" import ");
+        if (keyword == -1) {
+            return;
+        }
+        String module = statement.substring("from ".length(), keyword).strip();
+        for (String name : getNames(statement.substring(keyword + " import ".length()))) {
+            if (name.equals("*")) {
+                imports.add(List.of(module));
+            } else {
+                // The name is either a submodule or something defined in the module
+                imports.add(List.of(module.endsWith(".") ? module + name : module + "." + name, module));
+            }
+        }
+    }
+
+    private static List<String> getNames(String names) {
+        List<String> results = new ArrayList<>();
+        for (String name : names.split(",")) {
+            name = name.strip().replaceFirst("\\s+as\\s+.*$", "");
+            if (!name.isEmpty()) {
+                results.add(name);
+            }
+        }
+        return results;
+    }
+
+    @Override
+    protected List<String> resolveModule(ModuleIndex index, String filePath, String module) {
+        if (!module.startsWith(".")) {
+            return index.getModule(module);
+        }
+        // One dot is the package of the file, each additional dot goes up one package
+        int level = 0;
+        while (level < module.length() && module.charAt(level) == '.') {
+            level += 1;
+        }
+        File directory = new File(filePath).getParentFile();
+        for (int i = 1; i < level && directory != null; ++i) {
+            directory = directory.getParentFile();
+        }
+        if (directory == null) {
+            return List.of();
+        }
+        String name = module.substring(level);
+        File base = name.isEmpty() ? directory : new File(directory, name.replace('.', File.separatorChar));
+        String packageFile = new File(base, PACKAGE_FILE_NAME).getPath();
+        List<String> candidates = name.isEmpty() ? List.of(packageFile)
+                : List.of(base.getPath() + ".py", base.getPath() + ".pyi", packageFile);
+        return candidates.stream().filter(index::contains).toList();
+    }
+}
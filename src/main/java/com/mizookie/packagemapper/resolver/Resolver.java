@@ -0,0 +1,20 @@
+package com.mizookie.packagemapper.resolver;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A resolver works out which files of a repository are referenced by a given file.
+ * Implementations are expected to be thread-safe since every file of an analysis is resolved on its own thread.
+ */
+public interface Resolver {
+
+    /**
+     * Find the files within {@code filePaths} that {@code filePath} refers to.
+     *
+     * @param filePaths all files of the repository being analysed
+     * @param filePath  the file to resolve
+     * @return paths of the referenced files
+     */
+    List<String> solve(List<String> filePaths, String filePath) throws IOException;
+}
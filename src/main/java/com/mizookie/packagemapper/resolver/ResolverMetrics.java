@@ -0,0 +1,23 @@
+package com.mizookie.packagemapper.resolver;
+
+/**
+ * Receives what a resolver did for each file. Called from the threads resolving files, so implementations must be
+ * thread-safe.
+ */
+@FunctionalInterface
+public interface ResolverMetrics {
+    /**
+     * Ignores metrics, for resolvers used outside of an analysis
+     */
+    ResolverMetrics NONE = (lines, bytes, nanos) -> {
+    };
+
+    /**
+     * A file has been resolved
+     *
+     * @param lines lines read
+     * @param bytes bytes read
+     * @param nanos time spent reading and matching the file
+     */
+    void fileSolved(long lines, long bytes, long nanos);
+}
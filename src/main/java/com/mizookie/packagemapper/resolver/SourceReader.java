@@ -0,0 +1,32 @@
+package com.mizookie.packagemapper.resolver;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+
+/**
+ * Where resolvers read the content of the files they resolve from: the working tree by default, or a commit of the
+ * git object database (see {@link GitSourceReader}). Implementations must be thread-safe.
+ */
+@FunctionalInterface
+public interface SourceReader {
+    SourceReader FILE_SYSTEM = FileInputStream::new;
+
+    InputStream open(String filePath) throws IOException;
+
+    /**
+     * Open {@code filePath} as text, decoded with the default charset like {@link java.io.FileReader} does
+     */
+    default BufferedReader openReader(String filePath) throws IOException {
+        return new BufferedReader(new InputStreamReader(open(filePath)));
+    }
+
+    default ByteBuffer readAllBytes(String filePath) throws IOException {
+        try (InputStream in = open(filePath)) {
+            return ByteBuffer.wrap(in.readAllBytes());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.mizookie.packagemapper.resolver;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Bloom filter of the identifiers ({@code [a-zA-Z0-9_]+}) of a file. It tells for sure that a file doesn't mention
+ * a name, which is enough to reuse what the file was found to mention when other names are added.
+ * <p>
+ * Names that aren't identifiers can't be ruled out, since they aren't tokens.
+ */
+public class TokenFilter {
+    private static final int BITS_PER_TOKEN = 8;
+    private static final int MIN_BITS = 64;
+    private static final int MAX_BITS = 1 << 16;
+    private static final int HASHES = 3;
+    private final long[] bits;
+
+    public TokenFilter(long[] bits) {
+        this.bits = bits;
+    }
+
+    /**
+     * Build the filter of the identifiers of {@code content}, read as ASCII or UTF-8
+     */
+    public static TokenFilter of(ByteBuffer content) {
+        int[] hashes = new int[64];
+        int count = 0;
+        int limit = content.limit();
+        int hash = 0;
+        boolean inToken = false;
+        for (int i = content.position(); i <= limit; ++i) {
+            if (i < limit && isWordByte(content.get(i))) {
+                hash = inToken ? ByteNameTable.nextHash(hash, content.get(i)) : ByteNameTable.nextHash(0, content.get(i));
+                inToken = true;
+            } else if (inToken) {
+                if (count == hashes.length) {
+                    hashes = Arrays.copyOf(hashes, count * 2);
+                }
+                hashes[count++] = hash;
+                inToken = false;
+            }
+        }
+        // Sized by the distinct tokens rather than every occurrence
+        Arrays.sort(hashes, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; ++i) {
+            if (i == 0 || hashes[i] != hashes[i - 1]) {
+                hashes[distinct++] = hashes[i];
+            }
+        }
+        int size = Math.min(MAX_BITS, Math.max(MIN_BITS, Integer.highestOneBit(Math.max(1, distinct * BITS_PER_TOKEN - 1)) << 1));
+        long[] bits = new long[size / 64];
+        for (int i = 0; i < distinct; ++i) {
+            for (int k = 0; k < HASHES; ++k) {
+                int bit = index(hashes[i], k, size);
+                bits[bit >>> 6] |= 1L << bit;
+            }
+        }
+        return new TokenFilter(bits);
+    }
+
+    private static boolean isWordByte(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') || b == '_';
+    }
+
+    // Double hashing: the k-th bit of a token
+    private static int index(int hash, int k, int size) {
+        int first = hash ^ (hash >>> 16);
+        int second = (hash * 0x9E3779B9) >>> 16 | 1;
+        return (first + k * second) & (size - 1);
+    }
+
+    /**
+     * @return false if {@code name} is an identifier that the file certainly doesn't contain
+     */
+    public boolean mightContain(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length == 0) {
+            return true;
+        }
+        int hash = 0;
+        for (byte b : bytes) {
+            if (!isWordByte(b)) {
+                return true;
+            }
+            hash = ByteNameTable.nextHash(hash, b);
+        }
+        int size = bits.length * 64;
+        for (int k = 0; k < HASHES; ++k) {
+            int bit = index(hash, k, size);
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Bits of the filter, to store it. {@link #TokenFilter(long[])} builds it back.
+     */
+    public long[] getBits() {
+        return bits;
+    }
+}
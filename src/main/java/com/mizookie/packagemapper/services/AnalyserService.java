@@ -1,5 +1,7 @@
 package com.mizookie.packagemapper.services;
 
+import com.mizookie.packagemapper.dto.user.AnalysisReport;
+import com.mizookie.packagemapper.jobs.AnalysisProgress;
 import org.eclipse.jgit.api.errors.GitAPIException;
 
 import java.io.IOException;
@@ -11,7 +13,15 @@ public interface AnalyserService {
 
     void analyse(String repositoryPath, String version) throws IOException, GitAPIException, InterruptedException; // orchestrate the crawling, parsing and visualization
 
-    void analyse() throws IOException, GitAPIException, InterruptedException; // analyze all repositories
+    void analyse(String repositoryPath, String version, AnalysisProgress progress) throws IOException, GitAPIException, InterruptedException; // same, reporting the files resolved to progress
+
+    void analyse(String repositoryPath, String baseVersion, String version) throws IOException, GitAPIException, InterruptedException; // patch the graph of baseVersion with the changes up to version
+
+    void analyse(String repositoryPath, String baseVersion, String version, AnalysisProgress progress) throws IOException, GitAPIException, InterruptedException; // same, reporting the files resolved to progress
+
+    void analyse(String repositoryPath, List<String> versions, AnalysisProgress progress) throws IOException, InterruptedException; // analyse several versions in one pass, one graph each
+
+    AnalysisReport analyse() throws InterruptedException; // analyze all repositories, reporting how long each took and which failed
 
     void visualizeDemo(); // visualize the parsed data
 }
@@ -0,0 +1,49 @@
+package com.mizookie.packagemapper.services;
+
+import com.mizookie.packagemapper.jobs.AnalysisJob;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Runs analyses in the background. Submitting a commit of a repository that is already being analysed gives the job
+ * already running instead of starting another one, and submitting one that is already analysed gives a job that has
+ * already succeeded.
+ */
+@Service
+public interface AnalysisJobService {
+    /**
+     * Analyse {@code version} of the repository cloned at {@code repositoryPath}, HEAD if {@code version} is null
+     */
+    AnalysisJob submit(String repositoryPath, String version) throws IOException;
+
+    /**
+     * Same as {@link #submit(String, String)} but patching the graph of {@code baseVersion}, see
+     * {@link AnalyserService#analyse(String, String, String)}
+     */
+    AnalysisJob submit(String repositoryPath, String baseVersion, String version) throws IOException;
+
+    /**
+     * Analyse several versions of the repository cloned at {@code repositoryPath} in one job, see
+     * {@link AnalyserService#analyse(String, List, com.mizookie.packagemapper.jobs.AnalysisProgress)}. Versions already
+     * analysed, or being analysed by another job, are left out of the job, and single commit jobs asking for a version
+     * of the batch are given the batch
+     */
+    AnalysisJob submit(String repositoryPath, List<String> versions) throws IOException;
+
+    /**
+     * Get a running job or one that finished recently, {@code null} if there is none with that id
+     */
+    AnalysisJob getJob(String id);
+
+    Collection<AnalysisJob> getJobs();
+
+    /**
+     * Cancel a job, see {@link AnalysisJob#cancel}
+     *
+     * @return whether the job was still running or queued
+     */
+    boolean cancel(String id);
+}
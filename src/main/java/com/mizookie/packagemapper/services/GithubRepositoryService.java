@@ -1,10 +1,14 @@
 package com.mizookie.packagemapper.services;
 
+import com.mizookie.packagemapper.resolver.GitSourceReader;
+import com.mizookie.packagemapper.visitors.SourceFileFilter;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.diff.DiffEntry;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 /**
  * This interface represents a service for interacting with GitHub repositories.
@@ -22,6 +26,12 @@ public interface GithubRepositoryService {
      */
     String getCurrentCommit(String repositoryName) throws GitAPIException, IOException;
 
+    /**
+     * Get the id of the commit {@code version} of {@code repositoryName} points to, e.g. for a branch or a tag. HEAD if
+     * {@code version} is null. This doesn't touch the working tree
+     */
+    String resolveCommit(String repositoryName, String version) throws IOException;
+
     /**
      * Get commit version of {@code repositoryName} based on {@code version} which could be limited by {@code limit}.
      * If you don't want to limit, then just set limit to be the maximum integer number
@@ -30,6 +40,37 @@ public interface GithubRepositoryService {
 
     void checkoutCommit(String repositoryName, String version) throws IOException, GitAPIException;
 
+    /**
+     * Get the files that changed between {@code fromVersion} and {@code toVersion} of {@code repositoryName}, with renames detected.
+     * This doesn't touch the working tree
+     */
+    List<DiffEntry> getChangedFiles(String repositoryName, String fromVersion, String toVersion) throws IOException;
+
+    /**
+     * Get the blob id of every file in {@code version} of {@code repositoryName}, keyed by the file's path within the repository.
+     * This doesn't touch the working tree
+     */
+    Map<String, String> getBlobIds(String repositoryName, String version) throws IOException;
+
+    /**
+     * Open {@code version} of the repository cloned at {@code repositoryPath} for reading, without checking it out.
+     * Only the files {@code filter} keeps are listed. The reader has to be closed
+     */
+    GitSourceReader openSources(String repositoryPath, String version, SourceFileFilter filter) throws IOException;
+
+    /**
+     * Open blobs of {@code repositoryName} for reading, each named by its key in {@code blobIds}. The reader has to be
+     * closed
+     */
+    GitSourceReader openBlobs(String repositoryName, Map<String, String> blobIds) throws IOException;
+
+    /**
+     * Get the commits reachable from {@code toVersion} but not from {@code fromVersion}, oldest first, like
+     * {@code git log --reverse fromVersion..toVersion}. Every ancestor of {@code toVersion} if {@code fromVersion} is
+     * null. This doesn't touch the working tree
+     */
+    List<String> getCommits(String repositoryName, String fromVersion, String toVersion) throws IOException;
+
     /**
      * Perform {@code git fetch} for all remote branches
      */
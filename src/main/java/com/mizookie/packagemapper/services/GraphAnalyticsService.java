@@ -0,0 +1,30 @@
+package com.mizookie.packagemapper.services;
+
+import com.mizookie.packagemapper.dto.user.GraphAnalyticsReport;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Structural analytics of stored graphs (see {@link GraphAnalyticsReport}), stored as JSON next to the graph so the
+ * algorithms run once per version rather than on every request.
+ */
+public interface GraphAnalyticsService {
+    /**
+     * Work out the analytics of the graph stored as {@code fileName} and store them as {@code fileName.analytics.json},
+     * replacing older ones
+     *
+     * @param fileName file name with no extension specified
+     * @throws java.io.FileNotFoundException if the graph hasn't been stored
+     */
+    GraphAnalyticsReport computeAnalytics(String fileName) throws IOException;
+
+    /**
+     * Get the file the analytics of the graph stored as {@code fileName} are in, working them out first if they never
+     * were or the graph was stored again since
+     *
+     * @param fileName file name with no extension specified
+     * @throws java.io.FileNotFoundException if the graph hasn't been stored
+     */
+    Path getAnalyticsFile(String fileName) throws IOException;
+}
@@ -1,12 +1,17 @@
 package com.mizookie.packagemapper.services;
 
 
+import com.mizookie.packagemapper.graph.CsrGraph;
+import com.mizookie.packagemapper.graph.GraphBuilder;
+import com.mizookie.packagemapper.graph.GraphDiff;
+import com.mizookie.packagemapper.graph.GraphRollup;
+import com.mizookie.packagemapper.graph.SvgRenderer;
 import org.jgrapht.Graph;
 import org.jgrapht.graph.DefaultEdge;
 import org.springframework.stereotype.Service;
 
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.Writer;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -19,26 +24,102 @@ public interface GraphService {
     // Testing Overloading
     void setDependencyMap(Map<String, List<String>> classesMap);
 
-    // Add a dependency between two classes
+    // Add a dependency between two classes. Analyses use their own builder from newGraphBuilder() instead
     void addEdge(String source, String target);
 
-    // Display the graph
+    /**
+     * Create a builder for the graph of one analysis. Edges can be added to it from any number of threads
+     */
+    GraphBuilder newGraphBuilder();
+
+    /**
+     * Draw the dependency map as {@code repositoryName.png}, or as {@code repositoryName.svg} if it has more vertices
+     * or edges than {@code graph.render.max-vertices} and {@code graph.render.max-edges}, rolled up if needed (see
+     * {@link #getRenderer})
+     */
     void displayGraph(String repositoryName);
 
+    /**
+     * Lay out the paths of the graph stored as {@code fileName} starting with {@code prefix} for drawing. Without a {@code level}, files are
+     * rolled up into directories (see {@link GraphRollup}) only as far as needed for the picture to have at most
+     * {@code graph.render.max-vertices} vertices and {@code graph.render.max-edges} edges
+     *
+     * @param fileName file name with no extension specified
+     * @param prefix   paths to draw, all of them if empty
+     * @param level    level to roll up to, or null to pick one
+     * @param tile     part of the picture to draw, or null for the whole of it
+     * @throws IllegalArgumentException       if what would be drawn is still over the limits
+     * @throws java.io.FileNotFoundException if the graph hasn't been stored
+     */
+    SvgRenderer getRenderer(String fileName, String prefix, Integer level, SvgRenderer.Tile tile) throws IOException;
+
     /**
      * Get all vertices in a graph
      */
     Set<String> getVertices();
 
     /**
-     * Save graph as .gv file. The file will be stored with the name {@code s_v.gv}
+     * Save graph in the binary format (see {@link com.mizookie.packagemapper.graph.BinaryGraph}). The file will be
+     * stored with the name {@code s_v.pmg}, along with {@code s_v.gv} if DOT export is enabled
      */
     void serializeGraph(String s, String v) throws IOException;
 
     /**
-     * Get stored file. fileName is a .gv file but don't specify the .gv part
+     * Same as {@link #serializeGraph(String, String)} but for {@code graph} instead of the dependency map
+     */
+    void serializeGraph(Graph<String, DefaultEdge> graph, String s, String v) throws IOException;
+
+    /**
+     * Get stored file. fileName is a .pmg file but don't specify the .pmg part. Graphs stored before the binary
+     * format only have a .gv file, which is imported instead and converted. The graph returned is a new copy that
+     * can be modified; use {@link #getCsrGraph(String)} to only read it
+     *
+     * @param fileName file name with no extension specified
+     * @throws java.io.FileNotFoundException if the graph hasn't been stored
+     */
+    Graph<String, DefaultEdge> importGraph(String fileName) throws IOException;
+
+    /**
+     * Same as {@link #importGraph(String)} but in the compact read-only representation. Recently used graphs are
+     * kept in memory, so this is shared rather than copied
+     *
+     * @param fileName file name with no extension specified
+     * @throws java.io.FileNotFoundException if the graph hasn't been stored
+     */
+    CsrGraph getCsrGraph(String fileName) throws IOException;
+
+    /**
+     * Whether a graph is stored as {@code fileName}, in the binary format or as a .gv file
+     *
+     * @param fileName file name with no extension specified
+     */
+    boolean hasGraph(String fileName);
+
+    /**
+     * Same as {@link #getCsrGraph(String)} but with files collapsed into their directory {@code level} directories
+     * deep, see {@link GraphRollup}. Rollups are kept in memory like graphs, until the graph is stored again
      *
      * @param fileName file name with no extension specified
+     * @throws java.io.FileNotFoundException if the graph hasn't been stored
+     */
+    GraphRollup getRollup(String fileName, int level) throws IOException;
+
+    /**
+     * Get what changed from the graph stored as {@code fromFileName} to the one stored as {@code toFileName}. Diffs
+     * are kept in memory like graphs, until either graph is stored again
+     *
+     * @throws java.io.FileNotFoundException if either graph hasn't been stored
+     */
+    GraphDiff getDiff(String fromFileName, String toFileName) throws IOException;
+
+    /**
+     * Get the number of graphs kept in memory, their estimated size, hits, misses and evictions since start up, and
+     * the same for rollups and diffs
+     */
+    Map<String, Object> getCacheStats();
+
+    /**
+     * Write {@code graph} in the DOT format
      */
-    Graph<String, DefaultEdge> importGraph(String fileName) throws FileNotFoundException;
+    void exportDot(Graph<String, DefaultEdge> graph, Writer writer);
 }
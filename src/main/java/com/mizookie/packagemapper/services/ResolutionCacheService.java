@@ -0,0 +1,41 @@
+package com.mizookie.packagemapper.services;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache of resolution results shared by every analysis. A result is keyed by the git blob id of the resolved file
+ * and a fingerprint of the file names it was resolved against, so byte-identical files are only resolved once
+ * across versions and branches. A result still holds for other names when the file doesn't mention the names that
+ * were added.
+ */
+public interface ResolutionCacheService {
+    /**
+     * Fingerprint of the names of {@code filePaths} as seen by the resolver {@code resolverType}
+     */
+    String fingerprint(String resolverType, Collection<String> filePaths);
+
+    /**
+     * Get the names (file names without extension) referenced by the blob, or {@code null} if it isn't cached
+     */
+    List<String> get(String blobId, String fingerprint);
+
+    /**
+     * Cache the names referenced by the blob. {@code content}, the bytes the names were found in, tells which names
+     * the blob can't mention when it is asked for other names.
+     */
+    void put(String blobId, String fingerprint, List<String> names, ByteBuffer content);
+
+    /**
+     * Write the cache to disk so that it survives restarts
+     */
+    void save() throws IOException;
+
+    /**
+     * Get the number of entries, their estimated size, hits, misses and the hit ratio since start up
+     */
+    Map<String, Object> getStats();
+}
@@ -1,47 +1,201 @@
 package com.mizookie.packagemapper.services.implementations;
 
+import com.mizookie.packagemapper.dto.user.AnalysisReport;
+import com.mizookie.packagemapper.graph.GraphBuilder;
+import com.mizookie.packagemapper.jobs.AnalysisProgress;
+import com.mizookie.packagemapper.metrics.AnalysisMetrics;
+import com.mizookie.packagemapper.resolver.AhoCorasickResolver;
+import com.mizookie.packagemapper.resolver.GitSourceReader;
+import com.mizookie.packagemapper.resolver.ImportResolver;
+import com.mizookie.packagemapper.resolver.InvertedIndexResolver;
+import com.mizookie.packagemapper.resolver.JavaImportResolver;
+import com.mizookie.packagemapper.resolver.JavaScriptImportResolver;
+import com.mizookie.packagemapper.resolver.MappedResolver;
 import com.mizookie.packagemapper.resolver.NaiveResolver;
+import com.mizookie.packagemapper.resolver.PythonImportResolver;
+import com.mizookie.packagemapper.resolver.Resolver;
+import com.mizookie.packagemapper.resolver.ResolverMetrics;
+import com.mizookie.packagemapper.resolver.SourceReader;
 import com.mizookie.packagemapper.services.AnalyserService;
 import com.mizookie.packagemapper.services.GithubRepositoryService;
+import com.mizookie.packagemapper.services.GraphAnalyticsService;
 import com.mizookie.packagemapper.services.GraphService;
+import com.mizookie.packagemapper.services.ResolutionCacheService;
 import com.mizookie.packagemapper.utils.FileService;
+import com.mizookie.packagemapper.visitors.SourceFileFilter;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.diff.DiffEntry;
 import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedGraph;
 import org.jgrapht.graph.DefaultEdge;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class AnalyserServiceImpl implements AnalyserService {
+    // Rough memory taken by an analysis per byte of source: lines being read, resolver indexes and the graph
+    private static final int MEMORY_PER_SOURCE_BYTE = 2;
 
-    private static int N;
     private final GraphService graphService;
+    private final GraphAnalyticsService analyticsService;
     private final GithubRepositoryService githubRepositoryService;
-    private final ArrayList<AnalyzerTask> threads = new ArrayList<>();
+    private final ResolutionCacheService resolutionCache;
+    private final AnalysisMetrics metrics;
+    private final String resolverType;
+    private static final Set<String> IMPORT_LANGUAGES = Set.of("java", "python", "javascript");
+    // Languages whose files are resolved from their imports
+    private final Set<String> importLanguages;
+    // Whether versions are checked out, or read straight from the git object database
+    private final boolean checkout;
+    // Which files of a version are analysed
+    private final SourceFileFilter sourceFilter;
+    // Shared by every analysis: limits on files resolved at once and on analyses running at once
+    private final Semaphore filePermits;
+    private final Semaphore analysisPermits;
+    private final ForkJoinPool resolverPool;
+    // Checking out a commit rewrites the working tree, so analyses of the same repository take turns
+    private final Map<String, ReentrantLock> repositoryLocks = new ConcurrentHashMap<>();
     @Value("${repository.directory}")
     private String localRepositoryDirectory;
+    // Repositories analysed at once by analyse(), and the memory they can take between them (0 for half of the heap)
+    @Value("${analysis.all.parallelism}")
+    private int allParallelism;
+    @Value("${analysis.all.max-memory}")
+    private DataSize allMemoryBudget;
+    // Whether cycles, components and layers are worked out as soon as a graph is stored, rather than when first asked for
+    @Value("${analysis.analytics.enabled}")
+    private boolean analyticsEnabled;
 
     @Autowired
-    public AnalyserServiceImpl(GraphService graphService, GithubRepositoryService githubRepositoryService, @Value("${threads.num}") String n) {
+    public AnalyserServiceImpl(GraphService graphService, GraphAnalyticsService analyticsService, GithubRepositoryService githubRepositoryService, ResolutionCacheService resolutionCache,
+                               AnalysisMetrics metrics,
+                               @Value("${analysis.concurrency.files}") int maxConcurrentFiles,
+                               @Value("${analysis.concurrency.analyses}") int maxConcurrentAnalyses,
+                               @Value("${resolver.type}") String resolverType,
+                               @Value("${resolver.imports}") Set<String> importLanguages,
+                               @Value("${analysis.checkout}") boolean checkout,
+                               @Value("${analysis.files.exclude}") List<String> excludes,
+                               @Value("${analysis.files.extensions}") Set<String> extensions,
+                               @Value("${analysis.files.max-size}") DataSize maxFileSize) {
         this.graphService = graphService;
+        this.analyticsService = analyticsService;
         this.githubRepositoryService = githubRepositoryService;
-        N = Integer.parseInt(n);
+        this.resolutionCache = resolutionCache;
+        this.metrics = metrics;
+        this.resolverType = resolverType;
+        this.importLanguages = importLanguages.stream().filter(language -> !language.isBlank()).collect(Collectors.toSet());
+        if (!IMPORT_LANGUAGES.containsAll(this.importLanguages)) {
+            throw new IllegalArgumentException("Unknown import languages: " + importLanguages);
+        }
+        this.checkout = checkout;
+        this.sourceFilter = new SourceFileFilter(excludes,
+                extensions.stream().filter(extension -> !extension.isBlank()).collect(Collectors.toSet()), maxFileSize.toBytes());
+        this.filePermits = new Semaphore(maxConcurrentFiles);
+        this.analysisPermits = new Semaphore(maxConcurrentAnalyses);
+        this.resolverPool = new ForkJoinPool(maxConcurrentFiles);
+        createResolver(SourceReader.FILE_SYSTEM, ResolverMetrics.NONE); // Fail on startup if the resolver type is unknown
+        metrics.monitor(resolverPool, "resolver");
+        metrics.monitor(filePermits, maxConcurrentFiles, "file");
+        metrics.monitor(analysisPermits, maxConcurrentAnalyses, "analysis");
+    }
+
+    /**
+     * Create the resolver used for files that don't have a language specific one. Each analysis gets its own.
+     * {@code resolver.type} is one of {@code naive}, {@code aho-corasick}, {@code inverted-index} or {@code mapped}.
+     */
+    private Resolver createResolver(SourceReader sourceReader, ResolverMetrics resolverMetrics) {
+        return switch (resolverType) {
+            case "naive" -> new NaiveResolver(resolverPool, sourceReader, resolverMetrics);
+            case "aho-corasick" -> new AhoCorasickResolver(sourceReader);
+            case "inverted-index" -> new InvertedIndexResolver(resolverPool, sourceReader);
+            case "mapped" -> new MappedResolver(sourceReader);
+            default -> throw new IllegalArgumentException("Unknown resolver type: " + resolverType);
+        };
+    }
+
+    /**
+     * Whether {@code filePath} is resolved from its imports rather than by the names it mentions. {@code resolver.imports}
+     * lists the languages that are, among {@code java}, {@code python} and {@code javascript}.
+     */
+    private boolean resolvesImports(String filePath) {
+        String language = languageOf(filePath);
+        return language != null && importLanguages.contains(language);
+    }
+
+    // Language of a file that has an import resolver, or null
+    private static String languageOf(String filePath) {
+        String extension = FileService.getFileExtension(filePath);
+        return switch (extension) {
+            case ".py", ".pyi" -> "python";
+            case ".java" -> "java";
+            default -> JavaScriptImportResolver.EXTENSIONS.contains(extension) ? "javascript" : null;
+        };
+    }
 
-        for (int i = 0; i < N; ++i) {
-            AnalyzerTask t = new AnalyzerTask(i);
-            threads.add(t);
-            t.start();
+    /**
+     * Take the lock of {@code repositoryName} if its working tree is going to be checked out.
+     *
+     * @return the lock to release, or {@code null} if none was needed
+     */
+    private ReentrantLock lockRepository(String repositoryName) throws InterruptedException {
+        if (!checkout) {
+            return null; // Reading the object database doesn't touch the working tree
+        }
+        ReentrantLock repositoryLock = repositoryLocks.computeIfAbsent(repositoryName, k -> new ReentrantLock());
+        repositoryLock.lockInterruptibly();
+        return repositoryLock;
+    }
+
+    /**
+     * Get the files of {@code version}, either by checking it out or from the git object database.
+     */
+    private Snapshot openSnapshot(String repositoryPath, String version) throws IOException, GitAPIException {
+        String repositoryName = FileService.getFileNameOnly(repositoryPath);
+        if (!checkout) {
+            Timer.Sample walk = metrics.start();
+            GitSourceReader sourceReader = githubRepositoryService.openSources(repositoryPath, version, sourceFilter);
+            metrics.phaseDone(walk, repositoryName, "walk");
+            return new Snapshot(sourceReader.getFilePaths(), sourceReader.getBlobIds(), sourceReader);
         }
+        Timer.Sample checkout = metrics.start();
+        githubRepositoryService.checkoutCommit(repositoryName, version);
+        metrics.phaseDone(checkout, repositoryName, "checkout");
+        Timer.Sample walk = metrics.start();
+        List<String> filePaths = FileService.getFiles(repositoryPath, sourceFilter);
+        metrics.phaseDone(walk, repositoryName, "walk");
+        return new Snapshot(filePaths, getBlobIds(repositoryPath, version), SourceReader.FILE_SYSTEM);
     }
 
     /**
@@ -60,59 +214,558 @@ public class AnalyserServiceImpl implements AnalyserService {
 
     /**
      * This method orchestrates the crawling, parsing and visualization of the code
-     * in the repository.
+     * in the repository. Every file is resolved on its own virtual thread, and different
+     * repositories can be analysed at the same time. Without checkout, so can different versions of a repository.
+     * The analysis stops with an {@link InterruptedException} if its thread is interrupted.
      *
      * @param repositoryPath The path to the repository to analyze.
      */
-    // This is a producer for AnalyserTask
     @Override
     public void analyse(String repositoryPath, String version) throws IOException, GitAPIException, InterruptedException {
+        analyse(repositoryPath, version, AnalysisProgress.NONE);
+    }
+
+    @Override
+    public void analyse(String repositoryPath, String version, AnalysisProgress progress) throws IOException, GitAPIException, InterruptedException {
         String repositoryName = FileService.getFileNameOnly(repositoryPath);
-        if (version == null) {
-            version = githubRepositoryService.getCurrentCommit(repositoryName);
+        acquireAnalysisPermit(repositoryName);
+        Timer.Sample analysis = metrics.start();
+        boolean succeeded = false;
+        ReentrantLock repositoryLock = null;
+        try {
+            repositoryLock = lockRepository(repositoryName);
+            if (version == null) {
+                version = githubRepositoryService.getCurrentCommit(repositoryName);
+            }
+            try (Snapshot snapshot = openSnapshot(repositoryPath, version)) {
+                Graph<String, DefaultEdge> graph = resolveAll(snapshot.filePaths(), snapshot.blobIds(), new Resolvers(snapshot.sourceReader(), repositoryName), progress);
+                storeGraph(graph, repositoryName, version);
+            }
+            saveResolutionCache();
+            succeeded = true;
+        } finally {
+            if (repositoryLock != null) {
+                repositoryLock.unlock();
+            }
+            analysisPermits.release();
+            metrics.analysisDone(analysis, repositoryName, "full", succeeded);
         }
-        githubRepositoryService.checkoutCommit(repositoryName, version);
+    }
+
+    private void acquireAnalysisPermit(String repositoryName) throws InterruptedException {
+        Timer.Sample waiting = metrics.start();
+        analysisPermits.acquire();
+        metrics.waited(waiting, repositoryName, "analysis");
+    }
+
+    /**
+     * Resolve every file of {@code filePaths}.
+     *
+     * @return graph with an edge from each referenced file to the file referencing it
+     */
+    private Graph<String, DefaultEdge> resolveAll(List<String> filePaths, Map<String, String> blobIds, Resolvers resolvers, AnalysisProgress progress) throws IOException, InterruptedException {
+        GraphBuilder builder = graphService.newGraphBuilder();
+        Timer.Sample resolve = metrics.start();
+        resolveFiles(new Candidates(filePaths), filePaths, blobIds, resolvers, builder, progress);
+        metrics.phaseDone(resolve, resolvers.repositoryName, "resolve");
+        Timer.Sample build = metrics.start();
+        Graph<String, DefaultEdge> graph = builder.build();
+        metrics.phaseDone(build, resolvers.repositoryName, "build");
+        return graph;
+    }
+
+    /**
+     * Resolve each of {@code subjects} against {@code candidates}, one virtual thread per file. Each thread adds the
+     * edges it finds to {@code builder} as soon as its file is resolved.
+     *
+     * @param blobIds git blob id of the files, used to look results up in the resolution cache
+     */
+    private void resolveFiles(Candidates candidates, List<String> subjects, Map<String, String> blobIds, Resolvers resolvers, GraphBuilder builder, AnalysisProgress progress) throws IOException, InterruptedException {
+        progress.filesQueued(subjects.size());
+        runAll(subjects, filePath -> {
+            int edges = addEdges(builder, filePath, resolve(candidates, filePath, blobIds.get(filePath), resolvers));
+            String resolver = resolvers.typeOf(filePath);
+            metrics.fileResolved(resolvers.repositoryName, resolver);
+            metrics.edgesFound(resolvers.repositoryName, resolver, edges);
+            progress.fileResolved();
+        });
+    }
 
-        AnalyzerTask.producerSemaphore.acquire(N);
-        graphService.setDependencyMap(new HashMap<>());
-        AnalyzerTask.filePaths = FileService.getFiles(repositoryPath);
-        int numberOfFiles = AnalyzerTask.filePaths.size();
-        int division = (int) Math.ceil(numberOfFiles / (1.0 * N));
-        for (int i = 0; i < N; ++i) {
-            AnalyzerTask t = threads.get(i);
-            t.setStartPoint(i * division);
-            t.setEndPoint((division == 1) ?
-                    Math.min(numberOfFiles + 1, i + 1) % (numberOfFiles + 1) - 1
-                    : Math.min(numberOfFiles, (i + 1) * division) - 1);
+    /**
+     * Run {@code task} on each of {@code items}, one virtual thread each, and wait for all of them.
+     */
+    private <T> void runAll(Collection<T> items, FileTask<T> task) throws IOException, InterruptedException {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (T item : items) {
+                futures.add(executor.submit(() -> {
+                    task.run(item);
+                    return null;
+                }));
+            }
+            try {
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                // Otherwise closing the executor would wait for every task to finish
+                executor.shutdownNow();
+                throw e;
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * @return how many edges were added
+     */
+    private int addEdges(GraphBuilder builder, String filePath, List<String> results) {
+        int edges = 0;
+        for (String result : results) {
+            if (!result.equals(filePath)) {
+                builder.addEdge(toVertex(result), toVertex(filePath));
+                ++edges;
+            }
         }
-        AnalyzerTask.readerSemaphore.release(N);
+        return edges;
+    }
+
+    private static void addEdge(Graph<String, DefaultEdge> graph, String source, String target) {
+        graph.addVertex(source);
+        graph.addVertex(target);
+        graph.addEdge(source, target);
+    }
 
-        // Wait until all finished
-        AnalyzerTask.producerSemaphore.acquire(N);
-        for (int i = 0; i < N; ++i) {
-            AnalyzerTask t = threads.get(i);
-            t.setStartPoint(0);
-            t.setEndPoint(-1);
+    private List<String> resolve(Candidates candidates, String filePath, String blobId, Resolvers resolvers) throws IOException, InterruptedException {
+        // Imports name paths, so their results can't be shared between versions by name
+        boolean cached = blobId != null && !resolvesImports(filePath);
+        // The cache is checked before the file is read at all
+        if (cached) {
+            List<String> names = resolutionCache.get(blobId, candidates.fingerprint);
+            if (names != null) {
+                return candidates.pathsOf(names, filePath);
+            }
         }
-        AnalyzerTask.readerSemaphore.release(N);
 
-        graphService.serializeGraph(repositoryName, version);
+        List<String> results;
+        Timer.Sample waiting = metrics.start();
+        filePermits.acquire();
+        metrics.waited(waiting, resolvers.repositoryName, "file");
+        try {
+            // These methods are thread-safe
+            if (cached) {
+                Resolution resolution = resolvers.solveNames(candidates.filePaths, filePath);
+                results = resolution.filePaths();
+                resolutionCache.put(blobId, candidates.fingerprint, results.stream().map(FileService::getFileNameWithoutExtension).distinct().toList(),
+                        resolution.content());
+            } else {
+                results = (resolvesImports(filePath) ? resolvers.importsOf(filePath) : resolvers.names).solve(candidates.filePaths, filePath);
+            }
+        } finally {
+            filePermits.release();
+        }
+        return results;
     }
 
     /**
-     * This method analyzes all repositories.
+     * Get the blob id of each file of {@code version}, keyed by the same paths {@link FileService#getFiles} gives.
      */
+    private Map<String, String> getBlobIds(String repositoryPath, String version) throws IOException {
+        Map<String, String> blobIds = new HashMap<>();
+        githubRepositoryService.getBlobIds(FileService.getFileNameOnly(repositoryPath), version)
+                .forEach((path, blobId) -> blobIds.put(Paths.get(repositoryPath, path).toString(), blobId));
+        return blobIds;
+    }
+
+    private void storeGraph(Graph<String, DefaultEdge> graph, String repositoryName, String version) throws IOException {
+        Timer.Sample serialize = metrics.start();
+        graphService.serializeGraph(graph, repositoryName, version);
+        metrics.phaseDone(serialize, repositoryName, "serialize");
+        if (analyticsEnabled) {
+            // The graph is stored either way, and analytics are worked out again when asked for if they are missing
+            Timer.Sample analytics = metrics.start();
+            try {
+                analyticsService.computeAnalytics(String.format("%s_%s", repositoryName, version));
+            } catch (IOException e) {
+                log.error("Failed to store analytics of {} at {}: {}", repositoryName, version, e.getMessage());
+            }
+            metrics.phaseDone(analytics, repositoryName, "analytics");
+        }
+    }
+
+    private void saveResolutionCache() {
+        try {
+            resolutionCache.save();
+        } catch (IOException e) {
+            log.error("Failed to save resolution cache: {}", e.getMessage());
+        }
+    }
+
+    // Vertices are named by their path relative to the repository directory
+    private String toVertex(String filePath) {
+        return filePath.replaceFirst(localRepositoryDirectory, "").replaceFirst("^/,*", "");
+    }
+
+    /**
+     * Analyse {@code version} by patching the stored graph of {@code baseVersion} instead of starting from scratch.
+     * Only the files that were added, modified or renamed between the two versions are resolved again. Other files
+     * resolved by name are only checked against the added files, and only when no file with the same name existed
+     * before. Other files resolved from their imports are resolved again against every file if any file was added or
+     * removed, since which file an import points to depends on every path of the tree.
+     * Falls back to a full analysis if there is no graph for {@code baseVersion}.
+     *
+     * @param repositoryPath The path to the repository to analyze.
+     * @param baseVersion    A version that has already been analysed: a commit, a branch or a tag.
+     * @param version        The version to analyse. Its graph is stored under the commit it points to.
+     */
+    @Override
+    public void analyse(String repositoryPath, String baseVersion, String version) throws IOException, GitAPIException, InterruptedException {
+        analyse(repositoryPath, baseVersion, version, AnalysisProgress.NONE);
+    }
+
     @Override
-    public void analyse() throws IOException, GitAPIException, InterruptedException {
+    public void analyse(String repositoryPath, String baseVersion, String version, AnalysisProgress progress) throws IOException, GitAPIException, InterruptedException {
+        String repositoryName = FileService.getFileNameOnly(repositoryPath);
+        // Graphs are stored by commit, so that a base given as a branch, a tag or a short id finds its graph
+        String baseCommit = githubRepositoryService.resolveCommit(repositoryName, baseVersion);
+        if (version != null) {
+            version = githubRepositoryService.resolveCommit(repositoryName, version);
+        }
+        Graph<String, DefaultEdge> graph;
+        try {
+            graph = graphService.importGraph(String.format("%s_%s", repositoryName, baseCommit));
+        } catch (FileNotFoundException e) {
+            log.info("No graph for {} at {} ({}), analysing {} from scratch", repositoryName, baseVersion, baseCommit, version);
+            analyse(repositoryPath, version, progress);
+            return;
+        }
+
+        acquireAnalysisPermit(repositoryName);
+        Timer.Sample analysis = metrics.start();
+        boolean succeeded = false;
+        ReentrantLock repositoryLock = null;
+        Snapshot snapshot = null;
+        try {
+            repositoryLock = lockRepository(repositoryName);
+            if (version == null) {
+                version = githubRepositoryService.getCurrentCommit(repositoryName);
+            }
+            List<DiffEntry> changes = githubRepositoryService.getChangedFiles(repositoryName, baseCommit, version);
+            snapshot = openSnapshot(repositoryPath, version);
+            List<String> filePaths = snapshot.filePaths();
+            Map<String, String> blobIds = snapshot.blobIds();
+            Set<String> present = new HashSet<>(filePaths);
+
+            Set<String> removed = new HashSet<>(), changed = new LinkedHashSet<>(), added = new LinkedHashSet<>();
+            for (DiffEntry change : changes) {
+                if (change.getChangeType() == DiffEntry.ChangeType.DELETE || change.getChangeType() == DiffEntry.ChangeType.RENAME) {
+                    removed.add(Paths.get(repositoryPath, change.getOldPath()).toString());
+                }
+                String newPath = Paths.get(repositoryPath, change.getNewPath()).toString();
+                if (change.getChangeType() != DiffEntry.ChangeType.DELETE && present.contains(newPath)) {
+                    changed.add(newPath);
+                    if (change.getChangeType() != DiffEntry.ChangeType.MODIFY) {
+                        added.add(newPath);
+                    }
+                }
+            }
+            List<String> unchanged = filePaths.stream().filter(filePath -> !changed.contains(filePath) && !resolvesImports(filePath)).toList();
+            // Only their headers are read again, and only if the paths an import can point to changed
+            List<String> unchangedImports = added.isEmpty() && removed.isEmpty() ? List.of()
+                    : filePaths.stream().filter(filePath -> !changed.contains(filePath) && resolvesImports(filePath)).toList();
+
+            // Files already referencing an added file's name can be read off the base graph, before it gets patched
+            Map<String, List<String>> existingByName = new HashMap<>();
+            for (String filePath : filePaths) {
+                if (!added.contains(filePath)) {
+                    existingByName.computeIfAbsent(FileService.getFileNameWithoutExtension(filePath), k -> new ArrayList<>()).add(filePath);
+                }
+            }
+            List<String> unknownNames = new ArrayList<>();
+            List<String[]> knownEdges = new ArrayList<>();
+            for (String filePath : added) {
+                List<String> sameName = existingByName.getOrDefault(FileService.getFileNameWithoutExtension(filePath), List.of());
+                if (sameName.size() < 2) {
+                    // With fewer than two files of that name, the graph can't tell which files mention it
+                    unknownNames.add(filePath);
+                    continue;
+                }
+                for (String existing : sameName) {
+                    String vertex = toVertex(existing);
+                    if (graph.containsVertex(vertex)) {
+                        for (DefaultEdge edge : graph.outgoingEdgesOf(vertex)) {
+                            if (resolvesImports(graph.getEdgeTarget(edge))) {
+                                continue; // Importing a file says nothing about importing another file of that name
+                            }
+                            knownEdges.add(new String[]{toVertex(filePath), graph.getEdgeTarget(edge)});
+                        }
+                    }
+                }
+            }
+
+            // Patch the graph: drop removed files and what changed files referenced, then resolve them again
+            removed.forEach(filePath -> graph.removeVertex(toVertex(filePath)));
+            Set<String> changedVertices = changed.stream().map(this::toVertex).collect(Collectors.toSet());
+            Set<String> resolvedAgain = new HashSet<>(changedVertices);
+            unchangedImports.forEach(filePath -> resolvedAgain.add(toVertex(filePath)));
+            for (String vertex : resolvedAgain) {
+                if (graph.containsVertex(vertex)) {
+                    graph.removeAllEdges(new ArrayList<>(graph.incomingEdgesOf(vertex)));
+                }
+            }
+            for (String[] edge : knownEdges) {
+                if (!edge[0].equals(edge[1]) && graph.containsVertex(edge[1]) && !changedVertices.contains(edge[1])) {
+                    addEdge(graph, edge[0], edge[1]);
+                }
+            }
+            List<String> changedFiles = new ArrayList<>(changed);
+            changedFiles.addAll(unchangedImports);
+            Resolvers resolvers = new Resolvers(snapshot.sourceReader(), repositoryName);
+            GraphBuilder builder = graphService.newGraphBuilder();
+            Timer.Sample resolve = metrics.start();
+            resolveFiles(new Candidates(filePaths), changedFiles, blobIds, resolvers, builder, progress);
+            if (!unknownNames.isEmpty()) {
+                resolveFiles(new Candidates(unknownNames), unchanged, blobIds, resolvers, builder, progress);
+            }
+            metrics.phaseDone(resolve, repositoryName, "resolve");
+            Timer.Sample build = metrics.start();
+            builder.addTo(graph);
+            // A full analysis only has vertices that are part of an edge
+            graph.removeAllVertices(graph.vertexSet().stream().filter(vertex -> graph.degreeOf(vertex) == 0).toList());
+            metrics.phaseDone(build, repositoryName, "build");
+
+            log.info("Patched graph of {} from {} to {}: {} files resolved again, {} of them for their imports only, {} files with new names", repositoryName,
+                    baseCommit, version, changedFiles.size(), unchangedImports.size(), unknownNames.size());
+            storeGraph(graph, repositoryName, version);
+            saveResolutionCache();
+            succeeded = true;
+        } finally {
+            if (snapshot != null) {
+                snapshot.close();
+            }
+            if (repositoryLock != null) {
+                repositoryLock.unlock();
+            }
+            analysisPermits.release();
+            metrics.analysisDone(analysis, repositoryName, "incremental", succeeded);
+        }
+    }
+
+    /**
+     * Analyse several versions of a repository in one pass, storing one graph per commit. Versions are read from the
+     * git object database whether {@code analysis.checkout} is set or not. Each distinct file content is read once,
+     * however many versions contain it: files resolved by name are resolved against the names of the files of every
+     * version, then matched with the files of each version, and files resolved from their imports have their imports
+     * read once and resolved against each version.
+     *
+     * @param versions commits, branches or tags. Graphs are stored under the commit they point to
+     */
+    @Override
+    public void analyse(String repositoryPath, List<String> versions, AnalysisProgress progress) throws IOException, InterruptedException {
+        String repositoryName = FileService.getFileNameOnly(repositoryPath);
+        acquireAnalysisPermit(repositoryName);
+        Timer.Sample analysis = metrics.start();
+        boolean succeeded = false;
+        try {
+            Timer.Sample walk = metrics.start();
+            // Visible files of each commit and their blob ids. Most paths are in every commit, so they are shared
+            Map<String, String> paths = new HashMap<>();
+            Map<String, Map<String, String>> commits = new LinkedHashMap<>();
+            for (String version : versions) {
+                String commit = githubRepositoryService.resolveCommit(repositoryName, version);
+                if (commits.containsKey(commit)) {
+                    continue;
+                }
+                Map<String, String> files = new LinkedHashMap<>();
+                try (GitSourceReader sourceReader = githubRepositoryService.openSources(repositoryPath, commit, sourceFilter)) {
+                    Map<String, String> blobIds = sourceReader.getBlobIds();
+                    for (String filePath : sourceReader.getFilePaths()) {
+                        files.put(paths.computeIfAbsent(filePath, k -> k), blobIds.get(filePath));
+                    }
+                }
+                commits.put(commit, files);
+            }
+            metrics.phaseDone(walk, repositoryName, "walk");
+
+            // A file is resolved by name if a file with that name is mentioned, whatever else is there, so one file
+            // per name stands for all of them. Contents are named after their blob, see subjectOf
+            String subjectDirectory = Paths.get(repositoryPath, ".batch").toString();
+            Map<String, String> subjects = new HashMap<>();
+            Map<String, String> candidatesByName = new HashMap<>();
+            for (Map<String, String> files : commits.values()) {
+                files.forEach((filePath, blobId) -> {
+                    subjects.putIfAbsent(subjectOf(subjectDirectory, filePath, blobId), blobId);
+                    candidatesByName.putIfAbsent(FileService.getFileNameWithoutExtension(filePath), filePath);
+                });
+            }
+            List<String> candidates = new ArrayList<>(candidatesByName.values());
+            Set<String> candidateSet = new HashSet<>(candidates);
+            // Results by name only depend on the names, so they are cached like those of a full analysis. Subjects
+            // aren't candidates, so a content mentioning its own name refers to the file of that name: every name
+            // counts as shared
+            List<String> sharedCandidates = new ArrayList<>(candidates);
+            sharedCandidates.addAll(candidates);
+            String fingerprint = resolutionCache.fingerprint(resolverType, sharedCandidates);
+
+            Map<String, List<String>> namesBySubject = new ConcurrentHashMap<>();
+            Map<String, List<List<String>>> importsBySubject = new ConcurrentHashMap<>();
+            try (GitSourceReader blobReader = githubRepositoryService.openBlobs(repositoryName, subjects)) {
+                // Only the names of the candidates matter, resolvers that read them anyway get empty files
+                Resolvers resolvers = new Resolvers(filePath -> candidateSet.contains(filePath) ? InputStream.nullInputStream() : blobReader.open(filePath), repositoryName);
+                progress.filesQueued(subjects.size());
+                Timer.Sample resolve = metrics.start();
+                runAll(subjects.keySet(), subject -> {
+                    List<String> cached = resolvesImports(subject) ? null : resolutionCache.get(subjects.get(subject), fingerprint);
+                    if (cached != null) {
+                        namesBySubject.put(subject, cached);
+                        progress.fileResolved();
+                        return;
+                    }
+                    Timer.Sample waiting = metrics.start();
+                    filePermits.acquire();
+                    metrics.waited(waiting, repositoryName, "file");
+                    try {
+                        if (resolvesImports(subject)) {
+                            importsBySubject.put(subject, resolvers.importsOf(subject).readImports(subject));
+                        } else {
+                            Resolution resolution = resolvers.solveNames(candidates, subject);
+                            List<String> names = resolution.filePaths().stream().map(FileService::getFileNameWithoutExtension).distinct().toList();
+                            namesBySubject.put(subject, names);
+                            resolutionCache.put(subjects.get(subject), fingerprint, names, resolution.content());
+                        }
+                    } finally {
+                        filePermits.release();
+                    }
+                    metrics.fileResolved(repositoryName, resolvers.typeOf(subject));
+                    progress.fileResolved();
+                });
+                metrics.phaseDone(resolve, repositoryName, "resolve");
+
+                for (Map.Entry<String, Map<String, String>> commit : commits.entrySet()) {
+                    List<String> filePaths = new ArrayList<>(commit.getValue().keySet());
+                    Candidates commitCandidates = new Candidates(filePaths);
+                    GraphBuilder builder = graphService.newGraphBuilder();
+                    // Matching the results of each content with the files of the commit
+                    Timer.Sample build = metrics.start();
+                    runAll(filePaths, filePath -> {
+                        String subject = subjectOf(subjectDirectory, filePath, commit.getValue().get(filePath));
+                        int edges = addEdges(builder, filePath, resolvesImports(filePath)
+                                ? resolvers.importsOf(filePath).resolveImports(filePaths, filePath, importsBySubject.get(subject))
+                                : commitCandidates.pathsOf(namesBySubject.get(subject), filePath));
+                        metrics.edgesFound(repositoryName, resolvers.typeOf(filePath), edges);
+                    });
+                    Graph<String, DefaultEdge> graph = builder.build();
+                    metrics.phaseDone(build, repositoryName, "build");
+                    storeGraph(graph, repositoryName, commit.getKey());
+                }
+            }
+            log.info("Analysed {} versions of {}: {} distinct files for {} files in total", commits.size(), repositoryName,
+                    subjects.size(), commits.values().stream().mapToInt(Map::size).sum());
+            saveResolutionCache();
+            succeeded = true;
+        } finally {
+            analysisPermits.release();
+            metrics.analysisDone(analysis, repositoryName, "batch", succeeded);
+        }
+    }
+
+    /**
+     * Name a file of a batch after its content. Files resolved from their imports keep their extension, since it
+     * picks their resolver.
+     */
+    private String subjectOf(String subjectDirectory, String filePath, String blobId) {
+        return Paths.get(subjectDirectory, resolvesImports(filePath) ? blobId + FileService.getFileExtension(filePath) : blobId).toString();
+    }
+
+    /**
+     * This method analyzes all repositories. Up to {@code analysis.all.parallelism} of them are analysed at once,
+     * largest first so that the longest analyses don't start last and hold up the end of the run. Each one also takes
+     * an estimate of the memory it needs from {@code analysis.all.max-memory} and waits until enough is left.
+     */
+    @Override
+    public AnalysisReport analyse() throws InterruptedException {
         // Analyze all local repositories
         log.info("Analyzing all local repositories...");
+        long start = System.nanoTime();
 
         // Crawl through all repositories within the local repository directory
-        List<String> repositories = FileService.getDirectories(localRepositoryDirectory);
+        List<AnalysisReport.RepositoryReport> reports = FileService.getDirectories(localRepositoryDirectory).stream()
+                .map(repository -> new AnalysisReport.RepositoryReport(repository, getSourceBytes(repository)))
+                .sorted(Comparator.comparingLong(AnalysisReport.RepositoryReport::getBytes).reversed())
+                .toList();
+
+        // The memory budget is counted in KiB so that it fits in a semaphore
+        long budget = allMemoryBudget.toBytes() > 0 ? allMemoryBudget.toBytes() : Runtime.getRuntime().maxMemory() / 2;
+        int budgetKb = (int) Math.clamp(budget / 1024, 1, Integer.MAX_VALUE);
+        Semaphore slots = new Semaphore(allParallelism);
+        Semaphore memory = new Semaphore(budgetKb);
+        List<Thread> threads = new ArrayList<>();
+        try {
+            for (AnalysisReport.RepositoryReport report : reports) {
+                // A repository larger than the whole budget still runs, alone
+                int weight = (int) Math.clamp(report.getBytes() * MEMORY_PER_SOURCE_BYTE / 1024, 1, budgetKb);
+                slots.acquire();
+                try {
+                    memory.acquire(weight);
+                } catch (InterruptedException e) {
+                    slots.release();
+                    throw e;
+                }
+                threads.add(Thread.ofVirtual().name("analyse-all-" + FileService.getFileNameOnly(report.getRepository())).start(() -> {
+                    try {
+                        analyse(report);
+                    } finally {
+                        memory.release(weight);
+                        slots.release();
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            threads.forEach(Thread::interrupt);
+            throw e;
+        }
+
+        AnalysisReport analysisReport = new AnalysisReport(reports, (System.nanoTime() - start) / 1_000_000);
+        log.info("Analyzed {} repositories in {} ms, {} failed", reports.size(), analysisReport.getDurationMs(), analysisReport.getFailed());
+        return analysisReport;
+    }
+
+    /**
+     * Analyse HEAD of one of the repositories of {@link #analyse()}, recording how it went in {@code report}
+     */
+    private void analyse(AnalysisReport.RepositoryReport report) {
+        long start = System.nanoTime();
+        try {
+            analyse(report.getRepository(), null);
+            report.setSucceeded(true);
+        } catch (Exception e) {
+            report.setError(e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage());
+            log.error("Failed to analyze {}", report.getRepository(), e);
+        } finally {
+            report.setDurationMs((System.nanoTime() - start) / 1_000_000);
+        }
+    }
 
-        for (String repository : repositories) {
-            analyse(repository, null); // TODO: This function should take a collection of version
+    /**
+     * Total size of the files of the working tree of {@code repositoryPath} that would be analysed
+     */
+    private long getSourceBytes(String repositoryPath) {
+        long bytes = 0;
+        for (String filePath : FileService.getFiles(repositoryPath, sourceFilter)) {
+            try {
+                bytes += Files.size(Paths.get(filePath));
+            } catch (IOException e) {
+                // Gone since it was listed, it won't be analysed either
+            }
         }
+        return bytes;
     }
 
     @Override
@@ -123,57 +776,120 @@ public class AnalyserServiceImpl implements AnalyserService {
         graphService.displayGraph("test");
     }
 
-    class AnalyzerTask extends Thread {
-        private static final NaiveResolver naiveResolver = new NaiveResolver(3);
-        static Semaphore resultLock = new Semaphore(1);
-        static Semaphore readerSemaphore = new Semaphore(0);
-        static Semaphore producerSemaphore = new Semaphore(N);
-        static List<String> filePaths;
-        private int startPoint, endPoint, id;
+    /**
+     * Resolvers of one analysis: the one picked by {@code resolver.type} for files resolved by name, and one per
+     * language for files resolved from their imports.
+     */
+    private class Resolvers {
+        final String repositoryName;
+        final SourceReader sourceReader;
+        final Resolver names;
+        final ImportResolver java;
+        final ImportResolver python;
+        final ImportResolver javaScript;
+        // Contents of the files being resolved by solveNames, which the name resolver reads instead of the files
+        private final Map<String, ByteBuffer> contents = new ConcurrentHashMap<>();
+
+        Resolvers(SourceReader sourceReader, String repositoryName) {
+            this.repositoryName = repositoryName;
+            this.sourceReader = sourceReader;
+            names = createResolver(new SourceReader() {
+                @Override
+                public InputStream open(String filePath) throws IOException {
+                    ByteBuffer content = contents.get(filePath);
+                    return content == null ? sourceReader.open(filePath)
+                            : new ByteArrayInputStream(content.array(), content.arrayOffset() + content.position(), content.remaining());
+                }
 
-        AnalyzerTask(int id) {
-            this.id = id;
+                @Override
+                public ByteBuffer readAllBytes(String filePath) throws IOException {
+                    ByteBuffer content = contents.get(filePath);
+                    return content == null ? sourceReader.readAllBytes(filePath) : content.duplicate();
+                }
+            }, metrics.forResolver(repositoryName));
+            java = new JavaImportResolver(sourceReader);
+            python = new PythonImportResolver(sourceReader);
+            javaScript = new JavaScriptImportResolver(sourceReader);
         }
 
-        public void run() {
+        /**
+         * Resolve {@code filePath} by name, reading it once for both the resolver and the resolution cache
+         */
+        Resolution solveNames(List<String> filePaths, String filePath) throws IOException {
+            ByteBuffer content = sourceReader.readAllBytes(filePath);
+            contents.put(filePath, content);
             try {
-                while (true) {
-                    readerSemaphore.acquire();
-                    for (int i = startPoint; i <= endPoint; ++i) {
-                        String filePath = filePaths.get(i);
-                        List<String> results;
-                        switch (FileService.getFileExtension(filePath)) {
-                            case ".py":
-                            case ".java":
-                            default:
-                                results = naiveResolver.solve(filePaths, filePath); // This method is thread-safe
-                        }
-                        resultLock.acquire();
-                        for (String result : results) {
-                            if (!result.equals(filePath)) {
-                                graphService.addEdge(
-                                        result.replaceFirst(localRepositoryDirectory, "")
-                                                .replaceFirst("^/,*", ""),
-                                        filePath.replaceFirst(localRepositoryDirectory, "")
-                                                .replaceFirst("^/,*", ""));
-                            }
-                        }
-                        resultLock.release();
-                    }
-                    producerSemaphore.release();
-                }
-            } catch (Exception e) {
-                throw new RuntimeException(e);
+                return new Resolution(names.solve(filePaths, filePath), content);
+            } finally {
+                contents.remove(filePath);
             }
         }
 
-        public void setStartPoint(int startPoint) {
-            this.startPoint = startPoint;
+        // The resolver of a file that resolvesImports
+        ImportResolver importsOf(String filePath) {
+            return switch (FileService.getFileExtension(filePath)) {
+                case ".py", ".pyi" -> python;
+                case ".java" -> java;
+                default -> javaScript;
+            };
         }
 
-        public void setEndPoint(int endPoint) {
-            this.endPoint = endPoint;
+        // Name of the resolver of a file, for metrics
+        String typeOf(String filePath) {
+            return resolvesImports(filePath) ? languageOf(filePath) : resolverType;
         }
     }
 
+    /**
+     * Files found by name, and the content they were found in
+     */
+    private record Resolution(List<String> filePaths, ByteBuffer content) {
+    }
+
+    @FunctionalInterface
+    private interface FileTask<T> {
+        void run(T item) throws IOException, InterruptedException;
+    }
+
+    /**
+     * Files of the version being analysed, their blob ids and where to read them from.
+     */
+    private record Snapshot(List<String> filePaths, Map<String, String> blobIds, SourceReader sourceReader) implements AutoCloseable {
+        @Override
+        public void close() {
+            if (sourceReader instanceof GitSourceReader gitSourceReader) {
+                gitSourceReader.close();
+            }
+        }
+    }
+
+    /**
+     * Files that an analysis resolves against, along with what the resolution cache needs to know about them.
+     */
+    private class Candidates {
+        final List<String> filePaths;
+        final Map<String, List<String>> pathsByName = new HashMap<>();
+        final String fingerprint;
+
+        Candidates(List<String> filePaths) {
+            this.filePaths = filePaths;
+            for (String filePath : filePaths) {
+                pathsByName.computeIfAbsent(FileService.getFileNameWithoutExtension(filePath), k -> new ArrayList<>()).add(filePath);
+            }
+            this.fingerprint = resolutionCache.fingerprint(resolverType, filePaths);
+        }
+
+        // Turn cached names back into the paths a resolver would have given
+        List<String> pathsOf(List<String> names, String filePath) {
+            List<String> paths = new ArrayList<>();
+            for (String name : names) {
+                for (String path : pathsByName.getOrDefault(name, List.of())) {
+                    if (!path.equals(filePath)) {
+                        paths.add(path);
+                    }
+                }
+            }
+            return paths;
+        }
+    }
 }
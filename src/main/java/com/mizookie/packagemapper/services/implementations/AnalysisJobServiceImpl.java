@@ -0,0 +1,207 @@
+package com.mizookie.packagemapper.services.implementations;
+
+import com.mizookie.packagemapper.jobs.AnalysisJob;
+import com.mizookie.packagemapper.services.AnalyserService;
+import com.mizookie.packagemapper.services.AnalysisJobService;
+import com.mizookie.packagemapper.services.GithubRepositoryService;
+import com.mizookie.packagemapper.services.GraphService;
+import com.mizookie.packagemapper.utils.FileService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs each job on its own virtual thread. How many analyses actually run at once is still up to
+ * {@link AnalyserService}; jobs waiting for their turn are reported as running.
+ */
+@Slf4j
+@Service
+public class AnalysisJobServiceImpl implements AnalysisJobService {
+    private final AnalyserService analyserService;
+    private final GithubRepositoryService githubRepositoryService;
+    private final GraphService graphService;
+    private final Duration timeout;
+    // How long finished jobs can still be looked up
+    private final Duration retention;
+    private final Map<String, AnalysisJob> jobs = new ConcurrentHashMap<>();
+    // Queued or running job of each repository and commit
+    private final Map<String, AnalysisJob> inFlight = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timeouts = Executors.newSingleThreadScheduledExecutor();
+
+    @Autowired
+    public AnalysisJobServiceImpl(AnalyserService analyserService, GithubRepositoryService githubRepositoryService, GraphService graphService,
+                                  @Value("${analysis.jobs.timeout}") Duration timeout,
+                                  @Value("${analysis.jobs.retention}") Duration retention) {
+        this.analyserService = analyserService;
+        this.githubRepositoryService = githubRepositoryService;
+        this.graphService = graphService;
+        this.timeout = timeout;
+        this.retention = retention;
+    }
+
+    @Override
+    public AnalysisJob submit(String repositoryPath, String version) throws IOException {
+        return submit(repositoryPath, null, version);
+    }
+
+    @Override
+    public AnalysisJob submit(String repositoryPath, String baseVersion, String version) throws IOException {
+        String repositoryName = FileService.getFileNameOnly(repositoryPath);
+        // Branches and tags are resolved so that every name of a commit shares the same job
+        String commit = githubRepositoryService.resolveCommit(repositoryName, version);
+        // and so that the base graph, stored by commit, is found
+        String baseCommit = baseVersion == null ? null : githubRepositoryService.resolveCommit(repositoryName, baseVersion);
+        String key = String.format("%s_%s", repositoryName, commit);
+        removeExpiredJobs();
+        if (graphService.hasGraph(key)) {
+            log.info("{} at {} is already analysed", repositoryName, commit);
+            return done(new AnalysisJob(UUID.randomUUID().toString(), repositoryName, commit, baseCommit));
+        }
+
+        AnalysisJob created = new AnalysisJob(UUID.randomUUID().toString(), repositoryName, commit, baseCommit);
+        AnalysisJob job = claim(key, created);
+        if (job != created) {
+            log.info("{} at {} is already being analysed by job {}", repositoryName, commit, job.getId());
+            return job;
+        }
+        log.info("Job {} analyses {} at {}", job.getId(), repositoryName, commit);
+        start(job, repositoryPath, List.of(key));
+        return job;
+    }
+
+    @Override
+    public AnalysisJob submit(String repositoryPath, List<String> versions) throws IOException {
+        String repositoryName = FileService.getFileNameOnly(repositoryPath);
+        Set<String> commits = new LinkedHashSet<>();
+        for (String version : versions) {
+            commits.add(githubRepositoryService.resolveCommit(repositoryName, version));
+        }
+        removeExpiredJobs();
+        // Commits already analysed, or being analysed by another job, are left out. The others are claimed one by
+        // one, so single commit jobs asking for one of them wait for the batch instead
+        // Other jobs can already be given this one, and look at its versions, while it is claiming them
+        List<String> claimed = new CopyOnWriteArrayList<>();
+        AnalysisJob job = new AnalysisJob(UUID.randomUUID().toString(), repositoryName, claimed);
+        List<String> keys = new ArrayList<>();
+        for (String commit : commits) {
+            String key = String.format("%s_%s", repositoryName, commit);
+            if (graphService.hasGraph(key)) {
+                continue;
+            }
+            AnalysisJob running = claim(key, job);
+            if (running != job) {
+                log.info("{} at {} is already being analysed by job {}", repositoryName, commit, running.getId());
+                continue;
+            }
+            claimed.add(commit);
+            keys.add(key);
+        }
+        if (claimed.isEmpty()) {
+            log.info("None of the {} versions of {} is left to analyse", commits.size(), repositoryName);
+            return done(job);
+        }
+        log.info("Job {} analyses {} of {} versions of {}", job.getId(), claimed.size(), commits.size(), repositoryName);
+        start(job, repositoryPath, keys);
+        return job;
+    }
+
+    // The job queued or running for key, which is job unless another one was there first
+    private AnalysisJob claim(String key, AnalysisJob job) {
+        return inFlight.compute(key, (k, running) -> running != null && !running.getState().isDone() ? running : job);
+    }
+
+    // A job with nothing left to do, which can still be looked up like the others
+    private AnalysisJob done(AnalysisJob job) {
+        job.start(Thread.currentThread());
+        job.finish(null);
+        jobs.put(job.getId(), job);
+        return job;
+    }
+
+    private void start(AnalysisJob job, String repositoryPath, List<String> keys) {
+        jobs.put(job.getId(), job);
+        ScheduledFuture<?> timer = timeouts.schedule(() -> {
+            if (job.cancel(AnalysisJob.State.TIMED_OUT)) {
+                log.warn("Job {} timed out after {}", job.getId(), timeout);
+            }
+        }, timeout.toMillis(), TimeUnit.MILLISECONDS);
+        Thread.ofVirtual().name("analysis-" + job.getId()).start(() -> run(job, repositoryPath, keys, timer));
+    }
+
+    // keys are the repository and commit of each version the job analyses
+    private void run(AnalysisJob job, String repositoryPath, List<String> keys, ScheduledFuture<?> timer) {
+        Exception failure = null;
+        try {
+            if (!job.start(Thread.currentThread())) {
+                return; // Cancelled while queued
+            }
+            if (job.getVersions() != null) {
+                analyserService.analyse(repositoryPath, job.getVersions(), job);
+            } else if (job.getBaseVersion() == null) {
+                analyserService.analyse(repositoryPath, job.getVersion(), job);
+            } else {
+                analyserService.analyse(repositoryPath, job.getBaseVersion(), job.getVersion(), job);
+            }
+        } catch (Exception e) {
+            failure = e;
+        } finally {
+            timer.cancel(false);
+            keys.forEach(key -> inFlight.remove(key, job));
+            if (job.getStartedAt() != null) {
+                job.finish(failure);
+            }
+        }
+        log.info("Job {} {}: {}/{} files resolved", job.getId(), job.getState(), job.getFilesResolved(), job.getFilesQueued());
+        if (job.getState() == AnalysisJob.State.FAILED) {
+            log.error("Job {} failed", job.getId(), failure);
+        }
+    }
+
+    private void removeExpiredJobs() {
+        Instant expiry = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.getFinishedAt() != null && job.getFinishedAt().isBefore(expiry));
+    }
+
+    @Override
+    public AnalysisJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    @Override
+    public Collection<AnalysisJob> getJobs() {
+        removeExpiredJobs();
+        return jobs.values().stream().sorted(Comparator.comparing(AnalysisJob::getSubmittedAt)).toList();
+    }
+
+    @Override
+    public boolean cancel(String id) {
+        AnalysisJob job = jobs.get(id);
+        return job != null && job.cancel(AnalysisJob.State.CANCELLED);
+    }
+
+    @PreDestroy
+    public void cancelAll() {
+        jobs.values().forEach(job -> job.cancel(AnalysisJob.State.CANCELLED));
+        timeouts.shutdownNow();
+    }
+}
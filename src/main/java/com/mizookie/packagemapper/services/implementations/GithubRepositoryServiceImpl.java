@@ -1,12 +1,25 @@
 package com.mizookie.packagemapper.services.implementations;
 
+import com.mizookie.packagemapper.resolver.BinaryBlobCache;
+import com.mizookie.packagemapper.resolver.GitSourceReader;
+import com.mizookie.packagemapper.visitors.SourceFileFilter;
 import com.mizookie.packagemapper.services.GithubRepositoryService;
 import com.mizookie.packagemapper.utils.FileService;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.LogCommand;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Service;
@@ -17,7 +30,9 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Implementation of the GithubRepositoryService interface that provides methods
@@ -33,6 +48,12 @@ public class GithubRepositoryServiceImpl implements GithubRepositoryService {
     // Absolute path to the user's repository directory (local)
     private String userRepositoryDirectory;
     private Git git;
+    // Shared by the commits read from the git object database, see GitSourceReader
+    private final BinaryBlobCache binaryBlobs;
+
+    public GithubRepositoryServiceImpl(@Value("${cache.binary-blobs.max-entries}") int maxBinaryBlobs) {
+        this.binaryBlobs = new BinaryBlobCache(maxBinaryBlobs);
+    }
 
     /**
      * Downloads a public GitHub repository to the local file system.
@@ -174,10 +195,92 @@ public class GithubRepositoryServiceImpl implements GithubRepositoryService {
         return getRepoCommitVersions(repositoryName, null, 1).get(0);
     }
 
+    public String resolveCommit(String repositoryName, String version) throws IOException {
+        try (Repository repository = openRepository(repositoryName);
+             RevWalk revWalk = new RevWalk(repository)) {
+            return revWalk.parseCommit(resolve(repository, version)).getName();
+        }
+    }
+
     public void checkoutCommit(String repositoryName, String version) throws IOException, GitAPIException {
         getRepoCommitVersions(repositoryName, version, 0);
     }
 
+    public List<DiffEntry> getChangedFiles(String repositoryName, String fromVersion, String toVersion) throws IOException {
+        try (Repository repository = openRepository(repositoryName);
+             RevWalk revWalk = new RevWalk(repository);
+             DiffFormatter formatter = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+            formatter.setRepository(repository);
+            formatter.setDetectRenames(true);
+            return formatter.scan(parseTree(repository, revWalk, fromVersion), parseTree(repository, revWalk, toVersion));
+        }
+    }
+
+    public Map<String, String> getBlobIds(String repositoryName, String version) throws IOException {
+        Map<String, String> blobIds = new HashMap<>();
+        try (Repository repository = openRepository(repositoryName);
+             RevWalk revWalk = new RevWalk(repository);
+             TreeWalk treeWalk = new TreeWalk(repository)) {
+            treeWalk.addTree(parseTree(repository, revWalk, version));
+            treeWalk.setRecursive(true);
+            while (treeWalk.next()) {
+                if (treeWalk.getFileMode(0).getObjectType() == Constants.OBJ_BLOB) {
+                    blobIds.put(treeWalk.getPathString(), treeWalk.getObjectId(0).name());
+                }
+            }
+        }
+        return blobIds;
+    }
+
+    public GitSourceReader openSources(String repositoryPath, String version, SourceFileFilter filter) throws IOException {
+        Repository repository = openRepository(FileService.getFileNameOnly(repositoryPath));
+        try (RevWalk revWalk = new RevWalk(repository)) {
+            return new GitSourceReader(repository, parseTree(repository, revWalk, version), repositoryPath, filter, binaryBlobs);
+        } catch (IOException e) {
+            repository.close();
+            throw e;
+        }
+    }
+
+    public GitSourceReader openBlobs(String repositoryName, Map<String, String> blobIds) throws IOException {
+        return new GitSourceReader(openRepository(repositoryName), blobIds);
+    }
+
+    public List<String> getCommits(String repositoryName, String fromVersion, String toVersion) throws IOException {
+        List<String> commits = new ArrayList<>();
+        try (Repository repository = openRepository(repositoryName);
+             RevWalk revWalk = new RevWalk(repository)) {
+            revWalk.markStart(revWalk.parseCommit(resolve(repository, toVersion)));
+            if (fromVersion != null) {
+                revWalk.markUninteresting(revWalk.parseCommit(resolve(repository, fromVersion)));
+            }
+            revWalk.sort(RevSort.TOPO, true);
+            revWalk.sort(RevSort.REVERSE, true);
+            revWalk.forEach(commit -> commits.add(commit.getName()));
+        }
+        return commits;
+    }
+
+    private static ObjectId resolve(Repository repository, String version) throws IOException {
+        ObjectId commitId = repository.resolve(version == null ? Constants.HEAD : version);
+        if (commitId == null) {
+            throw new IOException("Unknown version: " + version);
+        }
+        return commitId;
+    }
+
+    private RevTree parseTree(Repository repository, RevWalk revWalk, String version) throws IOException {
+        return revWalk.parseCommit(resolve(repository, version)).getTree();
+    }
+
+    private Repository openRepository(String repositoryName) throws IOException {
+        return new FileRepositoryBuilder()
+                .setGitDir(new File(new File(localRepositoryDirectory, repositoryName), ".git"))
+                .readEnvironment()
+                .findGitDir()
+                .build();
+    }
+
     // Helper method to extract the repository name from the URL
     private String getRepositoryName(String repositoryUrlString) {
         return FileService.getFileNameWithoutExtension(repositoryUrlString);
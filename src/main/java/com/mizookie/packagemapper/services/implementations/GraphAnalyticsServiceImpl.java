@@ -0,0 +1,114 @@
+package com.mizookie.packagemapper.services.implementations;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mizookie.packagemapper.dto.user.GraphAnalyticsReport;
+import com.mizookie.packagemapper.graph.BinaryGraph;
+import com.mizookie.packagemapper.graph.CsrGraph;
+import com.mizookie.packagemapper.graph.StructuralAnalysis;
+import com.mizookie.packagemapper.services.GraphAnalyticsService;
+import com.mizookie.packagemapper.services.GraphService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+@Slf4j
+@Service
+public class GraphAnalyticsServiceImpl implements GraphAnalyticsService {
+    private static final String EXTENSION = ".analytics.json";
+
+    private final GraphService graphService;
+    private final ObjectMapper objectMapper;
+    // Most cycles listed, and most files of a component cycles are searched from
+    private final int maxCycles;
+    @Value("${analysis.directory}")
+    private String analysisDirectory;
+
+    public GraphAnalyticsServiceImpl(GraphService graphService, ObjectMapper objectMapper, @Value("${analysis.analytics.max-cycles}") int maxCycles) {
+        this.graphService = graphService;
+        this.objectMapper = objectMapper;
+        this.maxCycles = maxCycles;
+    }
+
+    @Override
+    public GraphAnalyticsReport computeAnalytics(String fileName) throws IOException {
+        CsrGraph graph = graphService.getCsrGraph(fileName);
+        long start = System.currentTimeMillis();
+        GraphAnalyticsReport report = toReport(graph, StructuralAnalysis.of(graph, maxCycles));
+        // Written next to the analytics and swapped, so readers never see half of them
+        Path temporaryFile = Files.createTempFile(Paths.get(analysisDirectory), fileName, EXTENSION + ".tmp");
+        try {
+            objectMapper.writeValue(temporaryFile.toFile(), report);
+            Files.move(temporaryFile, getPath(fileName), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+        log.info("Analytics of {} done in {} ms: {} components in cycles, {} cycles, {} layers", fileName, System.currentTimeMillis() - start,
+                report.getComponents().size(), report.getCycles().size(), report.getLayerCount());
+        return report;
+    }
+
+    @Override
+    public Path getAnalyticsFile(String fileName) throws IOException {
+        Path graphFile = Paths.get(analysisDirectory, fileName + BinaryGraph.EXTENSION);
+        if (!Files.exists(graphFile)) {
+            // Not stored, or only as .gv, which this converts
+            graphService.getCsrGraph(fileName);
+        }
+        Path analyticsFile = getPath(fileName);
+        if (!Files.exists(analyticsFile) || Files.getLastModifiedTime(analyticsFile).compareTo(Files.getLastModifiedTime(graphFile)) < 0) {
+            computeAnalytics(fileName);
+        }
+        return analyticsFile;
+    }
+
+    private Path getPath(String fileName) {
+        return Paths.get(analysisDirectory, fileName + EXTENSION);
+    }
+
+    private static GraphAnalyticsReport toReport(CsrGraph graph, StructuralAnalysis analysis) {
+        // Components of more than one file, largest first, and where each one ends up in the report
+        List<Integer> cyclic = IntStream.range(0, analysis.getComponentCount())
+                .filter(c -> analysis.getComponentSize(c) > 1).boxed()
+                .sorted(Comparator.comparingInt(analysis::getComponentSize).reversed())
+                .toList();
+        int[] indices = new int[analysis.getComponentCount()];
+        List<List<String>> components = new ArrayList<>();
+        for (int c : cyclic) {
+            indices[c] = components.size() + 1;
+            components.add(new ArrayList<>(analysis.getComponentSize(c)));
+        }
+
+        List<GraphAnalyticsReport.NodeReport> nodes = new ArrayList<>(graph.getVertexCount());
+        for (int v = 0; v < graph.getVertexCount(); ++v) {
+            int index = indices[analysis.getComponent(v)] - 1;
+            if (index >= 0) {
+                components.get(index).add(graph.getPath(v));
+            }
+            // Edges go from the file used to the file using it
+            nodes.add(new GraphAnalyticsReport.NodeReport(graph.getPath(v), graph.getOutDegree(v), graph.getInDegree(v),
+                    analysis.getLayer(v), index >= 0 ? index : null));
+        }
+
+        GraphAnalyticsReport report = new GraphAnalyticsReport();
+        report.setVertexCount(graph.getVertexCount());
+        report.setEdgeCount(graph.getEdgeCount());
+        report.setLayerCount(analysis.getLayerCount());
+        report.setComponents(components);
+        report.setCycles(analysis.getCycles().stream()
+                .map(cycle -> IntStream.of(cycle).mapToObj(graph::getPath).toList())
+                .toList());
+        report.setCyclesTruncated(analysis.isCyclesTruncated());
+        report.setNodes(nodes);
+        return report;
+    }
+}
@@ -1,9 +1,19 @@
 package com.mizookie.packagemapper.services.implementations;
 
+import com.mizookie.packagemapper.graph.BinaryGraph;
+import com.mizookie.packagemapper.graph.CsrGraph;
+import com.mizookie.packagemapper.graph.GraphBuilder;
+import com.mizookie.packagemapper.graph.GraphCache;
+import com.mizookie.packagemapper.graph.GraphDiff;
+import com.mizookie.packagemapper.graph.GraphRollup;
+import com.mizookie.packagemapper.graph.SvgRenderer;
 import com.mizookie.packagemapper.services.GithubRepositoryService;
 import com.mizookie.packagemapper.services.GraphService;
 import com.mxgraph.layout.mxCircleLayout;
 import com.mxgraph.util.mxCellRenderer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
 import org.jgrapht.Graph;
 import org.jgrapht.ext.JGraphXAdapter;
 import org.jgrapht.graph.DefaultDirectedGraph;
@@ -15,28 +25,54 @@ import org.jgrapht.nio.dot.DOTImporter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 
 import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.*;
 
+@Slf4j
 @Service
 public class GraphServiceImpl implements GraphService {
-
     // JGraphT graph to store dependencies between classes
     private Graph<String, DefaultEdge> dependencyGraph;
 
     @Value("${analysis.directory}")
     private String analysisDirectory;
+    // Whether graphs are also stored as .gv files, for graphviz and other tools
+    @Value("${graph.export.dot}")
+    private boolean exportDot;
+    // Most vertices and edges drawn at once, the graph is rolled up or drawn in tiles past that
+    @Value("${graph.render.max-vertices}")
+    private int maxRenderedVertices;
+    @Value("${graph.render.max-edges}")
+    private int maxRenderedEdges;
+    // Imported graphs, as immutable snapshots
+    private final GraphCache<CsrGraph> graphCache;
+    // Rolled up graphs, by graph and level
+    private final GraphCache<GraphRollup> rollupCache;
+    // Diffs between two graphs, by the graph diffed from then the one diffed to
+    private final GraphCache<GraphDiff> diffCache;
+    private final MeterRegistry registry;
 
     @Autowired
     // Constructor to initialize the graph
-    public GraphServiceImpl(GithubRepositoryService githubService) {
+    public GraphServiceImpl(GithubRepositoryService githubService, MeterRegistry registry, @Value("${graph.cache.max-size}") DataSize maxCacheSize,
+                            @Value("${graph.cache.rollups.max-size}") DataSize maxRollupCacheSize,
+                            @Value("${graph.cache.diffs.max-size}") DataSize maxDiffCacheSize) {
         // Initialize a directed graph
         this.dependencyGraph = new DefaultDirectedGraph<>(DefaultEdge.class);
+        this.graphCache = new GraphCache<>(maxCacheSize.toBytes(), CsrGraph::estimateBytes);
+        this.rollupCache = new GraphCache<>(maxRollupCacheSize.toBytes(), GraphRollup::estimateBytes);
+        this.diffCache = new GraphCache<>(maxDiffCacheSize.toBytes(), GraphDiff::estimateBytes);
+        this.registry = registry;
     }
 
     public static Graph<String, DefaultEdge> createMediumGraph() {
@@ -94,9 +130,26 @@ public class GraphServiceImpl implements GraphService {
         dependencyGraph.addEdge(source, target);
     }
 
+    @Override
+    public GraphBuilder newGraphBuilder() {
+        return new GraphBuilder();
+    }
+
     // Display the graph
     @Override
     public void displayGraph(String repositoryName) {
+        if (dependencyGraph.vertexSet().size() > maxRenderedVertices || dependencyGraph.edgeSet().size() > maxRenderedEdges) {
+            // Too big to lay out and rasterise in memory, stream it as SVG instead
+            File svgFile = new File(analysisDirectory, repositoryName + ".svg");
+            try (Writer writer = new BufferedWriter(new FileWriter(svgFile, StandardCharsets.UTF_8))) {
+                getRenderer(CsrGraph.of(dependencyGraph), null, "", null, null).write(writer);
+                log.info("Graph image saved to: {}", svgFile.getAbsolutePath());
+            } catch (IOException | IllegalArgumentException e) {
+                log.error("Failed to draw the graph of {}: {}", repositoryName, e.getMessage());
+            }
+            return;
+        }
+
         // Create a file to save the image
         String fileName = analysisDirectory + "/" + repositoryName + ".png";
         File imgFile = new File(fileName);
@@ -114,26 +167,178 @@ public class GraphServiceImpl implements GraphService {
         // Write the BufferedImage to a file
         try {
             ImageIO.write(image, "PNG", imgFile);
-            System.out.println("Graph image saved to: " + imgFile.getAbsolutePath());
+            log.info("Graph image saved to: {}", imgFile.getAbsolutePath());
         } catch (IOException e) {
-            e.printStackTrace();
+            log.error("Failed to draw the graph of {}: {}", repositoryName, e.getMessage());
+        }
+    }
+
+    @Override
+    public SvgRenderer getRenderer(String fileName, String prefix, Integer level, SvgRenderer.Tile tile) throws IOException {
+        return getRenderer(getCsrGraph(fileName), prefix.isEmpty() ? fileName : null, prefix, level, tile);
+    }
+
+    // The whole graph is rolled up through the cache when it is stored as fileName, the paths of a prefix never are
+    private SvgRenderer getRenderer(CsrGraph graph, String fileName, String prefix, Integer level, SvgRenderer.Tile tile) throws IOException {
+        int[] range = graph.getDictionary().rangeOf(prefix);
+        GraphRollup rollup = level == null ? rollUpToFit(graph, fileName, range[0], range[1]) : rollUp(graph, fileName, level, range[0], range[1]);
+        SvgRenderer renderer = new SvgRenderer(rollup, tile);
+        if (renderer.getDrawnVertexCount() > maxRenderedVertices || renderer.getDrawnEdgeCount() > maxRenderedEdges) {
+            throw new IllegalArgumentException(String.format("%d vertices and %d edges to draw at level %d, at most %d and %d can be drawn at once. "
+                            + "Draw fewer paths, a tile or roll the graph up to a smaller level", renderer.getDrawnVertexCount(), renderer.getDrawnEdgeCount(),
+                    rollup.getLevel(), maxRenderedVertices, maxRenderedEdges));
+        }
+        return renderer;
+    }
+
+    // Files if they fit within the limits, otherwise the deepest directories that do, or top-level ones if none do
+    private GraphRollup rollUpToFit(CsrGraph graph, String fileName, int from, int to) throws IOException {
+        int depth = GraphRollup.getDepth(graph, from, to);
+        GraphRollup rollup = null;
+        for (int level = depth + 1; level > 0; --level) {
+            // No file is more than depth directories deep, so nothing would be rolled up at depth + 1
+            int rollupLevel = level > depth ? GraphRollup.FILES : level;
+            if (GraphRollup.countGroups(graph, rollupLevel, from, to) > maxRenderedVertices) {
+                continue;
+            }
+            rollup = rollUp(graph, fileName, rollupLevel, from, to);
+            if (rollup.getEdgeCount() <= maxRenderedEdges) {
+                return rollup;
+            }
+        }
+        return rollup == null ? rollUp(graph, fileName, 1, from, to) : rollup;
+    }
+
+    private GraphRollup rollUp(CsrGraph graph, String fileName, int level, int from, int to) throws IOException {
+        return fileName == null ? GraphRollup.of(graph, level, from, to) : getRollup(fileName, level);
+    }
+
+    @Override
+    public GraphRollup getRollup(String fileName, int level) throws IOException {
+        Timer.Sample sample = Timer.start(registry);
+        String key = getRollupKey(fileName, level);
+        // Taken first, so a rollup of a graph stored again meanwhile isn't cached
+        long generation = rollupCache.getGeneration();
+        GraphRollup rollup = rollupCache.get(key);
+        boolean cached = rollup != null;
+        if (!cached) {
+            rollup = GraphRollup.of(getCsrGraph(fileName), level);
+            rollupCache.put(key, rollup, generation);
         }
+        sample.stop(Timer.builder("packagemapper.graph.rollup").description("Time spent getting a rolled up graph")
+                .tag("cache", cached ? "hit" : "miss").register(registry));
+        return rollup;
+    }
+
+    private static String getRollupKey(String fileName, int level) {
+        return fileName + "#" + level;
+    }
+
+    @Override
+    public GraphDiff getDiff(String fromFileName, String toFileName) throws IOException {
+        Timer.Sample sample = Timer.start(registry);
+        String key = getDiffKey(fromFileName, toFileName);
+        long generation = diffCache.getGeneration();
+        GraphDiff diff = diffCache.get(key);
+        boolean cached = diff != null;
+        if (!cached) {
+            diff = GraphDiff.of(getCsrGraph(fromFileName), getCsrGraph(toFileName));
+            diffCache.put(key, diff, generation);
+        }
+        sample.stop(Timer.builder("packagemapper.graph.diff").description("Time spent getting the diff between two graphs")
+                .tag("cache", cached ? "hit" : "miss").register(registry));
+        return diff;
+    }
+
+    // Git refs can't contain "..", and names are repository_ref
+    private static String getDiffKey(String fromFileName, String toFileName) {
+        return fromFileName + ".." + toFileName;
     }
 
     public void serializeGraph(String repositoryName, String version) throws IOException {
+        serializeGraph(dependencyGraph, repositoryName, version);
+    }
+
+    public void serializeGraph(Graph<String, DefaultEdge> graph, String repositoryName, String version) throws IOException {
+        String fileName = String.format("%s_%s", repositoryName, version);
+        Timer.Sample sample = Timer.start(registry);
+        CsrGraph csrGraph = CsrGraph.of(graph);
+        BinaryGraph.write(csrGraph, Paths.get(analysisDirectory, fileName + BinaryGraph.EXTENSION));
+        // Replaces the graph of a version that is analysed again, and keeps loads of the old file from caching it after
+        graphCache.removeIf(fileName::equals);
+        graphCache.put(fileName, csrGraph);
+        // Its rollups were made from the graph it replaces
+        rollupCache.removeIf(key -> key.startsWith(fileName + "#"));
+        diffCache.removeIf(key -> key.startsWith(fileName + "..") || key.endsWith(".." + fileName));
+        if (exportDot) {
+            try (Writer writer = new BufferedWriter(new FileWriter(new File(analysisDirectory, fileName + ".gv")))) {
+                exportDot(graph, writer);
+            }
+        }
+        sample.stop(Timer.builder("packagemapper.graph.serialize").description("Time spent storing a graph")
+                .tag("repository", repositoryName).register(registry));
+    }
+
+    public void exportDot(Graph<String, DefaultEdge> graph, Writer writer) {
         DOTExporter<String, DefaultEdge> exporter = new DOTExporter<>();
         exporter.setVertexAttributeProvider((v) -> {
             Map<String, Attribute> map = new LinkedHashMap<>();
             map.put("label", DefaultAttribute.createAttribute(v));
             return map;
         });
-        exporter.exportGraph(dependencyGraph, new FileWriter(new File(analysisDirectory, String.format("%s_%s.gv", repositoryName, version))));
+        exporter.exportGraph(graph, writer);
     }
 
-    public Graph<String, DefaultEdge> importGraph(String fileName) throws FileNotFoundException {
+    public Graph<String, DefaultEdge> importGraph(String fileName) throws IOException {
+        return getCsrGraph(fileName).toGraph();
+    }
+
+    @Override
+    public CsrGraph getCsrGraph(String fileName) throws IOException {
+        Timer.Sample sample = Timer.start(registry);
+        // Taken first, so a graph stored again while the old one is loaded isn't replaced by it
+        long generation = graphCache.getGeneration();
+        CsrGraph graph = graphCache.get(fileName);
+        boolean cached = graph != null;
+        if (!cached) {
+            graph = loadGraph(fileName);
+            graphCache.put(fileName, graph, generation);
+        }
+        sample.stop(Timer.builder("packagemapper.graph.import").description("Time spent getting a stored graph")
+                .tag("cache", cached ? "hit" : "miss").register(registry));
+        return graph;
+    }
+
+    @Override
+    public boolean hasGraph(String fileName) {
+        return Files.exists(Paths.get(analysisDirectory, fileName + BinaryGraph.EXTENSION)) || Files.exists(Paths.get(analysisDirectory, fileName + ".gv"));
+    }
+
+    @Override
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = graphCache.getStats();
+        stats.put("rollups", rollupCache.getStats());
+        stats.put("diffs", diffCache.getStats());
+        return stats;
+    }
+
+    private CsrGraph loadGraph(String fileName) throws IOException {
+        Path binaryFile = Paths.get(analysisDirectory, fileName + BinaryGraph.EXTENSION);
+        if (binaryFile.toFile().exists()) {
+            return CsrGraph.of(BinaryGraph.open(binaryFile));
+        }
+
+        // Import into a new graph so that graphs of different versions don't get mixed up
+        Graph<String, DefaultEdge> graph = new DefaultDirectedGraph<>(DefaultEdge.class);
         DOTImporter<String, DefaultEdge> importer = new DOTImporter<>();
         importer.setVertexWithAttributesFactory((k, l) -> String.valueOf(l.get("label")));
-        importer.importGraph(dependencyGraph, new FileReader(new File(analysisDirectory, fileName.concat(".gv"))));
-        return dependencyGraph;
+        try (Reader reader = new BufferedReader(new FileReader(new File(analysisDirectory, fileName.concat(".gv"))))) {
+            importer.importGraph(graph, reader);
+        }
+        // Stored before the binary format, convert it so the next import is fast
+        log.info("Converting {}.gv to the binary format", fileName);
+        CsrGraph csrGraph = CsrGraph.of(graph);
+        BinaryGraph.write(csrGraph, binaryFile);
+        return csrGraph;
     }
 }
\ No newline at end of file
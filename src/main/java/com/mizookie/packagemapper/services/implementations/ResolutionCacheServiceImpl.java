@@ -0,0 +1,440 @@
+package com.mizookie.packagemapper.services.implementations;
+
+import com.mizookie.packagemapper.resolver.TokenFilter;
+import com.mizookie.packagemapper.services.ResolutionCacheService;
+import com.mizookie.packagemapper.utils.FileService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Least recently used cache of resolution results, stored in {@code resolution-cache.bin} under the analysis directory.
+ * It is bounded by the estimated memory its results take, most of which is their filters.
+ * <p>
+ * A result is kept per blob along with the names it was resolved against. Asked for other names, it still holds as
+ * long as the file certainly doesn't mention any of the names added since, which the {@link TokenFilter} of the file
+ * tells without reading it. Removed names are simply left out.
+ * <p>
+ * The file is a log: each save appends the results added since the previous one, and the log is only written again
+ * from scratch once it holds twice as many results as the cache.
+ */
+@Slf4j
+@Service
+public class ResolutionCacheServiceImpl implements ResolutionCacheService {
+    private static final int FORMAT_VERSION = 2;
+    private static final String CACHE_FILE_NAME = "resolution-cache.bin";
+    private static final byte NAME_SET = 1, ENTRY = 2;
+    // Logs smaller than this are never compacted
+    private static final int MIN_COMPACTED_RECORDS = 1024;
+
+    private final boolean enabled;
+    private final long maxBytes;
+    // Keyed by blob id and resolver type, least recently used first
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes = 0;
+    private final Map<String, NameSet> nameSets = new HashMap<>();
+    // Entries put since the last save
+    private final Map<String, Entry> pending = new LinkedHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    // Names added from one name set to another, by both fingerprints
+    private final Map<String, AddedNames> addedNames = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong(), misses = new AtomicLong(), hitsAcrossNames = new AtomicLong();
+    // Held while writing the file, and guards the fields below
+    private final ReentrantLock fileLock = new ReentrantLock();
+    private final Set<String> writtenNameSets = new HashSet<>();
+    private long records = 0;
+    private boolean rewrite = true;
+    @Value("${analysis.directory}")
+    private String analysisDirectory;
+
+    public ResolutionCacheServiceImpl(@Value("${cache.resolution.enabled}") boolean enabled,
+                                      @Value("${cache.resolution.max-size}") DataSize maxSize) {
+        this.enabled = enabled;
+        this.maxBytes = maxSize.toBytes();
+    }
+
+    /**
+     * Names a result was resolved against. A shared name belongs to several files.
+     */
+    private static class NameSet {
+        final String fingerprint;
+        final String resolverType;
+        final Map<String, Boolean> shared;
+        // Whether it was asked for since the last compaction, so sets of running analyses are kept
+        boolean used = true;
+
+        NameSet(String fingerprint, String resolverType, Map<String, Boolean> shared) {
+            this.fingerprint = fingerprint;
+            this.resolverType = resolverType;
+            this.shared = shared;
+        }
+    }
+
+    private record Entry(String blobId, NameSet nameSet, List<String> names, TokenFilter tokens) {
+        // Estimated memory taken by the entry and its key, name sets aside since entries share them
+        long bytes() {
+            long bytes = 2 * (48 + 2L * blobId.length()) + 32 + 16 + 8L * tokens.getBits().length;
+            for (String name : names) {
+                bytes += 48 + 2L * name.length();
+            }
+            return bytes;
+        }
+    }
+
+    private static String key(String blobId, String resolverType) {
+        return blobId + ":" + resolverType;
+    }
+
+    @Override
+    public String fingerprint(String resolverType, Collection<String> filePaths) {
+        // Whether a name is shared matters too: a file mentioning its own name only refers to the other files with that name
+        TreeMap<String, Boolean> shared = new TreeMap<>();
+        for (String filePath : filePaths) {
+            shared.merge(FileService.getFileNameWithoutExtension(filePath), false, (a, b) -> true);
+        }
+        String fingerprint;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(resolverType.getBytes(StandardCharsets.UTF_8));
+            for (Map.Entry<String, Boolean> name : shared.entrySet()) {
+                digest.update((byte) (name.getValue() ? 1 : 0));
+                digest.update(name.getKey().getBytes(StandardCharsets.UTF_8));
+            }
+            fingerprint = HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        if (enabled) {
+            lock.lock();
+            try {
+                nameSets.computeIfAbsent(fingerprint, k -> new NameSet(fingerprint, resolverType, new HashMap<>(shared))).used = true;
+            } finally {
+                lock.unlock();
+            }
+        }
+        return fingerprint;
+    }
+
+    @Override
+    public List<String> get(String blobId, String fingerprint) {
+        if (!enabled) {
+            return null;
+        }
+        NameSet nameSet;
+        Entry entry;
+        lock.lock();
+        try {
+            nameSet = nameSets.get(fingerprint);
+            if (nameSet == null) {
+                entry = null;
+            } else {
+                nameSet.used = true;
+                entry = entries.get(key(blobId, nameSet.resolverType));
+            }
+        } finally {
+            lock.unlock();
+        }
+        List<String> names = entry == null ? null : namesOf(entry, nameSet);
+        (names == null ? misses : hits).incrementAndGet();
+        return names;
+    }
+
+    // What the file of the entry mentions among the names of nameSet, or null if that can't be told without reading it
+    private List<String> namesOf(Entry entry, NameSet nameSet) {
+        if (entry.nameSet() == nameSet) {
+            return entry.names();
+        }
+        AddedNames added = getAddedNames(entry.nameSet(), nameSet);
+        for (String name : added.names()) {
+            if (entry.tokens().mightContain(name)) {
+                return null;
+            }
+        }
+        for (String name : added.nowShared()) {
+            // Found already if it isn't the file's own name
+            if (!entry.names().contains(name) && entry.tokens().mightContain(name)) {
+                return null;
+            }
+        }
+        hitsAcrossNames.incrementAndGet();
+        return entry.names().stream().filter(nameSet.shared::containsKey).toList();
+    }
+
+    /**
+     * Names of a name set that another one doesn't have, and names that only became shared: a file mentioning its
+     * own name didn't refer to anything before.
+     */
+    private record AddedNames(List<String> names, List<String> nowShared) {
+    }
+
+    private AddedNames getAddedNames(NameSet from, NameSet to) {
+        return addedNames.computeIfAbsent(from.fingerprint + ".." + to.fingerprint, k -> {
+            AddedNames added = new AddedNames(new ArrayList<>(), new ArrayList<>());
+            to.shared.forEach((name, shared) -> {
+                Boolean wasShared = from.shared.get(name);
+                if (wasShared == null) {
+                    added.names().add(name);
+                } else if (shared && !wasShared) {
+                    added.nowShared().add(name);
+                }
+            });
+            return added;
+        });
+    }
+
+    @Override
+    public void put(String blobId, String fingerprint, List<String> names, ByteBuffer content) {
+        if (!enabled) {
+            return;
+        }
+        TokenFilter tokens = TokenFilter.of(content.duplicate());
+        lock.lock();
+        try {
+            NameSet nameSet = nameSets.get(fingerprint);
+            if (nameSet == null) {
+                return;
+            }
+            String key = key(blobId, nameSet.resolverType);
+            Entry entry = new Entry(blobId, nameSet, List.copyOf(names), tokens);
+            add(key, entry);
+            pending.put(key, entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Add an entry with the lock held, then evict the least recently used ones until the cache fits its budget again.
+    // Entries bigger than the whole budget are never added.
+    private void add(String key, Entry entry) {
+        Entry previous = entries.remove(key);
+        if (previous != null) {
+            bytes -= previous.bytes();
+        }
+        if (entry.bytes() > maxBytes) {
+            return;
+        }
+        entries.put(key, entry);
+        bytes += entry.bytes();
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().bytes();
+            eldest.remove();
+        }
+    }
+
+    @PostConstruct
+    void load() {
+        File cacheFile = new File(analysisDirectory, CACHE_FILE_NAME);
+        if (!enabled || !cacheFile.exists()) {
+            return;
+        }
+        long read = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                log.info("Ignoring resolution cache with an old format");
+                return;
+            }
+            lock.lock();
+            try {
+                int kind;
+                while ((kind = in.read()) != -1) {
+                    if (kind == NAME_SET) {
+                        NameSet nameSet = readNameSet(in);
+                        nameSet.used = false;
+                        nameSets.put(nameSet.fingerprint, nameSet);
+                        writtenNameSets.add(nameSet.fingerprint);
+                    } else if (kind == ENTRY) {
+                        Entry entry = readEntry(in);
+                        if (entry != null) {
+                            add(key(entry.blobId(), entry.nameSet().resolverType), entry);
+                        }
+                        ++read;
+                    } else {
+                        throw new IOException("Unknown record " + kind);
+                    }
+                }
+                records = read;
+                // Grown too big for the entries it still holds, the next save writes it again
+                rewrite = records > Math.max(MIN_COMPACTED_RECORDS, 2L * entries.size());
+            } finally {
+                lock.unlock();
+            }
+            log.info("Loaded {} resolution cache entries", entries.size());
+        } catch (IOException e) {
+            // Likely cut short by a crash while appending: what was read is kept and the next save writes it again
+            log.error("Failed to load resolution cache after {} records: {}", read, e.getMessage());
+        }
+    }
+
+    private NameSet readNameSet(DataInputStream in) throws IOException {
+        String fingerprint = in.readUTF();
+        String resolverType = in.readUTF();
+        Map<String, Boolean> shared = new HashMap<>();
+        int count = in.readInt();
+        for (int i = 0; i < count; ++i) {
+            shared.put(in.readUTF(), in.readBoolean());
+        }
+        return new NameSet(fingerprint, resolverType, shared);
+    }
+
+    private Entry readEntry(DataInputStream in) throws IOException {
+        String blobId = in.readUTF();
+        NameSet nameSet = nameSets.get(in.readUTF());
+        String[] names = new String[in.readInt()];
+        for (int i = 0; i < names.length; ++i) {
+            names[i] = in.readUTF();
+        }
+        long[] bits = new long[in.readInt()];
+        for (int i = 0; i < bits.length; ++i) {
+            bits[i] = in.readLong();
+        }
+        return nameSet == null ? null : new Entry(blobId, nameSet, List.of(names), new TokenFilter(bits));
+    }
+
+    private void writeNameSet(DataOutputStream out, NameSet nameSet) throws IOException {
+        out.writeByte(NAME_SET);
+        out.writeUTF(nameSet.fingerprint);
+        out.writeUTF(nameSet.resolverType);
+        out.writeInt(nameSet.shared.size());
+        for (Map.Entry<String, Boolean> name : nameSet.shared.entrySet()) {
+            out.writeUTF(name.getKey());
+            out.writeBoolean(name.getValue());
+        }
+    }
+
+    private void writeEntry(DataOutputStream out, Entry entry) throws IOException {
+        // The names an entry was resolved against are written before it
+        if (writtenNameSets.add(entry.nameSet().fingerprint)) {
+            writeNameSet(out, entry.nameSet());
+        }
+        out.writeByte(ENTRY);
+        out.writeUTF(entry.blobId());
+        out.writeUTF(entry.nameSet().fingerprint);
+        out.writeInt(entry.names().size());
+        for (String name : entry.names()) {
+            out.writeUTF(name);
+        }
+        long[] bits = entry.tokens().getBits();
+        out.writeInt(bits.length);
+        for (long word : bits) {
+            out.writeLong(word);
+        }
+    }
+
+    @PreDestroy
+    @Override
+    public void save() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        // Entries are only copied under the lock, analyses go on while they are written
+        fileLock.lock();
+        try {
+            List<Entry> toWrite;
+            boolean compact;
+            lock.lock();
+            try {
+                if (pending.isEmpty() && !rewrite) {
+                    return;
+                }
+                compact = rewrite || records + pending.size() > Math.max(MIN_COMPACTED_RECORDS, 2L * entries.size());
+                // Least recently used first, so the order survives a reload
+                toWrite = new ArrayList<>(compact ? entries.values() : pending.values());
+                pending.clear();
+                if (compact) {
+                    pruneNameSets();
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                if (compact) {
+                    compact(toWrite);
+                } else {
+                    append(toWrite);
+                }
+            } catch (IOException e) {
+                // What was taken from pending may be half written, so the whole cache is written next time
+                rewrite = true;
+                throw e;
+            }
+            log.info("Resolution cache saved, {} results {}: {}", toWrite.size(), compact ? "in total" : "appended", getStats());
+        } finally {
+            fileLock.unlock();
+        }
+    }
+
+    // Drop the name sets no entry uses and no analysis asked for lately
+    private void pruneNameSets() {
+        Set<NameSet> referenced = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Entry entry : entries.values()) {
+            referenced.add(entry.nameSet());
+        }
+        nameSets.values().removeIf(nameSet -> !referenced.contains(nameSet) && !nameSet.used);
+        nameSets.values().forEach(nameSet -> nameSet.used = false);
+        addedNames.clear();
+    }
+
+    private void append(List<Entry> toWrite) throws IOException {
+        Path cacheFile = Paths.get(analysisDirectory, CACHE_FILE_NAME);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(cacheFile.toFile(), true)))) {
+            for (Entry entry : toWrite) {
+                writeEntry(out, entry);
+            }
+        }
+        records += toWrite.size();
+    }
+
+    private void compact(List<Entry> toWrite) throws IOException {
+        // Write next to the cache and swap, so a crash never leaves a half written cache
+        Path cacheFile = Paths.get(analysisDirectory, CACHE_FILE_NAME);
+        Path temporaryFile = Paths.get(analysisDirectory, CACHE_FILE_NAME + ".tmp");
+        writtenNameSets.clear();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile.toFile())))) {
+            out.writeInt(FORMAT_VERSION);
+            for (Entry entry : toWrite) {
+                writeEntry(out, entry);
+            }
+        }
+        Files.move(temporaryFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        records = toWrite.size();
+        rewrite = false;
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get(), missCount = misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            stats.put("entries", entries.size());
+            stats.put("bytes", bytes);
+        } finally {
+            lock.unlock();
+        }
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hitCount);
+        stats.put("hitsAcrossNames", hitsAcrossNames.get());
+        stats.put("misses", missCount);
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        return stats;
+    }
+}
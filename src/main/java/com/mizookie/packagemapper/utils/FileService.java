@@ -1,7 +1,7 @@
 package com.mizookie.packagemapper.utils;
 
-import com.mizookie.packagemapper.visitors.FileVisitor;
-import com.mizookie.packagemapper.visitors.VisibleFileVisitor;
+import com.mizookie.packagemapper.visitors.SourceFileFilter;
+import com.mizookie.packagemapper.visitors.SourceFileVisitor;
 import lombok.experimental.UtilityClass;
 import lombok.extern.slf4j.Slf4j;
 
@@ -13,10 +13,16 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 
 @Slf4j
 @UtilityClass
 public class FileService {
+    // Listing directories and sniffing files block on IO, so walks get their own pool rather than the common one,
+    // which parallel streams elsewhere share. Its threads are daemons, like those of the common pool
+    private final ForkJoinPool WALK_POOL = new ForkJoinPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+
     // Get the file extension
     public String getFileExtension(String fileName) {
         int lastIndexOf = fileName.lastIndexOf(".");
@@ -50,11 +56,16 @@ public class FileService {
         return Paths.get(fileName).getFileName().toString();
     }
 
-    // Visit files in specified directory
+    // Visit files in specified directory, leaving out hidden, ignored and binary files
     public List<String> getFiles(String directoryPath) {
-        FileVisitor visitor = new VisibleFileVisitor();
+        return getFiles(directoryPath, SourceFileFilter.VISIBLE);
+    }
+
+    // Visit the files of specified directory that filter keeps, listing subdirectories in parallel
+    public List<String> getFiles(String directoryPath, SourceFileFilter filter) {
+        SourceFileVisitor visitor = new SourceFileVisitor(Paths.get(directoryPath), filter);
         try {
-            Files.walkFileTree(Paths.get(directoryPath), visitor);
+            visitor.walk(WALK_POOL);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -73,11 +84,13 @@ public class FileService {
     }
 
 
-    // Get all directories in a directory (excluding subdirectories)
+    // Get all directories in a directory (excluding subdirectories and the directory itself)
     public List<String> getDirectories(String directoryPath) {
         List<String> directories = null;
-        try {
-            directories = Files.walk(Paths.get(directoryPath), 1)
+        Path root = Paths.get(directoryPath);
+        try (Stream<Path> paths = Files.walk(root, 1)) {
+            directories = paths
+                    .filter(path -> !path.equals(root))
                     .filter(Files::isDirectory)
                     .map(Object::toString)
                     .toList();
@@ -0,0 +1,166 @@
+package com.mizookie.packagemapper.visitors;
+
+import com.mizookie.packagemapper.utils.FileService;
+import org.eclipse.jgit.ignore.FastIgnoreRule;
+import org.eclipse.jgit.ignore.IgnoreNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides which files of a repository are worth analysing. Hidden files, files matching {@code excludes} or a
+ * {@code .gitignore}, files whose extension isn't one of {@code extensions}, files larger than {@code maxSize} and
+ * binary files are left out. Paths are relative to the root of the repository and use {@code /}.
+ */
+public class SourceFileFilter {
+    /**
+     * Only leaves out hidden, ignored and binary files
+     */
+    public static final SourceFileFilter VISIBLE = new SourceFileFilter(List.of(), Set.of(), 0);
+
+    // Same as git: a file is binary if there is a NUL byte in its first 8000 bytes
+    private static final int BINARY_CHECK_BYTES = 8000;
+
+    private final IgnoreNode excludes;
+    private final Set<String> extensions;
+    private final long maxSize;
+
+    /**
+     * @param excludes   patterns in {@code .gitignore} syntax, e.g. {@code node_modules/} or {@code *.min.js}
+     * @param extensions extensions of the files to keep, e.g. {@code .java}, all files if empty
+     * @param maxSize    size in bytes of the largest file to keep, no limit if 0
+     */
+    public SourceFileFilter(Collection<String> excludes, Set<String> extensions, long maxSize) {
+        this.excludes = new IgnoreNode(excludes.stream().filter(pattern -> !pattern.isBlank()).map(FastIgnoreRule::new).toList());
+        this.extensions = extensions;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Opens the {@code .gitignore} file at a path of the repository being filtered
+     */
+    @FunctionalInterface
+    public interface IgnoreFiles {
+        /**
+         * @return the content of {@code path}, {@code null} if there is no such file
+         */
+        InputStream open(String path) throws IOException;
+    }
+
+    /**
+     * Get the filter of one repository, which reads its {@code .gitignore} files with {@code ignoreFiles}. It is
+     * thread-safe and each {@code .gitignore} file is only read once.
+     */
+    public Tree forTree(IgnoreFiles ignoreFiles) {
+        return new Tree(ignoreFiles);
+    }
+
+    public boolean hasAllowedExtension(String path) {
+        return extensions.isEmpty() || extensions.contains(FileService.getFileExtension(FileService.getFileNameWithExtension(path)));
+    }
+
+    public boolean hasAllowedSize(long size) {
+        return maxSize <= 0 || size <= maxSize;
+    }
+
+    /**
+     * Whether {@code content} looks binary. Only its first bytes are read, and the stream isn't closed
+     */
+    public static boolean isBinary(InputStream content) throws IOException {
+        byte[] bytes = content.readNBytes(BINARY_CHECK_BYTES);
+        for (byte b : bytes) {
+            if (b == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public class Tree {
+        private final IgnoreFiles ignoreFiles;
+        // .gitignore file of each directory, empty if it has none
+        private final Map<String, Optional<IgnoreNode>> ignoreNodes = new ConcurrentHashMap<>();
+        private final Map<String, Boolean> excludedDirectories = new ConcurrentHashMap<>();
+
+        private Tree(IgnoreFiles ignoreFiles) {
+            this.ignoreFiles = ignoreFiles;
+        }
+
+        public SourceFileFilter getFilter() {
+            return SourceFileFilter.this;
+        }
+
+        /**
+         * Whether {@code path} is left out by its own name, assuming the directories it is in aren't. This is enough
+         * when walking directories, since the files of a directory that is left out are never visited.
+         */
+        public boolean isExcluded(String path, boolean isDirectory) throws IOException {
+            String name = FileService.getFileNameWithExtension(path);
+            if (name.startsWith(".")) {
+                return true;
+            }
+            if (!isDirectory && !hasAllowedExtension(path)) {
+                return true;
+            }
+            if (Boolean.TRUE.equals(excludes.checkIgnored(path, isDirectory))) {
+                return true;
+            }
+            // The .gitignore closest to the file wins
+            for (int slash = path.lastIndexOf('/'); ; slash = path.lastIndexOf('/', slash - 1)) {
+                String directory = slash < 0 ? "" : path.substring(0, slash);
+                Optional<IgnoreNode> ignoreNode = getIgnoreNode(directory);
+                if (ignoreNode.isPresent()) {
+                    Boolean ignored = ignoreNode.get().checkIgnored(path.substring(slash + 1), isDirectory);
+                    if (ignored != null) {
+                        return ignored;
+                    }
+                }
+                if (slash < 0) {
+                    return false;
+                }
+            }
+        }
+
+        /**
+         * Same as {@link #isExcluded(String, boolean)} for a file, but also checks the directories it is in. For
+         * listings that aren't walked directory by directory, like the files of a commit.
+         */
+        public boolean isExcludedFile(String path) throws IOException {
+            int slash = path.lastIndexOf('/');
+            return (slash >= 0 && isExcludedDirectory(path.substring(0, slash))) || isExcluded(path, false);
+        }
+
+        private boolean isExcludedDirectory(String directory) throws IOException {
+            Boolean excluded = excludedDirectories.get(directory);
+            if (excluded == null) {
+                int slash = directory.lastIndexOf('/');
+                excluded = (slash >= 0 && isExcludedDirectory(directory.substring(0, slash))) || isExcluded(directory, true);
+                excludedDirectories.put(directory, excluded);
+            }
+            return excluded;
+        }
+
+        // Not computeIfAbsent: reading the file would hold a lock of the map. Two threads may both read it, which is harmless
+        private Optional<IgnoreNode> getIgnoreNode(String directory) throws IOException {
+            Optional<IgnoreNode> ignoreNode = ignoreNodes.get(directory);
+            if (ignoreNode == null) {
+                try (InputStream content = ignoreFiles.open(directory.isEmpty() ? ".gitignore" : directory + "/.gitignore")) {
+                    if (content == null) {
+                        ignoreNode = Optional.empty();
+                    } else {
+                        ignoreNode = Optional.of(new IgnoreNode());
+                        ignoreNode.get().parse(content);
+                    }
+                }
+                ignoreNodes.put(directory, ignoreNode);
+            }
+            return ignoreNode;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.mizookie.packagemapper.visitors;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Visits the source files of a repository, as decided by a {@link SourceFileFilter}. It can be used with
+ * {@link Files#walkFileTree}, but {@link #walk} is faster on large trees since it lists directories in parallel.
+ */
+@Slf4j
+public class SourceFileVisitor extends FileVisitor {
+    private final Path root;
+    private final SourceFileFilter.Tree filter;
+    private final Queue<Path> files = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param root root of the repository, which {@code .gitignore} files and exclude patterns are relative to
+     */
+    public SourceFileVisitor(Path root, SourceFileFilter filter) {
+        this.root = root;
+        this.filter = filter.forTree(path -> {
+            Path ignoreFile = root.resolve(path);
+            return Files.isRegularFile(ignoreFile) ? Files.newInputStream(ignoreFile) : null;
+        });
+    }
+
+    private String relativize(Path path) {
+        return root.relativize(path).toString().replace('\\', '/');
+    }
+
+    @Override
+    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+        if (!dir.equals(root) && filter.isExcluded(relativize(dir), true)) {
+            return FileVisitResult.SKIP_SUBTREE;
+        }
+        return FileVisitResult.CONTINUE;
+    }
+
+    @Override
+    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+        if (attrs.isRegularFile() && filter.getFilter().hasAllowedSize(attrs.size())
+                && !filter.isExcluded(relativize(file), false) && !isBinary(file)) {
+            files.add(file);
+        }
+        return FileVisitResult.CONTINUE;
+    }
+
+    @Override
+    public FileVisitResult visitFileFailed(Path file, IOException exc) {
+        log.warn("Skipping {}: {}", file, exc.getMessage());
+        return FileVisitResult.CONTINUE;
+    }
+
+    private static boolean isBinary(Path file) throws IOException {
+        try (InputStream content = Files.newInputStream(file)) {
+            return SourceFileFilter.isBinary(content);
+        }
+    }
+
+    /**
+     * Visit the whole repository, one task per directory
+     */
+    public void walk(ForkJoinPool pool) throws IOException {
+        try {
+            pool.invoke(new DirectoryTask(root));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private class DirectoryTask extends RecursiveAction {
+        private final Path directory;
+
+        DirectoryTask(Path directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        protected void compute() {
+            List<DirectoryTask> subdirectories = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path entry : entries) {
+                    try {
+                        BasicFileAttributes attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                        if (!attrs.isDirectory()) {
+                            visitFile(entry, attrs);
+                        } else if (preVisitDirectory(entry, attrs) == FileVisitResult.CONTINUE) {
+                            subdirectories.add(new DirectoryTask(entry));
+                        }
+                    } catch (IOException e) {
+                        visitFileFailed(entry, e);
+                    }
+                }
+            } catch (IOException e) {
+                if (directory.equals(root)) {
+                    throw new UncheckedIOException(e);
+                }
+                visitFileFailed(directory, e);
+            }
+            invokeAll(subdirectories);
+        }
+    }
+
+    /**
+     * Get the files visited so far, sorted
+     */
+    @Override
+    public List<Path> getFiles() {
+        return files.stream().sorted().toList();
+    }
+
+    @Override
+    public String toString() {
+        return "SourceFileVisitor";
+    }
+}
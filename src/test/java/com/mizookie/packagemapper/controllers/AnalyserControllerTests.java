@@ -0,0 +1,121 @@
+package com.mizookie.packagemapper.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mizookie.packagemapper.graph.CsrGraph;
+import com.mizookie.packagemapper.graph.GraphRollup;
+import com.mizookie.packagemapper.jobs.AnalysisJob;
+import com.mizookie.packagemapper.services.AnalyserService;
+import com.mizookie.packagemapper.services.AnalysisJobService;
+import com.mizookie.packagemapper.services.GithubRepositoryService;
+import com.mizookie.packagemapper.services.GraphAnalyticsService;
+import com.mizookie.packagemapper.services.GraphService;
+import com.mizookie.packagemapper.services.ResolutionCacheService;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.FileNotFoundException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class AnalyserControllerTests {
+    private final AnalysisJobService analysisJobService = mock(AnalysisJobService.class);
+    private final GithubRepositoryService githubRepositoryService = mock(GithubRepositoryService.class);
+    private final GraphService graphService = mock(GraphService.class);
+    private CsrGraph graph;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Graph<String, DefaultEdge> files = new DefaultDirectedGraph<>(DefaultEdge.class);
+        for (String path : new String[]{"repo/a/A.java", "repo/a/B.java", "repo/b/C.java", "repo/b/D.java"}) {
+            files.addVertex(path);
+        }
+        files.addEdge("repo/a/A.java", "repo/a/B.java");
+        files.addEdge("repo/a/A.java", "repo/b/C.java");
+        files.addEdge("repo/a/B.java", "repo/b/D.java");
+        graph = CsrGraph.of(files);
+        when(githubRepositoryService.resolveCommit("repo", "main")).thenReturn("c1");
+        when(graphService.getCsrGraph("repo_c1")).thenReturn(graph);
+
+        AnalyserController controller = new AnalyserController(mock(AnalyserService.class), analysisJobService, githubRepositoryService,
+                graphService, mock(GraphAnalyticsService.class), mock(ResolutionCacheService.class), new ObjectMapper());
+        ReflectionTestUtils.setField(controller, "localRepositoryDirectory", "repositories");
+        mvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    // Body of a streamed response, once it is written
+    private String stream(String query) throws Exception {
+        MvcResult result = mvc.perform(get("/analyse/graph/stream?" + query))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(header().string("X-Total-Count", "3"))
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private String line(int edge) {
+        return String.format("{\"source\":\"%s\",\"target\":\"%s\",\"type\":\"import\"}",
+                graph.getPath(graph.getEdgeSource(edge)), graph.getPath(graph.getEdgeTarget(edge)));
+    }
+
+    @Test
+    void streamsOneEdgePerLine() throws Exception {
+        assertThat(stream("repo=repo&version=main")).isEqualTo(line(0) + "\n" + line(1) + "\n" + line(2) + "\n");
+    }
+
+    @Test
+    void pagesThroughTheEdgesInTheSameOrder() throws Exception {
+        assertThat(stream("repo=repo&version=main&offset=0&limit=2") + stream("repo=repo&version=main&offset=2&limit=2"))
+                .isEqualTo(stream("repo=repo&version=main"));
+        assertThat(stream("repo=repo&version=main&offset=5")).isEmpty();
+    }
+
+    @Test
+    void streamsRolledUpEdgesWithTheirWeight() throws Exception {
+        when(graphService.getRollup("repo_c1", 2)).thenReturn(GraphRollup.of(graph, 2));
+        MvcResult result = mvc.perform(get("/analyse/graph/stream?repo=repo&version=main&level=2"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mvc.perform(asyncDispatch(result))
+                .andExpect(header().string("X-Total-Count", "1"))
+                .andReturn().getResponse().getContentAsString();
+        // Edges within a directory are left out
+        assertThat(body).isEqualTo("{\"source\":\"repo/a/\",\"target\":\"repo/b/\",\"type\":\"import\",\"weight\":2}\n");
+    }
+
+    @Test
+    void analysesVersionsWithoutAGraphFirst() throws Exception {
+        AnalysisJob job = mock(AnalysisJob.class);
+        when(job.getState()).thenReturn(AnalysisJob.State.SUCCEEDED);
+        when(analysisJobService.submit("repositories/repo", "main")).thenReturn(job);
+        when(graphService.getCsrGraph("repo_c1")).thenThrow(new FileNotFoundException()).thenReturn(graph);
+        assertThat(stream("repo=repo&version=main")).hasLineCount(3);
+        verify(job).await();
+    }
+
+    @Test
+    void rejectsNegativeLevels() throws Exception {
+        mvc.perform(get("/analyse/graph/stream?repo=repo&version=main&level=-1")).andExpect(status().isBadRequest());
+        verify(analysisJobService, never()).submit("repositories/repo", "main");
+    }
+}
@@ -0,0 +1,99 @@
+package com.mizookie.packagemapper.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static com.mizookie.packagemapper.graph.TestGraphs.csrGraphOf;
+import static com.mizookie.packagemapper.graph.TestGraphs.edgesOf;
+import static com.mizookie.packagemapper.graph.TestGraphs.graphOf;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BinaryGraphTests {
+    @TempDir
+    Path directory;
+
+    private BinaryGraph roundTrip(CsrGraph graph) throws IOException {
+        Path path = directory.resolve("graph" + BinaryGraph.EXTENSION);
+        BinaryGraph.write(graph, path);
+        return BinaryGraph.open(path);
+    }
+
+    @Test
+    void readsBackWhatWasWritten() throws IOException {
+        CsrGraph graph = csrGraphOf("src/main/App.java -> src/main/Graph.java", "src/main/Graph.java -> src/test/GraphTest.java",
+                "src/main/App.java -> README.md", "docs/été.md");
+        BinaryGraph binaryGraph = roundTrip(graph);
+        assertThat(binaryGraph.getVertexCount()).isEqualTo(graph.getVertexCount());
+        assertThat(binaryGraph.getEdgeCount()).isEqualTo(graph.getEdgeCount());
+        assertThat(binaryGraph.getVertices()).containsExactly("README.md", "docs/été.md", "src/main/App.java", "src/main/Graph.java", "src/test/GraphTest.java");
+        assertThat(edgesOf(CsrGraph.of(binaryGraph))).isEqualTo(edgesOf(graph));
+    }
+
+    @Test
+    void decodesSingleVerticesAcrossRestartPoints() throws IOException {
+        // More vertices than a restart interval, sharing long prefixes
+        List<String> edges = new ArrayList<>();
+        for (int i = 0; i < 100; ++i) {
+            edges.add(String.format("src/main/java/com/example/File%03d.java -> src/main/java/com/example/File%03d.java", i, (i + 1) % 100));
+        }
+        CsrGraph graph = csrGraphOf(edges.toArray(String[]::new));
+        BinaryGraph binaryGraph = roundTrip(graph);
+        for (int v = 0; v < graph.getVertexCount(); ++v) {
+            assertThat(binaryGraph.getVertex(v)).isEqualTo(graph.getPath(v));
+        }
+        assertThat(binaryGraph.getVertices()).containsExactly(IntStream.range(0, 100).mapToObj(graph::getPath).toArray(String[]::new));
+    }
+
+    @Test
+    void loadsIntoAJGraphTGraph() throws IOException {
+        Graph<String, DefaultEdge> original = graphOf("a -> b", "b -> c", "c -> a");
+        Path path = directory.resolve("graph" + BinaryGraph.EXTENSION);
+        BinaryGraph.write(original, path);
+        Graph<String, DefaultEdge> loaded = BinaryGraph.open(path).toGraph();
+        assertThat(loaded.vertexSet()).isEqualTo(original.vertexSet());
+        assertThat(loaded.containsEdge("c", "a")).isTrue();
+        assertThat(loaded.edgeSet()).hasSize(3);
+    }
+
+    @Test
+    void writesAnEmptyGraph() throws IOException {
+        BinaryGraph binaryGraph = roundTrip(csrGraphOf());
+        assertThat(binaryGraph.getVertexCount()).isZero();
+        assertThat(binaryGraph.getVertices()).isEmpty();
+    }
+
+    @Test
+    void replacesAGraphWithoutLeavingTemporaryFiles() throws IOException {
+        Path path = directory.resolve("graph" + BinaryGraph.EXTENSION);
+        BinaryGraph.write(csrGraphOf("a -> b"), path);
+        BinaryGraph.write(csrGraphOf("a -> b", "b -> c"), path);
+        assertThat(BinaryGraph.open(path).getEdgeCount()).isEqualTo(2);
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files).containsExactly(path);
+        }
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path text = Files.writeString(directory.resolve("graph.gv"), "digraph G {}");
+        assertThatThrownBy(() -> BinaryGraph.open(text)).isInstanceOf(IOException.class).hasMessage("Not a binary graph");
+
+        Path path = directory.resolve("graph" + BinaryGraph.EXTENSION);
+        BinaryGraph.write(csrGraphOf("a -> b"), path);
+        byte[] bytes = Files.readAllBytes(path);
+        Path truncated = Files.write(directory.resolve("truncated" + BinaryGraph.EXTENSION), Arrays.copyOf(bytes, bytes.length - 1));
+        assertThatThrownBy(() -> BinaryGraph.open(truncated)).isInstanceOf(IOException.class).hasMessage("Truncated binary graph");
+    }
+}
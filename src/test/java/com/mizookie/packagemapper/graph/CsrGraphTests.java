@@ -0,0 +1,67 @@
+package com.mizookie.packagemapper.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.Test;
+
+import static com.mizookie.packagemapper.graph.TestGraphs.csrGraphOf;
+import static com.mizookie.packagemapper.graph.TestGraphs.edgesOf;
+import static com.mizookie.packagemapper.graph.TestGraphs.graphOf;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsrGraphTests {
+
+    @Test
+    void sortsVerticesByPathAndEdgesBySourceThenTarget() {
+        CsrGraph graph = csrGraphOf("c -> a", "a -> c", "a -> b", "b -> a", "d");
+        assertThat(graph.getVertexCount()).isEqualTo(4);
+        assertThat(graph.getPath(0)).isEqualTo("a");
+        assertThat(graph.getPath(3)).isEqualTo("d");
+        assertThat(edgesOf(graph)).containsExactly("a -> b", "a -> c", "b -> a", "c -> a");
+    }
+
+    @Test
+    void findsEdgesBothWays() {
+        CsrGraph graph = csrGraphOf("a -> b", "a -> c", "b -> c", "d -> c", "e");
+        int a = 0, b = 1, c = 2, d = 3, e = 4;
+        assertThat(graph.getOutDegree(a)).isEqualTo(2);
+        assertThat(graph.getInDegree(c)).isEqualTo(3);
+        assertThat(graph.getOutDegree(e)).isZero();
+        assertThat(graph.getInDegree(e)).isZero();
+        assertThat(graph.getEdge(b, c)).isEqualTo(2);
+        assertThat(graph.getEdge(c, b)).isEqualTo(-1);
+        assertThat(graph.getEdgeTarget(graph.getFirstOutgoingEdge(a) + 1)).isEqualTo(c);
+        // Edges entering a vertex come sorted by source
+        assertThat(graph.getEdgeSource(graph.getIncomingEdge(c, 0))).isEqualTo(a);
+        assertThat(graph.getEdgeSource(graph.getIncomingEdge(c, 1))).isEqualTo(b);
+        assertThat(graph.getEdgeSource(graph.getIncomingEdge(c, 2))).isEqualTo(d);
+    }
+
+    @Test
+    void convertsBackToTheSameGraph() {
+        Graph<String, DefaultEdge> original = graphOf("src/a.java -> src/b.java", "src/b.java -> lib/c.py", "lone.txt");
+        Graph<String, DefaultEdge> copy = CsrGraph.of(original).toGraph();
+        assertThat(copy.vertexSet()).isEqualTo(original.vertexSet());
+        assertThat(copy.edgeSet()).hasSize(2);
+        assertThat(copy.containsEdge("src/a.java", "src/b.java")).isTrue();
+        assertThat(copy.containsEdge("src/b.java", "lib/c.py")).isTrue();
+    }
+
+    @Test
+    void isViewedAsAJGraphTGraph() {
+        CsrGraph graph = csrGraphOf("a -> b", "b -> c");
+        Graph<Integer, Integer> view = graph.asGraph();
+        assertThat(view.vertexSet()).containsExactlyInAnyOrder(0, 1, 2);
+        assertThat(view.edgeSet()).hasSize(2);
+        assertThat(view.getEdgeSource(1)).isEqualTo(1);
+        assertThat(view.getEdgeTarget(1)).isEqualTo(2);
+    }
+
+    @Test
+    void holdsAnEmptyGraph() {
+        CsrGraph graph = csrGraphOf();
+        assertThat(graph.getVertexCount()).isZero();
+        assertThat(graph.getEdgeCount()).isZero();
+        assertThat(graph.toGraph().vertexSet()).isEmpty();
+    }
+}
@@ -0,0 +1,73 @@
+package com.mizookie.packagemapper.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GraphBuilderTests {
+
+    @Test
+    void buildsTheGraphOfTheAddedEdges() {
+        GraphBuilder builder = new GraphBuilder(2);
+        builder.addEdge("a", "b");
+        builder.addEdge("b", "c");
+        builder.addEdge("a", "b");
+        Graph<String, DefaultEdge> graph = builder.build();
+        assertThat(graph.vertexSet()).containsExactlyInAnyOrder("a", "b", "c");
+        assertThat(graph.edgeSet()).hasSize(2);
+        assertThat(graph.containsEdge("b", "c")).isTrue();
+        assertThatThrownBy(() -> graph.addVertex("d")).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void addsTheEdgesToAnExistingGraph() {
+        Graph<String, DefaultEdge> graph = TestGraphs.graphOf("a -> b", "d");
+        GraphBuilder builder = new GraphBuilder(1);
+        builder.addEdge("a", "b");
+        builder.addEdge("c", "a");
+        builder.addTo(graph);
+        assertThat(graph.vertexSet()).containsExactlyInAnyOrder("a", "b", "c", "d");
+        assertThat(graph.edgeSet()).hasSize(2);
+        assertThat(graph.containsEdge("c", "a")).isTrue();
+    }
+
+    @Test
+    void collectsEdgesFromManyThreads() throws Exception {
+        GraphBuilder builder = new GraphBuilder(4);
+        List<Future<?>> tasks = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < 16; ++t) {
+                int thread = t;
+                tasks.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; ++i) {
+                        builder.addEdge("file" + thread, "file" + thread + "_" + i);
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        }
+        Graph<String, DefaultEdge> graph = builder.build();
+        assertThat(graph.edgeSet()).hasSize(16 * 1000);
+        assertThat(graph.vertexSet()).hasSize(16 + 16 * 1000);
+    }
+
+    @Test
+    void keepsBuildersApart() {
+        GraphBuilder first = new GraphBuilder(1), second = new GraphBuilder(1);
+        first.addEdge("a", "b");
+        second.addEdge("c", "d");
+        assertThat(first.build().vertexSet()).containsExactlyInAnyOrder("a", "b");
+        assertThat(second.build().vertexSet()).containsExactlyInAnyOrder("c", "d");
+    }
+}
@@ -0,0 +1,75 @@
+package com.mizookie.packagemapper.graph;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GraphCacheTests {
+
+    // Graphs are stood in for by their size
+    private static GraphCache<Long> cacheOf(long maxBytes) {
+        return new GraphCache<>(maxBytes, Long::longValue);
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedGraphsOverBudget() {
+        GraphCache<Long> cache = cacheOf(100);
+        cache.put("a", 40L);
+        cache.put("b", 40L);
+        assertThat(cache.get("a")).isEqualTo(40L);
+        cache.put("c", 40L);
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("a")).isEqualTo(40L);
+        assertThat(cache.get("c")).isEqualTo(40L);
+        assertThat(cache.getStats()).containsEntry("entries", 2).containsEntry("bytes", 80L).containsEntry("evictions", 1L)
+                .containsEntry("hits", 3L).containsEntry("misses", 1L);
+    }
+
+    @Test
+    void neverCachesGraphsOverBudget() {
+        GraphCache<Long> cache = cacheOf(100);
+        cache.put("a", 40L);
+        cache.put("big", 101L);
+        assertThat(cache.get("big")).isNull();
+        assertThat(cache.get("a")).isEqualTo(40L);
+    }
+
+    @Test
+    void replacesAGraph() {
+        GraphCache<Long> cache = cacheOf(100);
+        cache.put("a", 60L);
+        cache.put("a", 30L);
+        assertThat(cache.get("a")).isEqualTo(30L);
+        assertThat(cache.getStats()).containsEntry("entries", 1).containsEntry("bytes", 30L);
+        // Too big to be cached again: the old graph is still dropped
+        cache.put("a", 200L);
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.getStats()).containsEntry("bytes", 0L);
+    }
+
+    @Test
+    void removesMatchingGraphs() {
+        GraphCache<Long> cache = cacheOf(100);
+        cache.put("repo_1#1", 10L);
+        cache.put("repo_1#2", 10L);
+        cache.put("repo_2#1", 10L);
+        cache.removeIf(key -> key.startsWith("repo_1#"));
+        assertThat(cache.get("repo_1#1")).isNull();
+        assertThat(cache.get("repo_1#2")).isNull();
+        assertThat(cache.get("repo_2#1")).isEqualTo(10L);
+        assertThat(cache.getStats()).containsEntry("bytes", 10L);
+    }
+
+    @Test
+    void dropsGraphsMadeBeforeARemoval() {
+        GraphCache<Long> cache = cacheOf(100);
+        long generation = cache.getGeneration();
+        // Whatever it matches: the graph may have been made from what was removed
+        cache.removeIf(key -> false);
+        cache.put("a", 10L, generation);
+        assertThat(cache.get("a")).isNull();
+
+        cache.put("a", 10L, cache.getGeneration());
+        assertThat(cache.get("a")).isEqualTo(10L);
+    }
+}
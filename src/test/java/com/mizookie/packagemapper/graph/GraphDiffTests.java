@@ -0,0 +1,67 @@
+package com.mizookie.packagemapper.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.mizookie.packagemapper.graph.TestGraphs.csrGraphOf;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GraphDiffTests {
+
+    private static List<String> verticesOf(GraphDiff.Changes changes) {
+        List<String> vertices = new ArrayList<>();
+        for (int i = 0; i < changes.getVertexCount(); ++i) {
+            vertices.add(changes.getVertex(i));
+        }
+        return vertices;
+    }
+
+    private static List<String> edgesOf(GraphDiff.Changes changes) {
+        List<String> edges = new ArrayList<>();
+        for (int i = 0; i < changes.getEdgeCount(); ++i) {
+            edges.add(changes.getEdgeSource(i) + " -> " + changes.getEdgeTarget(i));
+        }
+        return edges;
+    }
+
+    @Test
+    void findsAddedAndRemovedVerticesAndEdges() {
+        CsrGraph from = csrGraphOf("a -> b", "b -> c", "x -> a", "y");
+        CsrGraph to = csrGraphOf("a -> b", "b -> d", "c -> a", "y");
+        GraphDiff diff = GraphDiff.of(from, to);
+        assertThat(verticesOf(diff.getAdded())).containsExactly("d");
+        assertThat(verticesOf(diff.getRemoved())).containsExactly("x");
+        assertThat(edgesOf(diff.getAdded())).containsExactly("b -> d", "c -> a");
+        // Including the edges of removed vertices
+        assertThat(edgesOf(diff.getRemoved())).containsExactly("b -> c", "x -> a");
+    }
+
+    @Test
+    void isEmptyBetweenEqualGraphs() {
+        GraphDiff diff = GraphDiff.of(csrGraphOf("a -> b", "b -> c"), csrGraphOf("b -> c", "a -> b"));
+        assertThat(diff.getAdded().getVertexCount()).isZero();
+        assertThat(diff.getAdded().getEdgeCount()).isZero();
+        assertThat(diff.getRemoved().getVertexCount()).isZero();
+        assertThat(diff.getRemoved().getEdgeCount()).isZero();
+    }
+
+    @Test
+    void isTheOppositeTheOtherWayRound() {
+        CsrGraph from = csrGraphOf("a -> b", "c -> d");
+        CsrGraph to = csrGraphOf("a -> c", "c -> d", "e -> a");
+        GraphDiff forward = GraphDiff.of(from, to), backward = GraphDiff.of(to, from);
+        assertThat(verticesOf(forward.getAdded())).isEqualTo(verticesOf(backward.getRemoved()));
+        assertThat(edgesOf(forward.getAdded())).isEqualTo(edgesOf(backward.getRemoved()));
+        assertThat(edgesOf(forward.getRemoved())).isEqualTo(edgesOf(backward.getAdded()));
+    }
+
+    @Test
+    void comparesWithAnEmptyGraph() {
+        GraphDiff diff = GraphDiff.of(csrGraphOf(), csrGraphOf("a -> b"));
+        assertThat(verticesOf(diff.getAdded())).containsExactly("a", "b");
+        assertThat(edgesOf(diff.getAdded())).containsExactly("a -> b");
+        assertThat(diff.getRemoved().getEdgeCount()).isZero();
+    }
+}
@@ -0,0 +1,95 @@
+package com.mizookie.packagemapper.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GraphRollupTests {
+    private static final CsrGraph GRAPH = TestGraphs.csrGraphOf(
+            "src/main/App.java -> src/main/Util.java",
+            "src/main/App.java -> src/test/AppTest.java",
+            "src/main/Util.java -> src/test/AppTest.java",
+            "src/main/Util.java -> lib/Strings.java",
+            "lib/Strings.java -> README.md");
+
+    private static List<String> pathsOf(GraphRollup rollup) {
+        List<String> paths = new ArrayList<>();
+        for (int v = 0; v < rollup.getVertexCount(); ++v) {
+            paths.add(rollup.getPath(v) + " " + rollup.getSize(v));
+        }
+        return paths;
+    }
+
+    private static List<String> edgesOf(GraphRollup rollup) {
+        List<String> edges = new ArrayList<>();
+        for (int e = 0; e < rollup.getEdgeCount(); ++e) {
+            edges.add(rollup.getPath(rollup.getEdgeSource(e)) + " -> " + rollup.getPath(rollup.getEdgeTarget(e)) + " " + rollup.getEdgeWeight(e));
+        }
+        return edges;
+    }
+
+    @Test
+    void collapsesFilesIntoTheirDirectories() {
+        GraphRollup rollup = GraphRollup.of(GRAPH, 2);
+        assertThat(rollup.getLevel()).isEqualTo(2);
+        // Files less deep than the level stay as they are
+        assertThat(pathsOf(rollup)).containsExactly("README.md 1", "lib/Strings.java 1", "src/main/ 2", "src/test/ 1");
+        // Edges within src/main/ are dropped, the others weighted by the file edges they stand for
+        assertThat(edgesOf(rollup)).containsExactly("lib/Strings.java -> README.md 1", "src/main/ -> lib/Strings.java 1", "src/main/ -> src/test/ 2");
+    }
+
+    @Test
+    void collapsesEverythingUnderTopLevelDirectories() {
+        GraphRollup rollup = GraphRollup.of(GRAPH, 1);
+        assertThat(pathsOf(rollup)).containsExactly("README.md 1", "lib/ 1", "src/ 3");
+        assertThat(edgesOf(rollup)).containsExactly("lib/ -> README.md 1", "src/ -> lib/ 1");
+    }
+
+    @Test
+    void keepsTheFilesAtTheFileLevel() {
+        GraphRollup rollup = GraphRollup.of(GRAPH, GraphRollup.FILES);
+        assertThat(rollup.getVertexCount()).isEqualTo(GRAPH.getVertexCount());
+        assertThat(rollup.getEdgeCount()).isEqualTo(GRAPH.getEdgeCount());
+        for (int v = 0; v < rollup.getVertexCount(); ++v) {
+            assertThat(rollup.getPath(v)).isEqualTo(GRAPH.getPath(v));
+        }
+        assertThat(edgesOf(rollup)).allMatch(edge -> edge.endsWith(" 1"));
+    }
+
+    @Test
+    void rollsUpARangeOfPaths() {
+        int[] range = GRAPH.getDictionary().rangeOf("src/");
+        GraphRollup rollup = GraphRollup.of(GRAPH, 2, range[0], range[1]);
+        // Edges leaving the range are dropped
+        assertThat(pathsOf(rollup)).containsExactly("src/main/ 2", "src/test/ 1");
+        assertThat(edgesOf(rollup)).containsExactly("src/main/ -> src/test/ 2");
+        assertThat(GraphRollup.countGroups(GRAPH, 2, range[0], range[1])).isEqualTo(rollup.getVertexCount());
+        assertThat(GraphRollup.getDepth(GRAPH, range[0], range[1])).isEqualTo(2);
+    }
+
+    @Test
+    void countsGroupsWithoutRollingUp() {
+        for (int level = 0; level <= 3; ++level) {
+            assertThat(GraphRollup.countGroups(GRAPH, level, 0, GRAPH.getVertexCount()))
+                    .isEqualTo(GraphRollup.of(GRAPH, level).getVertexCount());
+        }
+        assertThat(GraphRollup.getDepth(GRAPH, 0, GRAPH.getVertexCount())).isEqualTo(2);
+        assertThat(GraphRollup.getDepth(TestGraphs.csrGraphOf("A.java -> B.java"), 0, 2)).isZero();
+    }
+
+    @Test
+    void findsTheGroupOfAPath() {
+        assertThat(GraphRollup.groupOf("src/main/java/App.java", 2)).isEqualTo("src/main/");
+        assertThat(GraphRollup.groupOf("src/main/java/App.java", 3)).isEqualTo("src/main/java/");
+        assertThat(GraphRollup.groupOf("src/main/java/App.java", 4)).isEqualTo("src/main/java/App.java");
+        assertThat(GraphRollup.groupOf("src/main/java/App.java", GraphRollup.FILES)).isEqualTo("src/main/java/App.java");
+    }
+
+    @Test
+    void estimatesLessHeapOnceRolledUp() {
+        assertThat(GraphRollup.of(GRAPH, 1).estimateBytes()).isPositive().isLessThan(GraphRollup.of(GRAPH, GraphRollup.FILES).estimateBytes());
+    }
+}
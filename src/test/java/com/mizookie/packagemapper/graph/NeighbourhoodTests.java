@@ -0,0 +1,47 @@
+package com.mizookie.packagemapper.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.mizookie.packagemapper.graph.TestGraphs.csrGraphOf;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NeighbourhoodTests {
+    private final CsrGraph graph = csrGraphOf("a -> b", "b -> c", "a -> d", "d -> c", "c -> e", "e -> a", "f");
+
+    // Each vertex written "path:distance", in order
+    private List<String> neighbourhood(String path, int depth, boolean reverse) {
+        Neighbourhood neighbourhood = Neighbourhood.of(graph, graph.getDictionary().indexOf(path), depth, reverse);
+        List<String> vertices = new ArrayList<>();
+        for (int i = 0; i < neighbourhood.size(); ++i) {
+            vertices.add(graph.getPath(neighbourhood.getVertex(i)) + ":" + neighbourhood.getDistance(i));
+        }
+        return vertices;
+    }
+
+    @Test
+    void followsEdgesUpToTheDepth() {
+        assertThat(neighbourhood("a", 1, false)).containsExactly("b:1", "d:1");
+        assertThat(neighbourhood("a", 2, false)).containsExactly("b:1", "d:1", "c:2");
+        assertThat(neighbourhood("a", 3, false)).containsExactly("b:1", "d:1", "c:2", "e:3");
+    }
+
+    @Test
+    void followsEdgesBackwards() {
+        assertThat(neighbourhood("c", 1, true)).containsExactly("b:1", "d:1");
+        assertThat(neighbourhood("c", 2, true)).containsExactly("b:1", "d:1", "a:2");
+    }
+
+    @Test
+    void leavesOutTheStartEvenInACycle() {
+        assertThat(neighbourhood("a", 10, false)).containsExactly("b:1", "d:1", "c:2", "e:3");
+    }
+
+    @Test
+    void isEmptyWithoutEdgesOrDepth() {
+        assertThat(neighbourhood("f", 5, false)).isEmpty();
+        assertThat(neighbourhood("a", 0, false)).isEmpty();
+    }
+}
@@ -0,0 +1,82 @@
+package com.mizookie.packagemapper.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.mizookie.packagemapper.graph.TestGraphs.csrGraphOf;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StructuralAnalysisTests {
+    // Two cycles, {a, b, c} then {d, e}, and a file on its own
+    private final CsrGraph graph = csrGraphOf("a -> b", "b -> c", "c -> a", "c -> d", "d -> e", "e -> d", "f");
+    private final int a = 0, b = 1, c = 2, d = 3, e = 4, f = 5;
+
+    @Test
+    void findsStronglyConnectedComponentsInTopologicalOrder() {
+        StructuralAnalysis analysis = StructuralAnalysis.of(graph, 10);
+        assertThat(analysis.getComponentCount()).isEqualTo(3);
+        assertThat(analysis.getComponent(a)).isEqualTo(analysis.getComponent(b)).isEqualTo(analysis.getComponent(c));
+        assertThat(analysis.getComponent(d)).isEqualTo(analysis.getComponent(e));
+        assertThat(analysis.getComponent(a)).isLessThan(analysis.getComponent(d));
+        assertThat(analysis.getComponent(f)).isNotIn(analysis.getComponent(a), analysis.getComponent(d));
+        assertThat(analysis.getComponentSize(analysis.getComponent(a))).isEqualTo(3);
+        assertThat(analysis.getComponentSize(analysis.getComponent(d))).isEqualTo(2);
+        assertThat(analysis.getComponentSize(analysis.getComponent(f))).isEqualTo(1);
+    }
+
+    @Test
+    void putsFilesAboveTheFilesTheyUse() {
+        StructuralAnalysis analysis = StructuralAnalysis.of(graph, 10);
+        assertThat(analysis.getLayer(a)).isZero();
+        assertThat(analysis.getLayer(c)).isZero();
+        assertThat(analysis.getLayer(d)).isEqualTo(1);
+        assertThat(analysis.getLayer(f)).isZero();
+        assertThat(analysis.getLayerCount()).isEqualTo(2);
+    }
+
+    @Test
+    void takesTheLongestPathForLayers() {
+        StructuralAnalysis analysis = StructuralAnalysis.of(csrGraphOf("a -> b", "b -> c", "a -> c"), 10);
+        assertThat(analysis.getLayer(2)).isEqualTo(2);
+        assertThat(analysis.getCycles()).isEmpty();
+        assertThat(analysis.isCyclesTruncated()).isFalse();
+    }
+
+    @Test
+    void findsTheShortestCyclesInTheDirectionOfTheEdges() {
+        StructuralAnalysis analysis = StructuralAnalysis.of(graph, 10);
+        List<int[]> cycles = analysis.getCycles();
+        assertThat(cycles).hasSize(2);
+        assertThat(cycles.get(0)).containsExactly(d, e);
+        assertThat(cycles.get(1)).containsExactly(a, b, c);
+        assertThat(analysis.isCyclesTruncated()).isFalse();
+    }
+
+    @Test
+    void findsEachCycleOnce() {
+        // Every vertex lies on the same shortest cycle
+        StructuralAnalysis analysis = StructuralAnalysis.of(csrGraphOf("a -> b", "b -> c", "c -> d", "d -> a"), 10);
+        assertThat(analysis.getCycles()).hasSize(1);
+        assertThat(analysis.getCycles().get(0)).containsExactly(0, 1, 2, 3);
+    }
+
+    @Test
+    void truncatesCycles() {
+        StructuralAnalysis analysis = StructuralAnalysis.of(graph, 1);
+        assertThat(analysis.getCycles()).hasSize(1);
+        assertThat(analysis.getCycles().get(0)).containsExactly(d, e);
+        assertThat(analysis.isCyclesTruncated()).isTrue();
+    }
+
+    @Test
+    void handlesDeepGraphsWithoutRecursion() {
+        String[] edges = new String[100_000];
+        for (int i = 0; i < edges.length; ++i) {
+            edges[i] = String.format("v%06d -> v%06d", i, (i + 1) % edges.length);
+        }
+        StructuralAnalysis analysis = StructuralAnalysis.of(csrGraphOf(edges), 1);
+        assertThat(analysis.getComponentCount()).isEqualTo(1);
+        assertThat(analysis.getCycles().get(0)).hasSize(edges.length);
+    }
+}
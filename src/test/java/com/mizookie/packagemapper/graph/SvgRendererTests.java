@@ -0,0 +1,95 @@
+package com.mizookie.packagemapper.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SvgRendererTests {
+    private static final CsrGraph FILES = TestGraphs.csrGraphOf(
+            "repo/a/A.java -> repo/a/B.java", "repo/a/A.java -> repo/b/C.java", "repo/a/B.java -> repo/b/D.java");
+
+    private static String draw(SvgRenderer renderer) throws IOException {
+        StringWriter writer = new StringWriter();
+        renderer.write(writer);
+        return writer.toString();
+    }
+
+    private static int count(String svg, String element) {
+        return svg.split(element, -1).length - 1;
+    }
+
+    // Files of a chain, enough of them for the picture to be a grid of several rows and columns
+    private static CsrGraph chainOf(int length) {
+        List<String> edges = new ArrayList<>();
+        for (int i = 1; i < length; ++i) {
+            edges.add(String.format("src/F%02d.java -> src/F%02d.java", i - 1, i));
+        }
+        return TestGraphs.csrGraphOf(edges.toArray(String[]::new));
+    }
+
+    @Test
+    void drawsEveryFileAndEdge() throws IOException {
+        SvgRenderer renderer = new SvgRenderer(GraphRollup.of(FILES, GraphRollup.FILES), null);
+        assertThat(renderer.getLevel()).isEqualTo(GraphRollup.FILES);
+        assertThat(renderer.getDrawnVertexCount()).isEqualTo(4);
+        assertThat(renderer.getDrawnEdgeCount()).isEqualTo(3);
+        String svg = draw(renderer);
+        assertThat(svg).startsWith("<svg").endsWith("</svg>\n")
+                .contains(String.format("width=\"%d\" height=\"%d\" viewBox=\"0 0 %1$d %2$d\"", renderer.getWidth(), renderer.getHeight()))
+                .contains("<title>repo/a/A.java → repo/b/C.java</title>");
+        assertThat(count(svg, "<circle")).isEqualTo(4);
+        assertThat(count(svg, "<path d=\"M")).isEqualTo(4);
+    }
+
+    @Test
+    void drawsTheWeightOfRolledUpEdges() throws IOException {
+        String svg = draw(new SvgRenderer(GraphRollup.of(FILES, 2), null));
+        assertThat(count(svg, "<circle")).isEqualTo(2);
+        assertThat(svg).contains("<title>repo/a/ → repo/b/ (2 edges)</title>").contains("<title>repo/a/ (2 files)</title>")
+                .contains("stroke-width=\"2\"");
+    }
+
+    @Test
+    void escapesAndShortensPaths() throws IOException {
+        CsrGraph graph = TestGraphs.csrGraphOf("src/<T>&\".java", "src/AVeryLongFileNameThatDoesNotFitUnderItsVertex.java");
+        String svg = draw(new SvgRenderer(GraphRollup.of(graph, GraphRollup.FILES), null));
+        assertThat(svg).contains("<title>src/&lt;T&gt;&amp;&quot;.java</title>").doesNotContain("<T>")
+                .contains(">…esNotFitUnderItsVertex.java</text>");
+    }
+
+    @Test
+    void drawsOnlyWhatCrossesATile() throws IOException {
+        GraphRollup rollup = GraphRollup.of(chainOf(12), GraphRollup.FILES);
+        SvgRenderer whole = new SvgRenderer(rollup, null);
+        assertThat(whole.getDrawnVertexCount()).isEqualTo(12);
+        int size = 100, drawn = 0;
+        for (int column = 0; column * size < whole.getWidth(); ++column) {
+            for (int row = 0; row * size < whole.getHeight(); ++row) {
+                SvgRenderer tile = new SvgRenderer(rollup, new SvgRenderer.Tile(column, row, size));
+                // Tiles are only as big as asked, whatever the size of the picture
+                assertThat(tile.getWidth()).isEqualTo(whole.getWidth());
+                assertThat(tile.getDrawnVertexCount()).isLessThan(12);
+                assertThat(tile.getDrawnEdgeCount()).isLessThan(11);
+                assertThat(count(draw(tile), "<circle")).isEqualTo(tile.getDrawnVertexCount());
+                drawn += tile.getDrawnVertexCount();
+            }
+        }
+        // Vertices on the border of two tiles are drawn in both
+        assertThat(drawn).isGreaterThanOrEqualTo(12);
+    }
+
+    @Test
+    void drawsNothingOutsideThePicture() throws IOException {
+        SvgRenderer tile = new SvgRenderer(GraphRollup.of(chainOf(12), GraphRollup.FILES), new SvgRenderer.Tile(10, 10, 100));
+        assertThat(tile.getDrawnVertexCount()).isZero();
+        assertThat(tile.getDrawnEdgeCount()).isZero();
+        String svg = draw(tile);
+        assertThat(svg).contains("width=\"100\" height=\"100\" viewBox=\"1000 1000 100 100\"");
+        assertThat(count(svg, "<circle")).isZero();
+    }
+}
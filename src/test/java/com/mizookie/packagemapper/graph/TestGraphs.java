@@ -0,0 +1,49 @@
+package com.mizookie.packagemapper.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Small graphs for the tests of this package.
+ */
+final class TestGraphs {
+
+    private TestGraphs() {
+    }
+
+    /**
+     * Build a graph from edges written {@code "source -> target"}. A path on its own is a vertex without edges.
+     */
+    static Graph<String, DefaultEdge> graphOf(String... edges) {
+        Graph<String, DefaultEdge> graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+        for (String edge : edges) {
+            String[] ends = edge.split(" -> ");
+            for (String end : ends) {
+                graph.addVertex(end);
+            }
+            if (ends.length == 2) {
+                graph.addEdge(ends[0], ends[1]);
+            }
+        }
+        return graph;
+    }
+
+    static CsrGraph csrGraphOf(String... edges) {
+        return CsrGraph.of(graphOf(edges));
+    }
+
+    /**
+     * Edges of {@code graph}, written like {@link #graphOf} takes them, in id order
+     */
+    static List<String> edgesOf(CsrGraph graph) {
+        List<String> edges = new ArrayList<>();
+        for (int e = 0; e < graph.getEdgeCount(); ++e) {
+            edges.add(graph.getPath(graph.getEdgeSource(e)) + " -> " + graph.getPath(graph.getEdgeTarget(e)));
+        }
+        return edges;
+    }
+}
@@ -0,0 +1,76 @@
+package com.mizookie.packagemapper.metrics;
+
+import com.mizookie.packagemapper.resolver.ResolverMetrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AnalysisMetricsTests {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AnalysisMetrics metrics = new AnalysisMetrics(registry, "inverted");
+
+    @Test
+    void tagsAnalysesWithTheirRepositoryResolverAndOutcome() {
+        metrics.analysisDone(metrics.start(), "repo", "full", true);
+        metrics.analysisDone(metrics.start(), "repo", "full", false);
+        metrics.phaseDone(metrics.start(), "repo", "walk");
+        metrics.waited(metrics.start(), "repo", "file");
+        assertThat(registry.get("packagemapper.analysis")
+                .tags("repository", "repo", "resolver", "inverted", "mode", "full", "outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(registry.get("packagemapper.analysis").tag("outcome", "failure").timer().count()).isEqualTo(1);
+        assertThat(registry.get("packagemapper.analysis.phase").tags("resolver", "inverted", "phase", "walk").timer().count()).isEqualTo(1);
+        assertThat(registry.get("packagemapper.analysis.wait").tags("queue", "file").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void countsFilesAndEdgesByResolver() {
+        metrics.fileResolved("repo", "java");
+        metrics.fileResolved("repo", "java");
+        metrics.fileResolved("repo", "inverted");
+        metrics.edgesFound("repo", "java", 3);
+        metrics.edgesFound("repo", "java", 2);
+        assertThat(registry.get("packagemapper.files.resolved").tags("repository", "repo", "resolver", "java").counter().count()).isEqualTo(2);
+        assertThat(registry.get("packagemapper.files.resolved").tag("resolver", "inverted").counter().count()).isEqualTo(1);
+        assertThat(registry.get("packagemapper.edges").tag("resolver", "java").counter().count()).isEqualTo(5);
+    }
+
+    @Test
+    void recordsWhatTheResolverRead() {
+        ResolverMetrics resolverMetrics = metrics.forResolver("repo");
+        resolverMetrics.fileSolved(10, 200, TimeUnit.MILLISECONDS.toNanos(4));
+        resolverMetrics.fileSolved(5, 100, TimeUnit.MILLISECONDS.toNanos(2));
+        // Meters of the same repository are shared between analyses
+        metrics.forResolver("repo").fileSolved(1, 1, 0);
+        Timer solve = registry.get("packagemapper.resolver.solve").tags("repository", "repo", "resolver", "inverted").timer();
+        assertThat(solve.count()).isEqualTo(3);
+        assertThat(solve.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(6);
+        assertThat(registry.get("packagemapper.resolver.lines").counter().count()).isEqualTo(16);
+        assertThat(registry.get("packagemapper.resolver.bytes").counter().count()).isEqualTo(301);
+    }
+
+    @Test
+    void reportsTheTakenPermits() throws InterruptedException {
+        Semaphore permits = new Semaphore(4);
+        metrics.monitor(permits, 4, "file");
+        permits.acquire(3);
+        assertThat(registry.get("packagemapper.permits.used").tag("queue", "file").gauge().value()).isEqualTo(3);
+        assertThat(registry.get("packagemapper.permits.max").tag("queue", "file").gauge().value()).isEqualTo(4);
+        permits.release(3);
+        assertThat(registry.get("packagemapper.permits.used").gauge().value()).isZero();
+    }
+
+    @Test
+    void reportsHowBusyAnExecutorIs() {
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            metrics.monitor(executor, "analysis");
+            assertThat(registry.find("executor.pool.size").tag("name", "analysis").gauge()).isNotNull();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.mizookie.packagemapper.resolver;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AhoCorasickMatcherTests {
+
+    private static List<Integer> match(List<String> patterns, String text) {
+        List<Integer> found = new ArrayList<>();
+        new AhoCorasickMatcher(patterns).match(text, found::add);
+        return found;
+    }
+
+    @Test
+    void findsWholeWordsOnly() {
+        List<String> patterns = List.of("Graph", "Service");
+        assertThat(match(patterns, "new Graph(service)")).containsExactly(0);
+        assertThat(match(patterns, "GraphService Graphs subGraph")).isEmpty();
+        assertThat(match(patterns, "Graph.Service")).containsExactly(0, 1);
+    }
+
+    @Test
+    void findsPatternsInsideOtherPatterns() {
+        // Both end on the same character, and the shorter one is reached through the fail links
+        List<String> patterns = List.of("GraphService", "Service", "Graph");
+        assertThat(match(patterns, "GraphService")).containsExactly(0);
+        assertThat(match(patterns, "Graph Service")).containsExactly(2, 1);
+    }
+
+    @Test
+    void reportsEveryOccurrence() {
+        assertThat(match(List.of("a"), "a + a * a")).containsExactly(0, 0, 0);
+    }
+
+    @Test
+    void treatsUnderscoresAndDigitsAsWordCharacters() {
+        List<String> patterns = List.of("file");
+        assertThat(match(patterns, "file_1 file2 _file")).isEmpty();
+        assertThat(match(patterns, "(file)")).containsExactly(0);
+    }
+
+    @Test
+    void matchesNamesThatArentIdentifiers() {
+        assertThat(match(List.of("my-file"), "import './my-file'")).containsExactly(0);
+    }
+
+    @Test
+    void neverReportsEmptyOrRepeatedPatterns() {
+        assertThat(match(List.of("", "a", "a"), "a")).containsExactly(1);
+    }
+}
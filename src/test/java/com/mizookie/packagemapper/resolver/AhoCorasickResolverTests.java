@@ -0,0 +1,38 @@
+package com.mizookie.packagemapper.resolver;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.mizookie.packagemapper.resolver.TestSources.SOURCES;
+import static com.mizookie.packagemapper.resolver.TestSources.filePaths;
+import static com.mizookie.packagemapper.resolver.TestSources.sorted;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AhoCorasickResolverTests {
+
+    @Test
+    void findsWhatTheNaiveResolverFinds() throws IOException {
+        List<String> filePaths = filePaths();
+        NaiveResolver naive = new NaiveResolver(new ForkJoinPool(2), SOURCES);
+        AhoCorasickResolver resolver = new AhoCorasickResolver(SOURCES);
+        for (String filePath : filePaths) {
+            assertThat(sorted(resolver.solve(filePaths, filePath))).as(filePath).isEqualTo(sorted(naive.solve(filePaths, filePath)));
+        }
+    }
+
+    @Test
+    void findsEveryFileOfAName() throws IOException {
+        assertThat(new AhoCorasickResolver(SOURCES).solve(filePaths(), "src/GraphService.java"))
+                .containsExactlyInAnyOrder("src/Graph.java", "web/utils.js", "lib/utils.py");
+    }
+
+    @Test
+    void rebuildsTheIndexForOtherFiles() throws IOException {
+        AhoCorasickResolver resolver = new AhoCorasickResolver(SOURCES);
+        assertThat(resolver.solve(filePaths(), "src/App.java")).containsExactlyInAnyOrder("src/Graph.java", "src/GraphService.java");
+        assertThat(resolver.solve(List.of("src/App.java", "src/Graph.java"), "src/App.java")).containsExactly("src/Graph.java");
+    }
+}
@@ -0,0 +1,61 @@
+package com.mizookie.packagemapper.resolver;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ByteNameTableTests {
+
+    // Look up text[start, start + length) the way MappedResolver does
+    private static int get(ByteNameTable table, String text, int start, int length) {
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        int hash = 0;
+        for (int i = start; i < start + length; ++i) {
+            hash = ByteNameTable.nextHash(hash, buffer.get(i));
+        }
+        return table.get(buffer, start, length, hash);
+    }
+
+    @Test
+    void findsTheIndexOfEachName() {
+        ByteNameTable table = new ByteNameTable(List.of("Graph", "GraphService", "utils"));
+        assertThat(get(table, "Graph", 0, 5)).isEqualTo(0);
+        assertThat(get(table, "new GraphService()", 4, 12)).isEqualTo(1);
+        assertThat(get(table, "import utils", 7, 5)).isEqualTo(2);
+    }
+
+    @Test
+    void returnsMinusOneForOtherTokens() {
+        ByteNameTable table = new ByteNameTable(List.of("Graph", "utils"));
+        assertThat(get(table, "Graphs", 0, 6)).isEqualTo(-1);
+        assertThat(get(table, "Grap", 0, 4)).isEqualTo(-1);
+        assertThat(get(table, "a_much_longer_token_than_any_name", 0, 33)).isEqualTo(-1);
+    }
+
+    @Test
+    void keepsTheFirstIndexOfARepeatedName() {
+        ByteNameTable table = new ByteNameTable(List.of("a", "b", "a"));
+        assertThat(get(table, "a", 0, 1)).isEqualTo(0);
+        assertThat(get(table, "b", 0, 1)).isEqualTo(1);
+    }
+
+    @Test
+    void holdsManyNames() {
+        List<String> names = IntStream.range(0, 1000).mapToObj(i -> "name" + i).toList();
+        ByteNameTable table = new ByteNameTable(names);
+        for (int i = 0; i < names.size(); ++i) {
+            assertThat(get(table, names.get(i), 0, names.get(i).length())).isEqualTo(i);
+        }
+        assertThat(get(table, "name1000", 0, 8)).isEqualTo(-1);
+    }
+
+    @Test
+    void isEmptyWithoutNames() {
+        assertThat(get(new ByteNameTable(List.of()), "a", 0, 1)).isEqualTo(-1);
+    }
+}
@@ -0,0 +1,53 @@
+package com.mizookie.packagemapper.resolver;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BytePatternTableTests {
+    private static final List<String> NAMES = List.of("App", "vite.config", "docker-compose", "café", "-x");
+    private static final BytePatternTable TABLE = new BytePatternTable(NAMES, List.of(1, 2, 3, 4));
+
+    // Names found starting at the given offset of the text
+    private static List<String> matchAt(String text, int start) {
+        BitSet found = new BitSet();
+        TABLE.matchAt(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)), start, found);
+        return found.stream().mapToObj(NAMES::get).toList();
+    }
+
+    @Test
+    void matchesNamesEndingOnAWordBoundary() {
+        assertThat(matchAt("vite.config.ts", 0)).containsExactly("vite.config");
+        assertThat(matchAt("docker-compose", 0)).containsExactly("docker-compose");
+        assertThat(matchAt("docker-composer", 0)).isEmpty();
+        assertThat(matchAt("café!", 0)).isEmpty();
+        assertThat(matchAt("caféx", 0)).containsExactly("café");
+        assertThat(matchAt("a-x", 1)).containsExactly("-x");
+    }
+
+    @Test
+    void matchesAnyCharacterButLineBreaksForDots() {
+        assertThat(matchAt("vite_config", 0)).containsExactly("vite.config");
+        assertThat(matchAt("vite€config", 0)).containsExactly("vite.config");
+        assertThat(matchAt("vite\nconfig", 0)).isEmpty();
+        assertThat(matchAt("vite\u2028config", 0)).isEmpty();
+        assertThat(matchAt("vite config", 0)).containsExactly("vite.config");
+        assertThat(matchAt("vite.conf", 0)).isEmpty();
+    }
+
+    @Test
+    void onlyTakesNamesWithoutOtherMetacharacters() {
+        assertThat(BytePatternTable.isMatchable("vite.config")).isTrue();
+        assertThat(BytePatternTable.isMatchable("docker-compose")).isTrue();
+        assertThat(BytePatternTable.isMatchable("[id]")).isFalse();
+        assertThat(BytePatternTable.isMatchable("c++")).isFalse();
+        assertThat(BytePatternTable.isMatchable(".eslintrc")).isFalse();
+        assertThat(BytePatternTable.isMatchable("")).isFalse();
+        assertThat(new BytePatternTable(NAMES, List.of()).isEmpty()).isTrue();
+    }
+}
@@ -0,0 +1,129 @@
+package com.mizookie.packagemapper.resolver;
+
+import com.mizookie.packagemapper.visitors.SourceFileFilter;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GitSourceReaderTests {
+    @TempDir
+    Path repositoryPath;
+    private ObjectId first, second;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        try (Git git = Git.init().setDirectory(repositoryPath.toFile()).call()) {
+            write("src/A.java", "class A { B b; }");
+            write("src/B.java", "class B {}");
+            write("web/app.js", "import './b';");
+            write("web/app.min.js", "minified");
+            write(".config/settings.java", "hidden");
+            Files.write(repositoryPath.resolve("src/logo.java"), new byte[]{'P', 'N', 'G', 0, 1});
+            // Committed before it was ignored, like build output pushed by mistake
+            git.add().addFilepattern(".").call();
+            write(".gitignore", "generated/\n");
+            write("web/.gitignore", "*.min.js\n");
+            first = commit(git, "First");
+
+            write("src/A.java", "class A {}");
+            Files.delete(repositoryPath.resolve("src/B.java"));
+            second = commit(git, "Second");
+        }
+        // Neither commit is checked out
+        write("src/A.java", "class A { C c; }");
+        write("generated/Out.java", "ignored");
+    }
+
+    private void write(String path, String content) throws IOException {
+        Path file = repositoryPath.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+    }
+
+    private static ObjectId commit(Git git, String message) throws Exception {
+        git.add().addFilepattern(".").call();
+        git.add().addFilepattern(".").setUpdate(true).call();
+        return git.commit().setMessage(message).setAuthor("test", "test@example.com")
+                .setCommitter("test", "test@example.com").call().getId();
+    }
+
+    private GitSourceReader readerOf(ObjectId commit, SourceFileFilter filter) throws Exception {
+        Repository repository = Git.open(repositoryPath.toFile()).getRepository();
+        RevTree tree;
+        try (RevWalk revWalk = new RevWalk(repository)) {
+            tree = revWalk.parseCommit(commit).getTree();
+        }
+        return new GitSourceReader(repository, tree, "repositories/repo", filter, new BinaryBlobCache(10));
+    }
+
+    private static String read(SourceReader reader, String filePath) throws IOException {
+        return StandardCharsets.UTF_8.decode(reader.readAllBytes(filePath)).toString();
+    }
+
+    @Test
+    void listsTheFilesACheckoutOfTheCommitWouldKeep() throws Exception {
+        try (GitSourceReader reader = readerOf(first, SourceFileFilter.VISIBLE)) {
+            // Hidden, ignored by a .gitignore of any directory, and binary files are left out
+            assertThat(reader.getFilePaths()).containsExactlyInAnyOrder(
+                    "repositories/repo/src/A.java", "repositories/repo/src/B.java", "repositories/repo/web/app.js");
+            assertThat(reader.getBlobIds()).containsKeys(
+                    "repositories/repo/src/logo.java", "repositories/repo/web/app.min.js", "repositories/repo/.gitignore");
+        }
+        SourceFileFilter javaOnly = new SourceFileFilter(List.of("src/B.java"), Set.of(".java"), 0);
+        try (GitSourceReader reader = readerOf(first, javaOnly)) {
+            assertThat(reader.getFilePaths()).containsExactly("repositories/repo/src/A.java");
+        }
+    }
+
+    @Test
+    void readsTheCommitRatherThanTheWorkingTree() throws Exception {
+        try (GitSourceReader reader = readerOf(first, SourceFileFilter.VISIBLE)) {
+            assertThat(read(reader, "repositories/repo/src/A.java")).isEqualTo("class A { B b; }");
+            assertThat(read(reader, "repositories/repo/src/B.java")).isEqualTo("class B {}");
+        }
+        try (GitSourceReader reader = readerOf(second, SourceFileFilter.VISIBLE)) {
+            assertThat(read(reader, "repositories/repo/src/A.java")).isEqualTo("class A {}");
+            assertThat(reader.getFilePaths()).doesNotContain("repositories/repo/src/B.java");
+            assertThatThrownBy(() -> reader.open("repositories/repo/src/B.java")).isInstanceOf(FileNotFoundException.class);
+        }
+    }
+
+    @Test
+    void readsGivenBlobsUnderAnyName() throws Exception {
+        Map<String, String> blobIds;
+        try (GitSourceReader reader = readerOf(first, SourceFileFilter.VISIBLE)) {
+            blobIds = reader.getBlobIds();
+        }
+        Repository repository = Git.open(repositoryPath.toFile()).getRepository();
+        try (GitSourceReader reader = new GitSourceReader(repository, Map.of("B.java", blobIds.get("repositories/repo/src/B.java")))) {
+            assertThat(reader.getFilePaths()).containsExactly("B.java");
+            assertThat(read(reader, "B.java")).isEqualTo("class B {}");
+        }
+    }
+
+    @Test
+    void servesResolversTheFilesOfTheCommit() throws Exception {
+        try (GitSourceReader reader = readerOf(first, SourceFileFilter.VISIBLE)) {
+            List<String> filePaths = reader.getFilePaths();
+            assertThat(new MappedResolver(reader).solve(filePaths, "repositories/repo/src/A.java"))
+                    .containsExactly("repositories/repo/src/B.java");
+        }
+    }
+}
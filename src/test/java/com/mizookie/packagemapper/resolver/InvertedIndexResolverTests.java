@@ -0,0 +1,89 @@
+package com.mizookie.packagemapper.resolver;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.mizookie.packagemapper.resolver.TestSources.FILES;
+import static com.mizookie.packagemapper.resolver.TestSources.SOURCES;
+import static com.mizookie.packagemapper.resolver.TestSources.filePaths;
+import static com.mizookie.packagemapper.resolver.TestSources.sorted;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InvertedIndexResolverTests {
+
+    @Test
+    void findsWhatTheNaiveResolverFindsForIdentifiers() throws IOException {
+        List<String> filePaths = filePaths().stream().filter(path -> !path.contains("-") && !path.contains(".test")).toList();
+        try (ForkJoinPool pool = new ForkJoinPool(2)) {
+            NaiveResolver naive = new NaiveResolver(pool, SOURCES);
+            InvertedIndexResolver resolver = new InvertedIndexResolver(pool, SOURCES);
+            for (String filePath : filePaths) {
+                assertThat(sorted(resolver.solve(filePaths, filePath))).as(filePath).isEqualTo(sorted(naive.solve(filePaths, filePath)));
+            }
+        }
+    }
+
+    @Test
+    void neverFindsNamesThatArentIdentifiers() throws IOException {
+        try (ForkJoinPool pool = new ForkJoinPool(2)) {
+            assertThat(new InvertedIndexResolver(pool, SOURCES).solve(filePaths(), "web/index.js")).isEmpty();
+        }
+    }
+
+    @Test
+    void readsEveryFileOnceOnThePool() throws IOException {
+        Map<String, AtomicInteger> reads = new ConcurrentHashMap<>();
+        Set<Thread> readers = ConcurrentHashMap.newKeySet();
+        SourceReader sourceReader = filePath -> {
+            reads.computeIfAbsent(filePath, k -> new AtomicInteger()).incrementAndGet();
+            readers.add(Thread.currentThread());
+            return SOURCES.open(filePath);
+        };
+        List<String> filePaths = filePaths();
+        try (ForkJoinPool pool = new ForkJoinPool(2)) {
+            InvertedIndexResolver resolver = new InvertedIndexResolver(pool, sourceReader);
+            for (String filePath : filePaths) {
+                resolver.solve(filePaths, filePath);
+            }
+            assertThat(reads.keySet()).containsExactlyInAnyOrderElementsOf(filePaths);
+            assertThat(reads.values()).allMatch(count -> count.get() == 1);
+            assertThat(readers).allMatch(thread -> thread instanceof ForkJoinWorkerThread worker && worker.getPool() == pool);
+        }
+    }
+
+    @Test
+    void readsFilesOutsideTheIndexWhenAskedFor() throws IOException {
+        SourceReader sourceReader = filePath -> filePath.equals("extra/Main.java")
+                ? new ByteArrayInputStream("class Main { Graph graph; }".getBytes(StandardCharsets.UTF_8))
+                : SOURCES.open(filePath);
+        try (ForkJoinPool pool = new ForkJoinPool(2)) {
+            assertThat(new InvertedIndexResolver(pool, sourceReader).solve(filePaths(), "extra/Main.java")).containsExactly("src/Graph.java");
+        }
+    }
+
+    @Test
+    void failsWhenAFileCantBeRead() {
+        List<String> filePaths = List.of("src/App.java", "src/Missing.java");
+        SourceReader sourceReader = filePath -> {
+            if (!FILES.containsKey(filePath)) {
+                throw new IOException("No such file: " + filePath);
+            }
+            return SOURCES.open(filePath);
+        };
+        try (ForkJoinPool pool = new ForkJoinPool(2)) {
+            assertThatThrownBy(() -> new InvertedIndexResolver(pool, sourceReader).solve(filePaths, "src/App.java"))
+                    .isInstanceOf(IOException.class).hasMessageContaining("src/Missing.java");
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.mizookie.packagemapper.resolver;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JavaImportResolverTests {
+    private static final List<String> FILE_PATHS = List.of(
+            "repo/src/main/java/com/app/App.java",
+            "repo/src/main/java/com/app/graph/Graph.java",
+            "repo/src/main/java/com/app/graph/GraphService.java",
+            "repo/src/main/java/com/app/util/Strings.java",
+            "repo/src/main/resources/Graph.properties");
+
+    private static JavaImportResolver resolverOf(String source) {
+        return new JavaImportResolver(filePath -> new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void readsImportsThenTheNamesUsedByTheFile() throws IOException {
+        String source = """
+                /*
+                 * License
+                 */
+                package com.app;
+
+                import com.app.graph.Graph; // a comment
+                import static com.app.util.Strings.join;
+                import java.util.*;
+
+                @Deprecated
+                public class App {
+                    import com.app.graph.GraphService;
+                }
+                """;
+        List<List<String>> imports = resolverOf(source).readImports("App.java");
+        assertThat(imports).startsWith(
+                List.of("com.app.graph.Graph", "com.app.graph", "com.app"),
+                List.of("com.app.util.Strings.join", "com.app.util.Strings", "com.app.util", "com.app"));
+        // Names used without being imported are classes of the file's package, or of the one imported with *
+        assertThat(imports).contains(
+                List.of("com.app.graph.GraphService", "com.app.graph", "com.app"),
+                List.of("Deprecated", "java.util.Deprecated"),
+                List.of("App", "java.util.App"));
+        assertThat(imports).doesNotContain(List.of("Graph", "java.util.Graph"), List.of("License", "java.util.License"));
+    }
+
+    @Test
+    void readsSeveralStatementsOnALine() throws IOException {
+        assertThat(resolverOf("package a; import b.c.D; import e.F; class G {}").readImports("G.java"))
+                .containsExactly(List.of("b.c.D", "b.c"), List.of("e.F"), List.of("class"), List.of("G"));
+    }
+
+    @Test
+    void resolvesClassesNestedClassesAndPackages() throws IOException {
+        String source = """
+                package com.app;
+                import com.app.graph.Graph.Edge;
+                import com.app.util.*;
+                import static com.app.graph.GraphService.INSTANCE;
+                import org.jgrapht.Graph;
+                class App { String s = Strings.join(); }
+                """;
+        assertThat(resolverOf(source).solve(FILE_PATHS, FILE_PATHS.get(0))).containsExactly(
+                "repo/src/main/java/com/app/graph/Graph.java",
+                "repo/src/main/java/com/app/graph/GraphService.java",
+                "repo/src/main/java/com/app/util/Strings.java");
+    }
+
+    @Test
+    void findsFilesOfTheSamePackage() throws IOException {
+        String source = "package com.app.graph;\nclass GraphService { Graph graph; }";
+        assertThat(resolverOf(source).solve(FILE_PATHS, FILE_PATHS.get(2))).containsExactly("repo/src/main/java/com/app/graph/Graph.java");
+    }
+
+    @Test
+    void onlyFindsTheClassesOfAWildcardImportThatAreUsed() throws IOException {
+        String source = "package com.app;\nimport com.app.graph.*;\nclass App { Graph graph; }";
+        assertThat(resolverOf(source).solve(FILE_PATHS, FILE_PATHS.get(0))).containsExactly("repo/src/main/java/com/app/graph/Graph.java");
+    }
+
+    @Test
+    void prefersTheClassesOfTheSamePackage() throws IOException {
+        List<String> filePaths = List.of("repo/com/app/App.java", "repo/com/app/Graph.java", "repo/com/app/graph/Graph.java");
+        String source = "package com.app;\nimport com.app.graph.*;\nclass App { Graph graph; }";
+        assertThat(resolverOf(source).solve(filePaths, filePaths.get(0))).containsExactly("repo/com/app/Graph.java");
+    }
+
+    @Test
+    void doesNotLookImportedNamesUpInTheSamePackage() throws IOException {
+        String source = "package com.app.graph;\nimport org.jgrapht.Graph;\nclass GraphService { Graph graph; }";
+        assertThat(resolverOf(source).solve(FILE_PATHS, FILE_PATHS.get(2))).isEmpty();
+    }
+
+    @Test
+    void findsFullyQualifiedNames() throws IOException {
+        String source = "package com.app;\nclass App { com.app.util.Strings strings; com.app.graph.Graph.Edge edge; }";
+        assertThat(resolverOf(source).solve(FILE_PATHS, FILE_PATHS.get(0))).containsExactly(
+                "repo/src/main/java/com/app/util/Strings.java",
+                "repo/src/main/java/com/app/graph/Graph.java");
+    }
+
+    @Test
+    void skipsNamesInCommentsAndStrings() throws IOException {
+        String source = """
+                package com.app.graph;
+                class GraphService {
+                    // Graph
+                    /* Graph */ String name = "Graph \\" Graph";
+                    char c = '"'; String other = "com.app.util.Strings";
+                }
+                """;
+        assertThat(resolverOf(source).solve(FILE_PATHS, FILE_PATHS.get(2))).isEmpty();
+    }
+
+    @Test
+    void findsFilesOfTheSameDirectoryInTheDefaultPackage() throws IOException {
+        List<String> filePaths = List.of("repo/src/A.java", "repo/src/B.java", "repo/src/other/B.java");
+        String source = "class A { B b; }";
+        assertThat(resolverOf(source).solve(filePaths, filePaths.get(0))).containsExactly("repo/src/B.java");
+    }
+}
@@ -0,0 +1,97 @@
+package com.mizookie.packagemapper.resolver;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JavaScriptImportResolverTests {
+    private static final List<String> FILE_PATHS = List.of(
+            "repo/src/index.ts",
+            "repo/src/app.tsx",
+            "repo/src/graph/index.ts",
+            "repo/src/graph/builder.ts",
+            "repo/src/utils.js",
+            "repo/src/styles.css",
+            "repo/src/data.json");
+
+    private static JavaScriptImportResolver resolverOf(String source) {
+        return new JavaScriptImportResolver(filePath -> new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static List<String> specifiers(String source) throws IOException {
+        return resolverOf(source).readImports("index.ts").stream().map(alternatives -> alternatives.get(0)).toList();
+    }
+
+    @Test
+    void readsImportsExportsAndRequires() throws IOException {
+        String source = """
+                'use strict';
+                // comment
+                import React from 'react';
+                import { a, b } from "./graph";
+                import './styles.css';
+                export * from './utils';
+                export { builder } from './graph/builder';
+                const data = require('./data.json');
+                function main() {}
+                import late from './late';
+                """;
+        assertThat(specifiers(source)).containsExactly("react", "./graph", "./styles.css", "./utils", "./graph/builder", "./data.json");
+    }
+
+    @Test
+    void readsStatementsSplitOverSeveralLines() throws IOException {
+        String source = """
+                import {
+                    a,
+                    b,
+                } from './graph';
+                export type {
+                    C,
+                } from './app';
+                import d from
+                    './utils';
+                import e from './data.json';
+                """;
+        assertThat(specifiers(source)).containsExactly("./graph", "./app", "./utils", "./data.json");
+    }
+
+    @Test
+    void stopsAtExportsOfTheFilesOwnNames() throws IOException {
+        String source = """
+                import a from './app';
+                export {
+                    a,
+                };
+                import b from './utils';
+                """;
+        assertThat(specifiers(source)).containsExactly("./app");
+        assertThat(specifiers("import a from './app';\nexport { a };\nimport b from './utils';\n")).containsExactly("./app");
+    }
+
+    @Test
+    void resolvesRelativeSpecifiersOnly() throws IOException {
+        String source = """
+                import React from 'react';
+                import { App } from './app';
+                import graph from './graph';
+                import { Builder } from './graph/builder.js';
+                import utils from './utils.js';
+                import './styles.css';
+                import missing from './missing';
+                """;
+        assertThat(resolverOf(source).solve(FILE_PATHS, "repo/src/index.ts")).containsExactly(
+                "repo/src/app.tsx", "repo/src/graph/index.ts", "repo/src/graph/builder.ts", "repo/src/utils.js", "repo/src/styles.css");
+    }
+
+    @Test
+    void resolvesParentDirectories() throws IOException {
+        assertThat(resolverOf("import u from '../utils';\nimport d from '../data.json';").solve(FILE_PATHS, "repo/src/graph/builder.ts"))
+                .containsExactly("repo/src/utils.js", "repo/src/data.json");
+    }
+}
@@ -0,0 +1,128 @@
+package com.mizookie.packagemapper.resolver;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.mizookie.packagemapper.resolver.TestSources.SOURCES;
+import static com.mizookie.packagemapper.resolver.TestSources.filePaths;
+import static com.mizookie.packagemapper.resolver.TestSources.sorted;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MappedResolverTests {
+
+    private static void assertSameAsNaive(List<String> filePaths, SourceReader sourceReader) throws IOException {
+        try (ForkJoinPool pool = new ForkJoinPool(2)) {
+            NaiveResolver naive = new NaiveResolver(pool, sourceReader);
+            MappedResolver mapped = new MappedResolver(sourceReader);
+            for (String filePath : filePaths) {
+                assertThat(sorted(mapped.solve(filePaths, filePath))).as(filePath).isEqualTo(sorted(naive.solve(filePaths, filePath)));
+            }
+        }
+    }
+
+    @Test
+    void findsWhatTheNaiveResolverFinds() throws IOException {
+        assertSameAsNaive(filePaths(), SOURCES);
+    }
+
+    @Test
+    void findsNamesThatArentIdentifiers() throws IOException {
+        assertThat(new MappedResolver(SOURCES).solve(filePaths(), "web/index.js")).containsExactlyInAnyOrder("web/my-file.js", "web/app.test.js");
+    }
+
+    @Test
+    void findsEveryFileOfAName() throws IOException {
+        assertThat(new MappedResolver(SOURCES).solve(filePaths(), "src/GraphService.java"))
+                .containsExactlyInAnyOrder("src/Graph.java", "web/utils.js", "lib/utils.py");
+        // A file mentioning its own name only refers to the other files with that name
+        assertThat(new MappedResolver(SOURCES).solve(filePaths(), "web/utils.js")).containsExactly("lib/utils.py");
+    }
+
+    @Test
+    void readsEachFileOnce() throws IOException {
+        Map<String, AtomicInteger> reads = new ConcurrentHashMap<>();
+        SourceReader sourceReader = filePath -> {
+            reads.computeIfAbsent(filePath, k -> new AtomicInteger()).incrementAndGet();
+            return SOURCES.open(filePath);
+        };
+        MappedResolver resolver = new MappedResolver(sourceReader);
+        for (String filePath : filePaths()) {
+            resolver.solve(filePaths(), filePath);
+        }
+        assertThat(reads.values()).allMatch(count -> count.get() == 1);
+    }
+
+    @Test
+    void matchesNamesThatArentIdentifiersLikeRegularExpressions() throws IOException {
+        Map<String, String> files = new HashMap<>();
+        files.put("vite.config.ts", "");
+        files.put("docker-compose.yml", "");
+        files.put("café.py", "");
+        files.put("trailing-.js", "");
+        files.put("-leading.js", "");
+        files.put("[id].tsx", "");
+        files.put("a.js", String.join("\n",
+                // '.' stands for any character, but a line break
+                "import x from 'vite_config';",
+                "vite\nconfig docker-composer",
+                "see café, trailing-x and x-leading"));
+        files.put("b.js", "vite😀config and caféx and -leading and [id]");
+        files.put("c.js", "docker-compose.yml\nvite\u2028config");
+        SourceReader sourceReader = filePath -> new ByteArrayInputStream(files.get(filePath).getBytes(StandardCharsets.UTF_8));
+        List<String> filePaths = new ArrayList<>(files.keySet());
+
+        MappedResolver resolver = new MappedResolver(sourceReader);
+        assertThat(resolver.solve(filePaths, "a.js")).containsExactlyInAnyOrder("vite.config.ts", "trailing-.js", "-leading.js");
+        assertThat(resolver.solve(filePaths, "b.js")).containsExactlyInAnyOrder("vite.config.ts", "café.py");
+        assertThat(resolver.solve(filePaths, "c.js")).containsExactly("docker-compose.yml");
+        // Except for names with other metacharacters, the same as the naive resolver
+        files.remove("[id].tsx");
+        assertSameAsNaive(new ArrayList<>(files.keySet()), sourceReader);
+    }
+
+    @Test
+    void findsWhatTheNaiveResolverFindsInRandomText() throws IOException {
+        List<String> names = List.of("ab", "a.b", "a-b", "b_", "a.b-c", "é", "x-", "-x");
+        String[] pieces = {"a", "b", "c", "x", "_", ".", "-", " ", "é", "\n", "ab", "a-b", "a.b"};
+        Random random = new Random(42);
+        Map<String, String> files = new HashMap<>();
+        List<String> filePaths = new ArrayList<>();
+        for (String name : names) {
+            filePaths.add("lib/" + name + ".js");
+            files.put("lib/" + name + ".js", "");
+        }
+        for (int i = 0; i < 300; ++i) {
+            StringBuilder content = new StringBuilder();
+            for (int j = random.nextInt(12); j > 0; --j) {
+                content.append(pieces[random.nextInt(pieces.length)]);
+            }
+            filePaths.add("src/file" + i + ".js");
+            files.put("src/file" + i + ".js", content.toString());
+        }
+        assertSameAsNaive(filePaths, filePath -> new ByteArrayInputStream(files.get(filePath).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void mapsFilesOnDisk(@TempDir Path directory) throws IOException {
+        Path graph = Files.writeString(directory.resolve("Graph.java"), "class Graph {}");
+        Path config = Files.writeString(directory.resolve("vite.config.ts"), "export default {}");
+        Path app = Files.writeString(directory.resolve("App.java"), "class App {\n    Graph graph; // vite.config\n}");
+        List<String> filePaths = List.of(app.toString(), graph.toString(), config.toString());
+        assertThat(new MappedResolver().solve(filePaths, app.toString())).containsExactlyInAnyOrder(graph.toString(), config.toString());
+        assertThat(new MappedResolver().solve(filePaths, graph.toString())).isEmpty();
+    }
+}
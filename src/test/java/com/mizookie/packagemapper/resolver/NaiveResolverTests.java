@@ -0,0 +1,87 @@
+package com.mizookie.packagemapper.resolver;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.mizookie.packagemapper.resolver.TestSources.SOURCES;
+import static com.mizookie.packagemapper.resolver.TestSources.filePaths;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NaiveResolverTests {
+
+    private static SourceReader readerOf(Map<String, String> files) {
+        return filePath -> new ByteArrayInputStream(files.get(filePath).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void findsFilesMentionedAsWholeWords() throws IOException {
+        try (ForkJoinPool pool = new ForkJoinPool(2)) {
+            NaiveResolver resolver = new NaiveResolver(pool, SOURCES);
+            assertThat(resolver.solve(filePaths(), "src/App.java")).containsExactlyInAnyOrder("src/Graph.java", "src/GraphService.java");
+            // A file mentioning its own name only refers to the other files with that name
+            assertThat(resolver.solve(filePaths(), "web/utils.js")).containsExactly("lib/utils.py");
+            assertThat(resolver.solve(filePaths(), "web/index.js")).containsExactlyInAnyOrder("web/my-file.js", "web/app.test.js");
+        }
+    }
+
+    @Test
+    void splitsManyCandidatesBetweenThreads() throws IOException {
+        // Enough candidates and lines for tasks to split the candidates many times
+        Map<String, String> files = new HashMap<>();
+        List<String> filePaths = new ArrayList<>();
+        StringBuilder main = new StringBuilder();
+        for (int i = 0; i < 2000; ++i) {
+            String name = "File" + i;
+            filePaths.add("src/" + name + ".java");
+            files.put("src/" + name + ".java", "class " + name + " {}");
+            main.append(i % 3 == 0 ? "use " + name + ";\n" : "nothing here;\n");
+        }
+        filePaths.add("src/Main.java");
+        files.put("src/Main.java", main.toString());
+
+        try (ForkJoinPool pool = new ForkJoinPool(4)) {
+            List<String> found = new NaiveResolver(pool, readerOf(files)).solve(filePaths, "src/Main.java");
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < 2000; i += 3) {
+                expected.add("src/File" + i + ".java");
+            }
+            assertThat(found).containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+    @Test
+    void splitsTheLinesOfALongFile() throws IOException {
+        // A single candidate, mentioned on the last of many lines only
+        String longFile = "nothing here;\n".repeat(50_000) + "use Graph;\n";
+        Map<String, String> files = Map.of("src/Main.java", longFile, "src/Graph.java", "class Graph {}");
+        List<String> filePaths = List.of("src/Main.java", "src/Graph.java");
+        try (ForkJoinPool pool = new ForkJoinPool(4)) {
+            assertThat(new NaiveResolver(pool, readerOf(files)).solve(filePaths, "src/Main.java")).containsExactly("src/Graph.java");
+            Map<String, String> without = Map.of("src/Main.java", "nothing here;\n".repeat(50_000), "src/Graph.java", "class Graph {}");
+            assertThat(new NaiveResolver(pool, readerOf(without)).solve(filePaths, "src/Main.java")).isEmpty();
+        }
+    }
+
+    @Test
+    void reportsWhatWasRead() throws IOException {
+        AtomicLong lines = new AtomicLong(), bytes = new AtomicLong();
+        ResolverMetrics metrics = (fileLines, fileBytes, nanos) -> {
+            lines.addAndGet(fileLines);
+            bytes.addAndGet(fileBytes);
+        };
+        try (ForkJoinPool pool = new ForkJoinPool(2)) {
+            new NaiveResolver(pool, SOURCES, metrics).solve(filePaths(), "web/index.js");
+        }
+        assertThat(lines.get()).isEqualTo(3);
+        assertThat(bytes.get()).isEqualTo(TestSources.FILES.get("web/index.js").getBytes(StandardCharsets.UTF_8).length);
+    }
+}
@@ -0,0 +1,78 @@
+package com.mizookie.packagemapper.resolver;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PythonImportResolverTests {
+    private static final List<String> FILE_PATHS = List.of(
+            "repo/app/__init__.py",
+            "repo/app/main.py",
+            "repo/app/graph/__init__.py",
+            "repo/app/graph/builder.py",
+            "repo/app/graph/render.pyi",
+            "repo/app/utils.py",
+            "repo/tests/test_main.py");
+
+    private static PythonImportResolver resolverOf(String source) {
+        return new PythonImportResolver(filePath -> new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void readsImportsUntilTheFirstDefinition() throws IOException {
+        String source = """
+                #!/usr/bin/env python
+                \"\"\"Module docstring
+                import not_an_import
+                \"\"\"
+                import os, sys as system  # comment
+                from app.graph import (
+                    builder,
+                    render as r,
+                )
+                try:
+                    import ujson as json
+                except ImportError:
+                    import json
+
+                def main():
+                    import later
+                """;
+        assertThat(resolverOf(source).readImports("main.py")).containsExactly(
+                List.of("os"), List.of("sys"),
+                List.of("app.graph.builder", "app.graph"), List.of("app.graph.render", "app.graph"),
+                List.of("ujson"), List.of("json"));
+    }
+
+    @Test
+    void readsContinuedLinesAndStarImports() throws IOException {
+        String source = "from app.utils import \\\n    join\nfrom app.graph import *\nclass A:\n    pass\n";
+        assertThat(resolverOf(source).readImports("a.py")).containsExactly(
+                List.of("app.utils.join", "app.utils"), List.of("app.graph"));
+    }
+
+    @Test
+    void resolvesAbsoluteAndRelativeImports() throws IOException {
+        String source = """
+                from . import utils
+                from .graph import builder
+                from .graph.render import draw
+                import app
+                import numpy
+                """;
+        assertThat(resolverOf(source).solve(FILE_PATHS, "repo/app/main.py")).containsExactly(
+                "repo/app/utils.py", "repo/app/graph/builder.py", "repo/app/graph/render.pyi", "repo/app/__init__.py");
+    }
+
+    @Test
+    void resolvesParentPackages() throws IOException {
+        String source = "from .. import utils\nfrom ..graph import builder\n";
+        assertThat(resolverOf(source).solve(FILE_PATHS, "repo/app/graph/render.pyi")).containsExactly(
+                "repo/app/utils.py", "repo/app/graph/builder.py");
+    }
+}
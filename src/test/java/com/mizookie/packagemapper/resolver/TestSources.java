@@ -0,0 +1,40 @@
+package com.mizookie.packagemapper.resolver;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A small tree of files held in memory, with names that are identifiers, names that aren't, and names shared by
+ * several files.
+ */
+final class TestSources {
+    static final Map<String, String> FILES = new LinkedHashMap<>();
+
+    static {
+        FILES.put("src/App.java", "import src.Graph;\nclass App { Graph graph; GraphService service; }");
+        FILES.put("src/Graph.java", "class Graph {}");
+        FILES.put("src/GraphService.java", "class GraphService { Graph graph; } // uses utils");
+        FILES.put("web/utils.js", "export const utils = 1;");
+        FILES.put("web/my-file.js", "import { utils } from './utils';");
+        FILES.put("web/index.js", "import x from './my-file';\nconst t = app.test;\nconst c = 'café';");
+        FILES.put("web/app.test.js", "test('app')");
+        FILES.put("lib/utils.py", "import Graph");
+    }
+
+    static final SourceReader SOURCES = filePath -> new ByteArrayInputStream(FILES.get(filePath).getBytes(StandardCharsets.UTF_8));
+
+    private TestSources() {
+    }
+
+    static List<String> filePaths() {
+        return new ArrayList<>(FILES.keySet());
+    }
+
+    static List<String> sorted(List<String> paths) {
+        return paths.stream().sorted().toList();
+    }
+}
@@ -0,0 +1,65 @@
+package com.mizookie.packagemapper.resolver;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenFilterTests {
+
+    private static TokenFilter of(String content) {
+        return TokenFilter.of(ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void containsEveryIdentifier() {
+        TokenFilter filter = of("import com.example.GraphService;\nclass App extends Base_2 {}");
+        for (String token : new String[]{"import", "com", "example", "GraphService", "class", "App", "extends", "Base_2"}) {
+            assertThat(filter.mightContain(token)).as(token).isTrue();
+        }
+    }
+
+    @Test
+    void rulesOutMostOtherTokens() {
+        String content = String.join(" ", IntStream.range(0, 2000).mapToObj(i -> "token" + i).toList());
+        TokenFilter filter = of(content);
+        long falsePositives = IntStream.range(2000, 12000).filter(i -> filter.mightContain("token" + i)).count();
+        // About 3% with 8 bits per token and 3 hashes
+        assertThat(falsePositives).isLessThan(600);
+        assertThat(filter.mightContain("token1999")).isTrue();
+    }
+
+    @Test
+    void doesNotContainPartsOfTokens() {
+        TokenFilter filter = of("GraphService");
+        assertThat(filter.mightContain("GraphService")).isTrue();
+        assertThat(filter.mightContain("Graph")).isFalse();
+        assertThat(filter.mightContain("Service")).isFalse();
+    }
+
+    @Test
+    void neverRulesOutNamesThatArentIdentifiers() {
+        TokenFilter filter = of("nothing here");
+        assertThat(filter.mightContain("my-file")).isTrue();
+        assertThat(filter.mightContain("app.test")).isTrue();
+        assertThat(filter.mightContain("")).isTrue();
+    }
+
+    @Test
+    void treatsNonAsciiBytesAsSeparators() {
+        TokenFilter filter = of("caféGraph");
+        assertThat(filter.mightContain("caf")).isTrue();
+        assertThat(filter.mightContain("Graph")).isTrue();
+    }
+
+    @Test
+    void survivesBeingStored() {
+        TokenFilter filter = of("alpha beta");
+        TokenFilter stored = new TokenFilter(filter.getBits().clone());
+        assertThat(stored.mightContain("alpha")).isTrue();
+        assertThat(stored.mightContain("gamma")).isEqualTo(filter.mightContain("gamma"));
+    }
+}
@@ -0,0 +1,296 @@
+package com.mizookie.packagemapper.services.implementations;
+
+import com.mizookie.packagemapper.dto.user.AnalysisReport;
+import com.mizookie.packagemapper.jobs.AnalysisProgress;
+import com.mizookie.packagemapper.metrics.AnalysisMetrics;
+import com.mizookie.packagemapper.services.GraphAnalyticsService;
+import com.mizookie.packagemapper.utils.FileService;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+
+class AnalyserServiceImplTests {
+    @TempDir
+    Path directory;
+    private Path repositoryDirectory;
+    private Path repositoryPath;
+    private String base, head;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        repositoryDirectory = Files.createDirectories(directory.resolve("repositories"));
+        repositoryPath = repositoryDirectory.resolve("repo");
+        try (Git git = Git.init().setDirectory(repositoryPath.toFile()).setInitialBranch("main").call()) {
+            write("src/A.java", "class A { B b; }");
+            write("src/B.java", "class B {}");
+            write("src/C.java", "class C { A a; }");
+            // Mentions D before there is such a file
+            write("src/E.java", "class E { D d; }");
+            write("docs/notes.md", "See C");
+            base = commit(git, "Base");
+            git.branchCreate().setName("release").call();
+
+            write("src/A.java", "class A { D d; }");
+            write("src/D.java", "class D { C c; }");
+            Files.delete(repositoryPath.resolve("src/B.java"));
+            Files.move(repositoryPath.resolve("docs/notes.md"), repositoryPath.resolve("docs/guide.md"));
+            write("docs/guide.md", "See A and D");
+            head = commit(git, "Head");
+        }
+    }
+
+    private void write(String path, String content) throws IOException {
+        write(repositoryPath, path, content);
+    }
+
+    private static void write(Path repositoryPath, String path, String content) throws IOException {
+        Path file = repositoryPath.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+    }
+
+    private static String commit(Git git, String message) throws Exception {
+        git.add().addFilepattern(".").call();
+        git.add().addFilepattern(".").setUpdate(true).call();
+        RevCommit commit = git.commit().setMessage(message).setAuthor("test", "test@example.com")
+                .setCommitter("test", "test@example.com").call();
+        return commit.getName();
+    }
+
+    private record Services(AnalyserServiceImpl analyser, GraphServiceImpl graphs, SimpleMeterRegistry registry) {
+        // Analyses done in mode full, incremental or batch
+        long analyses(String mode) {
+            return registry.find("packagemapper.analysis").tag("mode", mode).timers().stream().mapToLong(Timer::count).sum();
+        }
+    }
+
+    // Services storing their graphs in their own directory
+    private Services servicesOf(String analysisDirectory, String resolverType) throws IOException {
+        return servicesOf(analysisDirectory, resolverType, Set.of(), false);
+    }
+
+    private Services servicesOf(String analysisDirectory, String resolverType, Set<String> importLanguages, boolean checkout) throws IOException {
+        String directoryPath = Files.createDirectories(directory.resolve(analysisDirectory)).toString();
+        GithubRepositoryServiceImpl githubService = new GithubRepositoryServiceImpl(100);
+        ReflectionTestUtils.setField(githubService, "localRepositoryDirectory", repositoryDirectory.toString());
+        DataSize cacheSize = DataSize.ofMegabytes(16);
+        GraphServiceImpl graphService = new GraphServiceImpl(githubService, new SimpleMeterRegistry(), cacheSize, cacheSize, cacheSize);
+        ReflectionTestUtils.setField(graphService, "analysisDirectory", directoryPath);
+        ResolutionCacheServiceImpl resolutionCache = new ResolutionCacheServiceImpl(true, DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(resolutionCache, "analysisDirectory", directoryPath);
+        resolutionCache.load();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AnalyserServiceImpl analyser = new AnalyserServiceImpl(graphService, mock(GraphAnalyticsService.class), githubService, resolutionCache,
+                new AnalysisMetrics(registry, resolverType), 2, 2, resolverType, importLanguages, checkout,
+                List.of("build/"), Set.of(""), DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(analyser, "localRepositoryDirectory", repositoryDirectory.toString());
+        ReflectionTestUtils.setField(analyser, "analyticsEnabled", false);
+        return new Services(analyser, graphService, registry);
+    }
+
+    private static Set<String> edgesOf(Graph<String, DefaultEdge> graph) {
+        return graph.edgeSet().stream().map(edge -> graph.getEdgeSource(edge) + " -> " + graph.getEdgeTarget(edge))
+                .collect(Collectors.toSet());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"naive", "mapped"})
+    void patchesTheGraphOfTheBaseVersion(String resolverType) throws Exception {
+        Services full = servicesOf("full", resolverType);
+        full.analyser().analyse(repositoryPath.toString(), head);
+        Graph<String, DefaultEdge> expected = full.graphs().importGraph("repo_" + head);
+
+        Services incremental = servicesOf("incremental", resolverType);
+        incremental.analyser().analyse(repositoryPath.toString(), base);
+        incremental.analyser().analyse(repositoryPath.toString(), base, head);
+        Graph<String, DefaultEdge> patched = incremental.graphs().importGraph("repo_" + head);
+
+        assertThat(incremental.analyses("incremental")).isEqualTo(1);
+        assertThat(patched.vertexSet()).isEqualTo(expected.vertexSet());
+        assertThat(edgesOf(patched)).isEqualTo(edgesOf(expected));
+        assertThat(edgesOf(patched)).contains(
+                "repo/src/D.java -> repo/src/A.java",
+                "repo/src/D.java -> repo/src/E.java",
+                "repo/src/C.java -> repo/src/D.java",
+                "repo/src/A.java -> repo/docs/guide.md")
+                .noneMatch(edge -> edge.contains("B.java") || edge.contains("notes.md"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"naive", "mapped"})
+    void analysesFromScratchWithoutABaseGraph(String resolverType) throws Exception {
+        Services full = servicesOf("full", resolverType);
+        full.analyser().analyse(repositoryPath.toString(), head);
+        Services incremental = servicesOf("incremental", resolverType);
+        incremental.analyser().analyse(repositoryPath.toString(), base, head);
+        assertThat(edgesOf(incremental.graphs().importGraph("repo_" + head)))
+                .isEqualTo(edgesOf(full.graphs().importGraph("repo_" + head)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"release", "short"})
+    void findsTheGraphOfABaseGivenByAnotherName(String baseVersion) throws Exception {
+        Services full = servicesOf("full", "naive");
+        full.analyser().analyse(repositoryPath.toString(), head);
+
+        Services incremental = servicesOf("incremental", "naive");
+        incremental.analyser().analyse(repositoryPath.toString(), base);
+        incremental.analyser().analyse(repositoryPath.toString(), baseVersion.equals("short") ? base.substring(0, 10) : baseVersion, "main");
+        // Patched rather than analysed again, and stored under the commit of the branch
+        assertThat(incremental.analyses("incremental")).isEqualTo(1);
+        assertThat(incremental.analyses("full")).isEqualTo(1);
+        assertThat(edgesOf(incremental.graphs().importGraph("repo_" + head)))
+                .isEqualTo(edgesOf(full.graphs().importGraph("repo_" + head)));
+    }
+
+    @Test
+    void resolvesJavaFilesFromTheirImportsAndTheNamesOfTheirPackage() throws Exception {
+        Services byName = servicesOf("names", "naive");
+        byName.analyser().analyse(repositoryPath.toString(), head);
+        Services byImports = servicesOf("imports", "naive", Set.of("java"), false);
+        byImports.analyser().analyse(repositoryPath.toString(), head);
+        assertThat(edgesOf(byImports.graphs().importGraph("repo_" + head)))
+                .isEqualTo(edgesOf(byName.graphs().importGraph("repo_" + head)))
+                .contains("repo/src/D.java -> repo/src/A.java");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"naive", "mapped"})
+    void findsTheSameEdgesWithoutCheckingVersionsOut(String resolverType) throws Exception {
+        Services fromObjects = servicesOf("objects", resolverType);
+        fromObjects.analyser().analyse(repositoryPath.toString(), base);
+        // The working tree is left at head
+        assertThat(repositoryPath.resolve("src/D.java")).exists();
+        try (Git git = Git.open(repositoryPath.toFile())) {
+            assertThat(git.getRepository().resolve("HEAD").getName()).isEqualTo(head);
+        }
+
+        Services checkedOut = servicesOf("checkout", resolverType, Set.of(), true);
+        checkedOut.analyser().analyse(repositoryPath.toString(), base);
+        assertThat(repositoryPath.resolve("src/D.java")).doesNotExist();
+        assertThat(edgesOf(fromObjects.graphs().importGraph("repo_" + base)))
+                .isEqualTo(edgesOf(checkedOut.graphs().importGraph("repo_" + base)))
+                .contains("repo/src/B.java -> repo/src/A.java", "repo/src/C.java -> repo/docs/notes.md");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"naive", "mapped"})
+    void analysesSeveralVersionsInOnePass(String resolverType) throws Exception {
+        Services separate = servicesOf("separate", resolverType, Set.of("java"), false);
+        separate.analyser().analyse(repositoryPath.toString(), base);
+        separate.analyser().analyse(repositoryPath.toString(), head);
+
+        Services batch = servicesOf("batch", resolverType, Set.of("java"), false);
+        // The same commit under two names is analysed once
+        batch.analyser().analyse(repositoryPath.toString(), List.of(base, "main", "release"), AnalysisProgress.NONE);
+        assertThat(batch.analyses("batch")).isEqualTo(1);
+        for (String commit : List.of(base, head)) {
+            assertThat(edgesOf(batch.graphs().importGraph("repo_" + commit)))
+                    .isEqualTo(edgesOf(separate.graphs().importGraph("repo_" + commit)));
+        }
+        assertThat(repositoryPath.resolve(".batch")).doesNotExist();
+    }
+
+    @Test
+    void reportsTheProgressOfABatch() throws Exception {
+        AtomicInteger queued = new AtomicInteger(), resolved = new AtomicInteger();
+        AnalysisProgress progress = new AnalysisProgress() {
+            @Override
+            public void filesQueued(int count) {
+                queued.addAndGet(count);
+            }
+
+            @Override
+            public void fileResolved() {
+                resolved.incrementAndGet();
+            }
+        };
+        servicesOf("batch", "naive").analyser().analyse(repositoryPath.toString(), List.of(base, head), progress);
+        // Files of both versions with the same content count once: B, C, E and the notes moved to the guide are
+        // in base only or changed, A changed, D is new
+        assertThat(queued.get()).isEqualTo(resolved.get()).isEqualTo(8);
+    }
+
+    // Another repository next to repo, with files of the given size
+    private void createRepository(String name, int files, int fileSize) throws Exception {
+        Path path = repositoryDirectory.resolve(name);
+        try (Git git = Git.init().setDirectory(path.toFile()).setInitialBranch("main").call()) {
+            for (int i = 0; i < files; ++i) {
+                write(path, "src/F" + i + ".java", "class F" + i + " { F" + (i + 1) + " next; }" + " ".repeat(fileSize));
+            }
+            commit(git, "Files");
+        }
+    }
+
+    @Test
+    void analysesEveryRepositoryLargestFirst() throws Exception {
+        createRepository("big", 20, 100);
+        write(repositoryDirectory.resolve("broken"), "src/X.java", "class X {}");
+        Services services = servicesOf("all", "naive");
+        ReflectionTestUtils.setField(services.analyser(), "allParallelism", 2);
+        ReflectionTestUtils.setField(services.analyser(), "allMemoryBudget", DataSize.ofMegabytes(64));
+
+        AnalysisReport report = services.analyser().analyse();
+        assertThat(report.getRepositories()).extracting(repository -> FileService.getFileNameOnly(repository.getRepository()))
+                .containsExactly("big", "repo", "broken");
+        assertThat(report.getRepositories()).extracting(AnalysisReport.RepositoryReport::getBytes).isSortedAccordingTo(Comparator.reverseOrder());
+        assertThat(report.getSucceeded()).isEqualTo(2);
+        assertThat(report.getFailed()).isEqualTo(1);
+        assertThat(report.getRepositories().get(2).getError()).isNotNull();
+        assertThat(report.getRepositories().get(0).isSucceeded()).isTrue();
+        assertThat(services.graphs().hasGraph("repo_" + head)).isTrue();
+    }
+
+    @Test
+    void keepsToTheParallelismAndTheMemoryBudget() throws Exception {
+        for (int i = 0; i < 4; ++i) {
+            createRepository("repo" + i, 2, 1000);
+        }
+        AnalyserServiceImpl analyser = spy(servicesOf("all", "naive").analyser());
+        AtomicInteger running = new AtomicInteger(), most = new AtomicInteger();
+        doAnswer(invocation -> {
+            most.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            running.decrementAndGet();
+            return null;
+        }).when(analyser).analyse(anyString(), isNull());
+
+        ReflectionTestUtils.setField(analyser, "allParallelism", 2);
+        ReflectionTestUtils.setField(analyser, "allMemoryBudget", DataSize.ofMegabytes(64));
+        assertThat(analyser.analyse().getSucceeded()).isEqualTo(5);
+        assertThat(most.get()).isEqualTo(2);
+
+        // Each repository needs the whole budget, so they run one at a time
+        most.set(0);
+        ReflectionTestUtils.setField(analyser, "allMemoryBudget", DataSize.ofKilobytes(1));
+        assertThat(analyser.analyse().getSucceeded()).isEqualTo(5);
+        assertThat(most.get()).isEqualTo(1);
+    }
+}
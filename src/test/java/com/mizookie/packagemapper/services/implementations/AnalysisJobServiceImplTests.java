@@ -0,0 +1,149 @@
+package com.mizookie.packagemapper.services.implementations;
+
+import com.mizookie.packagemapper.jobs.AnalysisJob;
+import com.mizookie.packagemapper.jobs.AnalysisProgress;
+import com.mizookie.packagemapper.services.AnalyserService;
+import com.mizookie.packagemapper.services.GithubRepositoryService;
+import com.mizookie.packagemapper.services.GraphService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AnalysisJobServiceImplTests {
+    private static final String REPOSITORY = "repositories/repo";
+
+    private final AnalyserService analyserService = mock(AnalyserService.class);
+    private final GithubRepositoryService githubRepositoryService = mock(GithubRepositoryService.class);
+    private final GraphService graphService = mock(GraphService.class);
+    // Analyses run until released
+    private final CountDownLatch release = new CountDownLatch(1);
+    private AnalysisJobServiceImpl jobService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Versions are their own commits
+        when(githubRepositoryService.resolveCommit(eq("repo"), anyString())).thenAnswer(invocation -> invocation.getArgument(1));
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(analyserService).analyse(anyString(), anyString(), any(AnalysisProgress.class));
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(analyserService).analyse(anyString(), anyList(), any(AnalysisProgress.class));
+        jobService = jobServiceOf(Duration.ofMinutes(1));
+    }
+
+    private AnalysisJobServiceImpl jobServiceOf(Duration timeout) {
+        return new AnalysisJobServiceImpl(analyserService, githubRepositoryService, graphService, timeout, Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        jobService.cancelAll();
+    }
+
+    @Test
+    void givesTheRunningJobOfTheSameCommit() throws Exception {
+        AnalysisJob first = jobService.submit(REPOSITORY, "c1");
+        assertThat(jobService.submit(REPOSITORY, "c1")).isSameAs(first);
+        assertThat(jobService.submit(REPOSITORY, "c2")).isNotSameAs(first);
+
+        release.countDown();
+        first.await();
+        assertThat(first.getState()).isEqualTo(AnalysisJob.State.SUCCEEDED);
+        verify(analyserService, times(1)).analyse(eq(REPOSITORY), eq("c1"), any(AnalysisProgress.class));
+    }
+
+    @Test
+    void patchesTheCommitOfTheBaseVersion() throws Exception {
+        when(githubRepositoryService.resolveCommit("repo", "release")).thenReturn("c1");
+        release.countDown();
+        AnalysisJob job = jobService.submit(REPOSITORY, "release", "c2");
+        job.await();
+        assertThat(job.getBaseVersion()).isEqualTo("c1");
+        verify(analyserService).analyse(eq(REPOSITORY), eq("c1"), eq("c2"), any(AnalysisProgress.class));
+    }
+
+    @Test
+    void startsAnotherJobOnceTheFirstIsDone() throws Exception {
+        release.countDown();
+        AnalysisJob first = jobService.submit(REPOSITORY, "c1");
+        first.await();
+        AnalysisJob second = jobService.submit(REPOSITORY, "c1");
+        assertThat(second).isNotSameAs(first);
+        second.await();
+        verify(analyserService, times(2)).analyse(eq(REPOSITORY), eq("c1"), any(AnalysisProgress.class));
+    }
+
+    @Test
+    void succeedsAtOnceWhenTheGraphIsStored() throws Exception {
+        when(graphService.hasGraph("repo_c1")).thenReturn(true);
+        AnalysisJob job = jobService.submit(REPOSITORY, "c1");
+        assertThat(job.getState()).isEqualTo(AnalysisJob.State.SUCCEEDED);
+        assertThat(jobService.getJob(job.getId())).isSameAs(job);
+        verify(analyserService, never()).analyse(anyString(), anyString(), any(AnalysisProgress.class));
+    }
+
+    @Test
+    void leavesOutOfBatchesTheCommitsStoredOrClaimed() throws Exception {
+        when(graphService.hasGraph("repo_c1")).thenReturn(true);
+        AnalysisJob single = jobService.submit(REPOSITORY, "c2");
+        AnalysisJob batch = jobService.submit(REPOSITORY, List.of("c1", "c2", "c3", "c4", "c3"));
+        assertThat(batch.getVersions()).containsExactly("c3", "c4");
+        // Single commit jobs wait for the batch
+        assertThat(jobService.submit(REPOSITORY, "c4")).isSameAs(batch);
+
+        release.countDown();
+        single.await();
+        batch.await();
+        assertThat(batch.getState()).isEqualTo(AnalysisJob.State.SUCCEEDED);
+        verify(analyserService).analyse(eq(REPOSITORY), eq(List.of("c3", "c4")), any(AnalysisProgress.class));
+    }
+
+    @Test
+    void succeedsAtOnceWhenNoCommitOfTheBatchIsLeft() throws Exception {
+        when(graphService.hasGraph(anyString())).thenReturn(true);
+        AnalysisJob batch = jobService.submit(REPOSITORY, List.of("c1", "c2"));
+        assertThat(batch.getState()).isEqualTo(AnalysisJob.State.SUCCEEDED);
+        assertThat(batch.getVersions()).isEmpty();
+        verify(analyserService, never()).analyse(anyString(), anyList(), any(AnalysisProgress.class));
+    }
+
+    @Test
+    void timesOut() throws Exception {
+        jobService.cancelAll();
+        jobService = jobServiceOf(Duration.ofMillis(50));
+        AnalysisJob job = jobService.submit(REPOSITORY, "c1");
+        job.await();
+        assertThat(job.getState()).isEqualTo(AnalysisJob.State.TIMED_OUT);
+        // No longer in flight
+        assertThat(jobService.submit(REPOSITORY, "c1")).isNotSameAs(job);
+    }
+
+    @Test
+    void cancels() throws Exception {
+        AnalysisJob job = jobService.submit(REPOSITORY, "c1");
+        assertThat(jobService.cancel(job.getId())).isTrue();
+        job.await();
+        assertThat(job.getState()).isEqualTo(AnalysisJob.State.CANCELLED);
+        assertThat(jobService.cancel(job.getId())).isFalse();
+    }
+}
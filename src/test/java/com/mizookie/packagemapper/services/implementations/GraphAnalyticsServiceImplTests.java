@@ -0,0 +1,127 @@
+package com.mizookie.packagemapper.services.implementations;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mizookie.packagemapper.dto.user.GraphAnalyticsReport;
+import com.mizookie.packagemapper.graph.BinaryGraph;
+import com.mizookie.packagemapper.services.GithubRepositoryService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class GraphAnalyticsServiceImplTests {
+    @TempDir
+    Path analysisDirectory;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private GraphServiceImpl graphService;
+    private GraphAnalyticsServiceImpl analyticsService;
+    private Graph<String, DefaultEdge> graph;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        DataSize cacheSize = DataSize.ofMegabytes(1);
+        graphService = new GraphServiceImpl(mock(GithubRepositoryService.class), new SimpleMeterRegistry(), cacheSize, cacheSize, cacheSize);
+        ReflectionTestUtils.setField(graphService, "analysisDirectory", analysisDirectory.toString());
+        analyticsService = spy(new GraphAnalyticsServiceImpl(graphService, objectMapper, 10));
+        ReflectionTestUtils.setField(analyticsService, "analysisDirectory", analysisDirectory.toString());
+
+        // a.py and b.py use each other, and c.py uses b.py
+        graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+        for (String path : new String[]{"a.py", "b.py", "c.py"}) {
+            graph.addVertex(path);
+        }
+        graph.addEdge("a.py", "b.py");
+        graph.addEdge("b.py", "a.py");
+        graph.addEdge("b.py", "c.py");
+    }
+
+    private GraphAnalyticsReport read(Path file) throws IOException {
+        return objectMapper.readValue(file.toFile(), GraphAnalyticsReport.class);
+    }
+
+    @Test
+    void storesTheAnalyticsOfAGraph() throws IOException {
+        graphService.serializeGraph(graph, "repo", "c1");
+        GraphAnalyticsReport report = analyticsService.computeAnalytics("repo_c1");
+        assertThat(report.getVertexCount()).isEqualTo(3);
+        assertThat(report.getEdgeCount()).isEqualTo(3);
+        assertThat(report.getComponents()).containsExactly(List.of("a.py", "b.py"));
+        assertThat(report.getCycles()).hasSize(1);
+        assertThat(report.isCyclesTruncated()).isFalse();
+        Map<String, GraphAnalyticsReport.NodeReport> nodes = report.getNodes().stream()
+                .collect(Collectors.toMap(GraphAnalyticsReport.NodeReport::getPath, Function.identity()));
+        assertThat(nodes.get("b.py").getFanIn()).isEqualTo(2);
+        assertThat(nodes.get("b.py").getFanOut()).isEqualTo(1);
+        assertThat(nodes.get("b.py").getComponent()).isZero();
+        assertThat(nodes.get("c.py").getComponent()).isNull();
+        assertThat(nodes.get("c.py").getLayer()).isGreaterThan(nodes.get("a.py").getLayer());
+
+        assertThat(read(analysisDirectory.resolve("repo_c1.analytics.json"))).isEqualTo(report);
+        // Nothing is left of the file it was written to first
+        try (var files = Files.list(analysisDirectory)) {
+            assertThat(files.map(file -> file.getFileName().toString()))
+                    .containsExactlyInAnyOrder("repo_c1" + BinaryGraph.EXTENSION, "repo_c1.analytics.json");
+        }
+    }
+
+    @Test
+    void worksOutTheAnalyticsOnce() throws IOException {
+        graphService.serializeGraph(graph, "repo", "c1");
+        Path file = analyticsService.getAnalyticsFile("repo_c1");
+        assertThat(analyticsService.getAnalyticsFile("repo_c1")).isEqualTo(file);
+        assertThat(read(file).getVertexCount()).isEqualTo(3);
+        verify(analyticsService, times(1)).computeAnalytics("repo_c1");
+    }
+
+    @Test
+    void worksOutTheAnalyticsAgainOnceTheGraphIsStoredAgain() throws IOException {
+        graphService.serializeGraph(graph, "repo", "c1");
+        Path file = analyticsService.getAnalyticsFile("repo_c1");
+        graph.addVertex("d.py");
+        graph.addEdge("c.py", "d.py");
+        graphService.serializeGraph(graph, "repo", "c1");
+        // Older than the graph, whatever the resolution of the clock
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minusSeconds(60)));
+        assertThat(read(analyticsService.getAnalyticsFile("repo_c1")).getVertexCount()).isEqualTo(4);
+        verify(analyticsService, times(2)).computeAnalytics("repo_c1");
+    }
+
+    @Test
+    void convertsGraphsStoredAsDot() throws IOException {
+        try (Writer writer = Files.newBufferedWriter(analysisDirectory.resolve("repo_c1.gv"))) {
+            graphService.exportDot(graph, writer);
+        }
+        assertThat(read(analyticsService.getAnalyticsFile("repo_c1")).getEdgeCount()).isEqualTo(3);
+        assertThat(analysisDirectory.resolve("repo_c1" + BinaryGraph.EXTENSION)).exists();
+    }
+
+    @Test
+    void failsForGraphsNeverStored() {
+        assertThatThrownBy(() -> analyticsService.getAnalyticsFile("repo_c2")).isInstanceOf(FileNotFoundException.class);
+        assertThat(analysisDirectory.resolve("repo_c2.analytics.json")).doesNotExist();
+    }
+}
@@ -0,0 +1,106 @@
+package com.mizookie.packagemapper.services.implementations;
+
+import com.mizookie.packagemapper.graph.GraphRollup;
+import com.mizookie.packagemapper.graph.SvgRenderer;
+import com.mizookie.packagemapper.services.GithubRepositoryService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class GraphServiceImplTests {
+    @TempDir
+    Path analysisDirectory;
+    private GraphServiceImpl graphService;
+    private Graph<String, DefaultEdge> graph;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        DataSize cacheSize = DataSize.ofMegabytes(1);
+        graphService = new GraphServiceImpl(mock(GithubRepositoryService.class), new SimpleMeterRegistry(), cacheSize, cacheSize, cacheSize);
+        ReflectionTestUtils.setField(graphService, "analysisDirectory", analysisDirectory.toString());
+        limitTo(100, 100);
+
+        graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+        for (String path : new String[]{"repo/a/A.java", "repo/a/B.java", "repo/b/C.java", "repo/b/D.java"}) {
+            graph.addVertex(path);
+        }
+        graph.addEdge("repo/a/A.java", "repo/a/B.java");
+        graph.addEdge("repo/a/A.java", "repo/b/C.java");
+        graph.addEdge("repo/a/B.java", "repo/b/D.java");
+        graphService.serializeGraph(graph, "repo", "c1");
+    }
+
+    private void limitTo(int vertices, int edges) {
+        ReflectionTestUtils.setField(graphService, "maxRenderedVertices", vertices);
+        ReflectionTestUtils.setField(graphService, "maxRenderedEdges", edges);
+    }
+
+    @Test
+    void drawsTheFilesWhenTheyFit() throws IOException {
+        SvgRenderer renderer = graphService.getRenderer("repo_c1", "", null, null);
+        assertThat(renderer.getLevel()).isEqualTo(GraphRollup.FILES);
+        assertThat(renderer.getDrawnVertexCount()).isEqualTo(4);
+        // Only the paths of the prefix
+        assertThat(graphService.getRenderer("repo_c1", "repo/a/", null, null).getDrawnVertexCount()).isEqualTo(2);
+    }
+
+    @Test
+    void rollsUpOnlyAsFarAsNeeded() throws IOException {
+        limitTo(2, 100);
+        SvgRenderer renderer = graphService.getRenderer("repo_c1", "", null, null);
+        assertThat(renderer.getLevel()).isEqualTo(2);
+        assertThat(renderer.getDrawnVertexCount()).isEqualTo(2);
+        assertThat(renderer.getDrawnEdgeCount()).isEqualTo(1);
+        // Too many edges between files, and between directories
+        limitTo(100, 0);
+        assertThat(graphService.getRenderer("repo_c1", "", null, null).getLevel()).isEqualTo(1);
+    }
+
+    @Test
+    void fallsBackToTopLevelDirectories() throws IOException {
+        limitTo(1, 100);
+        SvgRenderer renderer = graphService.getRenderer("repo_c1", "", null, null);
+        assertThat(renderer.getLevel()).isEqualTo(1);
+        assertThat(renderer.getDrawnVertexCount()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsPicturesOverTheLimits() {
+        limitTo(2, 100);
+        assertThatThrownBy(() -> graphService.getRenderer("repo_c1", "", GraphRollup.FILES, null))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("4 vertices and 3 edges to draw at level 0");
+        limitTo(100, 2);
+        assertThatThrownBy(() -> graphService.getRenderer("repo_c1", "", GraphRollup.FILES, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void drawsTilesOfPicturesOverTheLimits() throws IOException {
+        limitTo(2, 100);
+        // The files are drawn in a column, a tile of less than a cell high only crosses the first
+        SvgRenderer renderer = graphService.getRenderer("repo_c1", "", GraphRollup.FILES, new SvgRenderer.Tile(0, 0, 50));
+        assertThat(renderer.getDrawnVertexCount()).isEqualTo(1);
+    }
+
+    @Test
+    void displaysGraphsOverTheLimitsAsSvg() throws IOException {
+        limitTo(2, 100);
+        graphService.setDependencyMap(graph);
+        graphService.displayGraph("repo");
+        assertThat(Files.readString(analysisDirectory.resolve("repo.svg"))).startsWith("<svg").contains("repo/a/ → repo/b/ (2 edges)");
+    }
+}
@@ -0,0 +1,207 @@
+package com.mizookie.packagemapper.services.implementations;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResolutionCacheServiceImplTests {
+    private static final List<String> FILES = List.of("src/A.java", "src/B.java", "src/C.java");
+
+    @TempDir
+    Path analysisDirectory;
+
+    private ResolutionCacheServiceImpl cacheOf(boolean enabled, long maxBytes) {
+        ResolutionCacheServiceImpl cache = new ResolutionCacheServiceImpl(enabled, DataSize.ofBytes(maxBytes));
+        ReflectionTestUtils.setField(cache, "analysisDirectory", analysisDirectory.toString());
+        cache.load();
+        return cache;
+    }
+
+    private static ByteBuffer contentOf(String content) {
+        return ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> with(List<String> files, String... more) {
+        return Stream.concat(files.stream(), Stream.of(more)).toList();
+    }
+
+    @Test
+    void getsWhatWasPut() throws IOException {
+        ResolutionCacheServiceImpl cache = cacheOf(true, 1 << 20);
+        String fingerprint = cache.fingerprint("naive", FILES);
+        assertThat(cache.get("blob", fingerprint)).isNull();
+        cache.put("blob", fingerprint, List.of("B"), contentOf("class A { B b; }"));
+        assertThat(cache.get("blob", fingerprint)).containsExactly("B");
+        assertThat(cache.get("other", fingerprint)).isNull();
+        assertThat(cache.get("blob", "unknown")).isNull();
+        assertThat(cache.getStats()).containsEntry("entries", 1).containsEntry("hits", 1L).containsEntry("misses", 3L);
+    }
+
+    @Test
+    void keepsResultsApartByResolver() throws IOException {
+        ResolutionCacheServiceImpl cache = cacheOf(true, 1 << 20);
+        String naive = cache.fingerprint("naive", FILES), mapped = cache.fingerprint("mapped", FILES);
+        assertThat(naive).isNotEqualTo(mapped);
+        cache.put("blob", naive, List.of("B"), contentOf("class A { B b; }"));
+        assertThat(cache.get("blob", mapped)).isNull();
+    }
+
+    @Test
+    void reusesResultsWhenTheFileDoesNotMentionAddedNames() throws IOException {
+        ResolutionCacheServiceImpl cache = cacheOf(true, 1 << 20);
+        String before = cache.fingerprint("naive", FILES);
+        cache.put("blob", before, List.of("B"), contentOf("class A { B b; }"));
+        String after = cache.fingerprint("naive", with(FILES, "src/D.java"));
+        assertThat(cache.get("blob", after)).containsExactly("B");
+        assertThat(cache.getStats()).containsEntry("hitsAcrossNames", 1L);
+    }
+
+    @Test
+    void resolvesAgainWhenTheFileMentionsAddedNames() throws IOException {
+        ResolutionCacheServiceImpl cache = cacheOf(true, 1 << 20);
+        String before = cache.fingerprint("naive", FILES);
+        cache.put("blob", before, List.of("B"), contentOf("class A { B b; D d; }"));
+        String after = cache.fingerprint("naive", with(FILES, "src/D.java"));
+        assertThat(cache.get("blob", after)).isNull();
+        assertThat(cache.get("blob", before)).containsExactly("B");
+    }
+
+    @Test
+    void leavesOutRemovedNames() throws IOException {
+        ResolutionCacheServiceImpl cache = cacheOf(true, 1 << 20);
+        String before = cache.fingerprint("naive", FILES);
+        cache.put("blob", before, List.of("B", "C"), contentOf("class A { B b; C c; }"));
+        String after = cache.fingerprint("naive", List.of("src/A.java", "src/C.java"));
+        assertThat(cache.get("blob", after)).containsExactly("C");
+    }
+
+    @Test
+    void resolvesAgainWhenTheOwnNameOfTheFileBecomesShared() throws IOException {
+        ResolutionCacheServiceImpl cache = cacheOf(true, 1 << 20);
+        String before = cache.fingerprint("naive", FILES);
+        cache.put("blob", before, List.of("B"), contentOf("class A { B b; }"));
+        // Mentioning A now refers to web/A.js
+        assertThat(cache.get("blob", cache.fingerprint("naive", with(FILES, "web/A.js")))).isNull();
+        // B was found already, whichever file it refers to
+        assertThat(cache.get("blob", cache.fingerprint("naive", with(FILES, "web/B.js")))).containsExactly("B");
+    }
+
+    // Estimated size of a result without names of an empty file
+    private long bytesOfAResult() {
+        ResolutionCacheServiceImpl cache = cacheOf(false, 1 << 20);
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        cache.put("1", cache.fingerprint("naive", FILES), List.of(), contentOf(""));
+        return (long) cache.getStats().get("bytes");
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedResults() throws IOException {
+        ResolutionCacheServiceImpl cache = cacheOf(true, 2 * bytesOfAResult());
+        String fingerprint = cache.fingerprint("naive", FILES);
+        cache.put("1", fingerprint, List.of(), contentOf(""));
+        cache.put("2", fingerprint, List.of(), contentOf(""));
+        cache.get("1", fingerprint);
+        cache.put("3", fingerprint, List.of(), contentOf(""));
+        assertThat(cache.get("2", fingerprint)).isNull();
+        assertThat(cache.get("1", fingerprint)).isEmpty();
+        assertThat(cache.get("3", fingerprint)).isEmpty();
+    }
+
+    @Test
+    void isBoundedByTheSizeOfTheResults() {
+        ResolutionCacheServiceImpl cache = cacheOf(true, 4 * bytesOfAResult());
+        String fingerprint = cache.fingerprint("naive", FILES);
+        cache.put("1", fingerprint, List.of(), contentOf(""));
+        cache.put("2", fingerprint, List.of(), contentOf(""));
+        assertThat(cache.getStats()).containsEntry("entries", 2).containsEntry("bytes", 2 * bytesOfAResult());
+        // The filter of a file with many identifiers takes more room than both others together
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 250; ++i) {
+            content.append("field").append(i).append(' ');
+        }
+        cache.put("3", fingerprint, List.of(), contentOf(content.toString()));
+        assertThat(cache.getStats()).containsEntry("entries", 2);
+        assertThat(cache.get("1", fingerprint)).isNull();
+        assertThat(cache.get("2", fingerprint)).isEmpty();
+        assertThat(cache.get("3", fingerprint)).isEmpty();
+        assertThat((long) cache.getStats().get("bytes")).isLessThanOrEqualTo(4 * bytesOfAResult());
+    }
+
+    @Test
+    void neverCachesResultsBiggerThanTheCache() {
+        ResolutionCacheServiceImpl cache = cacheOf(true, bytesOfAResult());
+        String fingerprint = cache.fingerprint("naive", FILES);
+        cache.put("1", fingerprint, List.of(), contentOf(""));
+        cache.put("2", fingerprint, List.of("B"), contentOf("class A { B b; }"));
+        assertThat(cache.get("1", fingerprint)).isEmpty();
+        assertThat(cache.get("2", fingerprint)).isNull();
+    }
+
+    @Test
+    void survivesRestarts() throws IOException {
+        ResolutionCacheServiceImpl cache = cacheOf(true, 1 << 20);
+        String before = cache.fingerprint("naive", FILES);
+        cache.put("1", before, List.of("B"), contentOf("class A { B b; }"));
+        cache.save();
+        Path cacheFile = analysisDirectory.resolve("resolution-cache.bin");
+        long size = Files.size(cacheFile);
+
+        // Appended to what was saved already
+        String after = cache.fingerprint("naive", with(FILES, "src/D.java"));
+        cache.put("2", after, List.of("D"), contentOf("class C { D d; }"));
+        cache.save();
+        assertThat(Files.size(cacheFile)).isGreaterThan(size);
+
+        ResolutionCacheServiceImpl reloaded = cacheOf(true, 1 << 20);
+        assertThat(reloaded.get("1", before)).containsExactly("B");
+        assertThat(reloaded.get("2", after)).containsExactly("D");
+        assertThat(reloaded.get("1", after)).containsExactly("B");
+        assertThat(reloaded.getStats()).containsEntry("entries", 2);
+    }
+
+    @Test
+    void keepsWhatWasReadFromACutShortCache() throws IOException {
+        ResolutionCacheServiceImpl cache = cacheOf(true, 1 << 20);
+        String fingerprint = cache.fingerprint("naive", FILES);
+        cache.put("1", fingerprint, List.of("B"), contentOf("class A { B b; }"));
+        cache.save();
+        cache.put("2", fingerprint, List.of("C"), contentOf("class A { C c; }"));
+        cache.save();
+        Path cacheFile = analysisDirectory.resolve("resolution-cache.bin");
+        try (RandomAccessFile file = new RandomAccessFile(cacheFile.toFile(), "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        ResolutionCacheServiceImpl reloaded = cacheOf(true, 1 << 20);
+        assertThat(reloaded.get("1", fingerprint)).containsExactly("B");
+        assertThat(reloaded.get("2", fingerprint)).isNull();
+        // Written again from scratch, without the broken tail
+        reloaded.save();
+        assertThat(cacheOf(true, 1 << 20).get("1", fingerprint)).containsExactly("B");
+    }
+
+    @Test
+    void doesNothingWhenDisabled() throws IOException {
+        ResolutionCacheServiceImpl cache = cacheOf(false, 1 << 20);
+        String fingerprint = cache.fingerprint("naive", FILES);
+        cache.put("blob", fingerprint, List.of("B"), contentOf("class A { B b; }"));
+        assertThat(cache.get("blob", fingerprint)).isNull();
+        cache.save();
+        assertThat(analysisDirectory.resolve("resolution-cache.bin")).doesNotExist();
+        Map<String, Object> stats = cache.getStats();
+        assertThat(stats).containsEntry("entries", 0).containsEntry("misses", 0L);
+    }
+}
@@ -0,0 +1,91 @@
+package com.mizookie.packagemapper.visitors;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SourceFileFilterTests {
+    private static final Map<String, String> IGNORE_FILES = Map.of(
+            ".gitignore", "build/\n*.log\n",
+            "web/.gitignore", "*.min.js\n!*.log\n",
+            "web/vendor/.gitignore", "!keep.min.js\n");
+
+    private final List<String> opened = new ArrayList<>();
+
+    private SourceFileFilter.Tree treeOf(SourceFileFilter filter) {
+        return filter.forTree(path -> {
+            opened.add(path);
+            String content = IGNORE_FILES.get(path);
+            return content == null ? null : new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+        });
+    }
+
+    @Test
+    void leavesOutHiddenAndIgnoredFiles() throws IOException {
+        SourceFileFilter.Tree tree = treeOf(SourceFileFilter.VISIBLE);
+        assertThat(tree.isExcluded("src/App.java", false)).isFalse();
+        assertThat(tree.isExcluded(".env", false)).isTrue();
+        assertThat(tree.isExcluded("src/.idea", true)).isTrue();
+        assertThat(tree.isExcluded("build", true)).isTrue();
+        assertThat(tree.isExcluded("build", false)).isFalse();
+        assertThat(tree.isExcluded("src/debug.log", false)).isTrue();
+    }
+
+    @Test
+    void letsTheClosestGitignoreWin() throws IOException {
+        SourceFileFilter.Tree tree = treeOf(SourceFileFilter.VISIBLE);
+        assertThat(tree.isExcluded("web/app.min.js", false)).isTrue();
+        assertThat(tree.isExcluded("web/debug.log", false)).isFalse();
+        assertThat(tree.isExcluded("web/vendor/keep.min.js", false)).isFalse();
+        assertThat(tree.isExcluded("web/vendor/other.min.js", false)).isTrue();
+    }
+
+    @Test
+    void checksTheDirectoriesOfListedFiles() throws IOException {
+        SourceFileFilter.Tree tree = treeOf(SourceFileFilter.VISIBLE);
+        assertThat(tree.isExcludedFile("build/classes/App.java")).isTrue();
+        assertThat(tree.isExcludedFile("src/.hidden/App.java")).isTrue();
+        assertThat(tree.isExcludedFile("src/main/App.java")).isFalse();
+        // Each .gitignore is only opened once
+        assertThat(tree.isExcludedFile("src/main/Other.java")).isFalse();
+        assertThat(opened).doesNotHaveDuplicates().contains(".gitignore", "src/.gitignore", "src/main/.gitignore");
+    }
+
+    @Test
+    void leavesOutExcludedPatternsAndOtherExtensions() throws IOException {
+        SourceFileFilter filter = new SourceFileFilter(List.of("node_modules/", "*.gen.java", " "), Set.of(".java", ".js"), 10);
+        SourceFileFilter.Tree tree = treeOf(filter);
+        assertThat(tree.isExcluded("node_modules", true)).isTrue();
+        assertThat(tree.isExcluded("src/Api.gen.java", false)).isTrue();
+        assertThat(tree.isExcluded("README.md", false)).isTrue();
+        assertThat(tree.isExcluded("docs", true)).isFalse();
+        assertThat(tree.isExcluded("src/App.java", false)).isFalse();
+        assertThat(filter.hasAllowedSize(10)).isTrue();
+        assertThat(filter.hasAllowedSize(11)).isFalse();
+        assertThat(SourceFileFilter.VISIBLE.hasAllowedSize(Long.MAX_VALUE)).isTrue();
+        assertThat(SourceFileFilter.VISIBLE.hasAllowedExtension("Makefile")).isTrue();
+    }
+
+    @Test
+    void findsBinaryContentLikeGit() throws IOException {
+        assertThat(SourceFileFilter.isBinary(new ByteArrayInputStream("class A {}".getBytes(StandardCharsets.UTF_8)))).isFalse();
+        assertThat(SourceFileFilter.isBinary(new ByteArrayInputStream(new byte[]{'P', 'N', 'G', 0}))).isTrue();
+        assertThat(SourceFileFilter.isBinary(new ByteArrayInputStream(new byte[0]))).isFalse();
+        // Only the first 8000 bytes are looked at
+        byte[] late = new byte[9000];
+        Arrays.fill(late, (byte) 'a');
+        late[8500] = 0;
+        assertThat(SourceFileFilter.isBinary(new ByteArrayInputStream(late))).isFalse();
+        late[7999] = 0;
+        assertThat(SourceFileFilter.isBinary(new ByteArrayInputStream(late))).isTrue();
+    }
+}
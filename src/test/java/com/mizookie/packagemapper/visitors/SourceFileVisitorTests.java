@@ -0,0 +1,72 @@
+package com.mizookie.packagemapper.visitors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SourceFileVisitorTests {
+    @TempDir
+    Path root;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        write("src/App.java", "class App {}");
+        write("src/util/Strings.java", "class Strings {}");
+        write("web/app.js", "import './b';");
+        write("web/app.min.js", "minified");
+        write("web/.gitignore", "*.min.js\n");
+        write(".gitignore", "build/\n");
+        write("build/App.class", "compiled");
+        write(".git/config", "[core]");
+        write("docs/notes.md", "x".repeat(100));
+        Files.write(root.resolve("src/logo.png"), new byte[]{'P', 'N', 'G', 0, 1});
+    }
+
+    private void write(String path, String content) throws IOException {
+        Path file = root.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+    }
+
+    private List<String> walk(SourceFileFilter filter) throws IOException {
+        SourceFileVisitor visitor = new SourceFileVisitor(root, filter);
+        try (ForkJoinPool pool = new ForkJoinPool(2)) {
+            visitor.walk(pool);
+        }
+        return visitor.getFiles().stream().map(file -> root.relativize(file).toString().replace('\\', '/')).toList();
+    }
+
+    @Test
+    void visitsTheVisibleTextFiles() throws IOException {
+        assertThat(walk(SourceFileFilter.VISIBLE)).containsExactly(
+                "docs/notes.md", "src/App.java", "src/util/Strings.java", "web/app.js");
+    }
+
+    @Test
+    void visitsTheSameFilesAsWalkFileTree() throws IOException {
+        SourceFileFilter filter = new SourceFileFilter(List.of("src/util/"), Set.of(".java", ".md"), 50);
+        SourceFileVisitor visitor = new SourceFileVisitor(root, filter);
+        Files.walkFileTree(root, visitor);
+        assertThat(walk(filter)).containsExactly("src/App.java")
+                .isEqualTo(visitor.getFiles().stream().map(file -> root.relativize(file).toString().replace('\\', '/')).toList());
+    }
+
+    @Test
+    void failsWhenTheRootCantBeListed() {
+        SourceFileVisitor visitor = new SourceFileVisitor(root.resolve("missing"), SourceFileFilter.VISIBLE);
+        try (ForkJoinPool pool = new ForkJoinPool(1)) {
+            assertThatThrownBy(() -> visitor.walk(pool)).isInstanceOf(IOException.class);
+        }
+    }
+}